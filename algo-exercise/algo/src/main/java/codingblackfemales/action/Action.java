@@ -6,4 +6,12 @@ public interface Action {
 
     void apply(final Sequencer sequencer);
 
+    /**
+     * Sends the action using the Actioner's reused encoders, actions which can encode themselves without allocating
+     * should override this.
+     */
+    default void apply(final Sequencer sequencer, final ActionEncoder encoder) {
+        apply(sequencer);
+    }
+
 }
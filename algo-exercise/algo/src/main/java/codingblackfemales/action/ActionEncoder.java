@@ -0,0 +1,122 @@
+package codingblackfemales.action;
+
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.util.BufferStack;
+import messages.order.CancelOrderEncoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.MessageHeaderEncoder;
+import messages.order.OrderBatchAction;
+import messages.order.OrderBatchEncoder;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Encodes actions into order commands with reused SBE encoders and buffers, so sending an action doesn't allocate.
+ *
+ * Sending is re-entrant: the sequencer can dispatch the command straight back to the container, which can evaluate and
+ * send another action before this one returns. Each level of nesting encodes into its own buffer from a BufferStack.
+ */
+public class ActionEncoder {
+
+    private static final int BUFFER_SIZE = 1024;
+    private static final int INITIAL_DEPTH = 16;
+
+    /**
+     * The most creates and cancels that fit into one order batch message.
+     */
+    public static final int MAX_BATCH_SIZE = (BUFFER_SIZE - MessageHeaderEncoder.ENCODED_LENGTH - OrderBatchEncoder.BLOCK_LENGTH
+            - OrderBatchEncoder.OrdersEncoder.sbeHeaderSize()) / OrderBatchEncoder.OrdersEncoder.sbeBlockLength();
+
+    //for actions sent without an encoder, one per thread as encoders aren't thread-safe
+    private static final ThreadLocal<ActionEncoder> THREAD_ENCODER = ThreadLocal.withInitial(() -> new ActionEncoder(1));
+
+    private final BufferStack buffers;
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final CreateOrderEncoder createOrderEncoder = new CreateOrderEncoder();
+    private final CancelOrderEncoder cancelOrderEncoder = new CancelOrderEncoder();
+    private final OrderBatchEncoder orderBatchEncoder = new OrderBatchEncoder();
+
+    private long instrumentId = 0;
+
+    public ActionEncoder() {
+        this(INITIAL_DEPTH);
+    }
+
+    public ActionEncoder(final int initialDepth) {
+        this.buffers = new BufferStack(BUFFER_SIZE, initialDepth);
+    }
+
+    /**
+     * The calling thread's encoder for Action.apply(Sequencer), which isn't given one, so the old way of sending an
+     * action doesn't allocate either. Its instrumentId is left at 0.
+     */
+    public static ActionEncoder forCurrentThread() {
+        return THREAD_ENCODER.get();
+    }
+
+    /**
+     * Sets the instrument stamped on the creates and batches encoded from now on.
+     */
+    public void instrumentId(final long instrumentId) {
+        this.instrumentId = instrumentId;
+    }
+
+    public long instrumentId() {
+        return instrumentId;
+    }
+
+    public void createOrder(final Sequencer sequencer, final Side side, final long quantity, final long price) {
+        final UnsafeBuffer buffer = buffers.push();
+        try {
+            createOrderEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder);
+            createOrderEncoder.instrumentId(instrumentId);
+            createOrderEncoder.price(price);
+            createOrderEncoder.quantity(quantity);
+            createOrderEncoder.side(side);
+            sequencer.onCommand(buffer);
+        } finally {
+            buffers.pop();
+        }
+    }
+
+    public void cancelOrder(final Sequencer sequencer, final long orderId) {
+        final UnsafeBuffer buffer = buffers.push();
+        try {
+            cancelOrderEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder);
+            cancelOrderEncoder.orderId(orderId);
+            sequencer.onCommand(buffer);
+        } finally {
+            buffers.pop();
+        }
+    }
+
+    /**
+     * Sends every create and cancel in the batch as one command, or one per MAX_BATCH_SIZE orders if there are more than
+     * fit in one, ids for the creates are assigned by the sequencer.
+     */
+    public void orderBatch(final Sequencer sequencer, final BatchChildOrderAction batch) {
+        for (int from = 0; from < batch.size(); from += MAX_BATCH_SIZE) {
+            orderBatch(sequencer, batch, from, Math.min(batch.size(), from + MAX_BATCH_SIZE));
+        }
+    }
+
+    private void orderBatch(final Sequencer sequencer, final BatchChildOrderAction batch, final int from, final int to) {
+        final UnsafeBuffer buffer = buffers.push();
+        try {
+            orderBatchEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder);
+            orderBatchEncoder.instrumentId(instrumentId);
+            final OrderBatchEncoder.OrdersEncoder orders = orderBatchEncoder.ordersCount(to - from);
+            for (int i = from; i < to; i++) {
+                orders.next()
+                        .action(batch.isCreate(i) ? OrderBatchAction.CREATE : OrderBatchAction.CANCEL)
+                        .side(batch.isCreate(i) ? batch.getSide(i) : Side.BUY)
+                        .price(batch.getPrice(i))
+                        .quantity(batch.getQuantity(i))
+                        .orderId(batch.getOrderId(i));
+            }
+            sequencer.onCommand(buffer);
+        } finally {
+            buffers.pop();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package codingblackfemales.action;
+
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sotw.ChildOrder;
+import messages.order.Side;
+
+import java.util.Arrays;
+
+/**
+ * Several child order creates and cancels sent as one command, so an algo can lay or re-quote a ladder in a single
+ * evaluation. The order book applies the whole batch before publishing its next update, and the algo is run once
+ * for the batch rather than once per order.
+ *
+ * Like MutableChildOrderAction it is meant to be kept and refilled:
+ *
+ *     private final BatchChildOrderAction batch = new BatchChildOrderAction();
+ *     ...
+ *     return batch.clear().create(Side.BUY, 100, 98).create(Side.BUY, 100, 97).cancel(oldOrder);
+ *
+ * A batch grows to hold as many orders as it is given, one larger than ActionEncoder.MAX_BATCH_SIZE goes out as
+ * several order batch messages, in the order the creates and cancels were added.
+ */
+public class BatchChildOrderAction implements Action {
+
+    private boolean[] creates = new boolean[ActionEncoder.MAX_BATCH_SIZE];
+    private Side[] sides = new Side[ActionEncoder.MAX_BATCH_SIZE];
+    private long[] quantities = new long[ActionEncoder.MAX_BATCH_SIZE];
+    private long[] prices = new long[ActionEncoder.MAX_BATCH_SIZE];
+    private long[] orderIds = new long[ActionEncoder.MAX_BATCH_SIZE];
+
+    private int size = 0;
+
+    public BatchChildOrderAction clear() {
+        size = 0;
+        return this;
+    }
+
+    public BatchChildOrderAction create(final Side side, final long quantity, final long price) {
+        final int index = nextIndex();
+        creates[index] = true;
+        sides[index] = side;
+        quantities[index] = quantity;
+        prices[index] = price;
+        orderIds[index] = 0;
+        return this;
+    }
+
+    public BatchChildOrderAction cancel(final long orderId) {
+        final int index = nextIndex();
+        creates[index] = false;
+        sides[index] = null;
+        quantities[index] = 0;
+        prices[index] = 0;
+        orderIds[index] = orderId;
+        return this;
+    }
+
+    public BatchChildOrderAction cancel(final ChildOrder orderToCancel) {
+        return cancel(orderToCancel.getOrderId());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isCreate(final int index) {
+        return creates[checkIndex(index)];
+    }
+
+    public Side getSide(final int index) {
+        return sides[checkIndex(index)];
+    }
+
+    public long getQuantity(final int index) {
+        return quantities[checkIndex(index)];
+    }
+
+    public long getPrice(final int index) {
+        return prices[checkIndex(index)];
+    }
+
+    public long getOrderId(final int index) {
+        return orderIds[checkIndex(index)];
+    }
+
+    @Override
+    public void apply(final Sequencer sequencer) {
+        apply(sequencer, ActionEncoder.forCurrentThread());
+    }
+
+    @Override
+    public void apply(final Sequencer sequencer, final ActionEncoder encoder) {
+        //nothing to send, the algo decided not to act after all
+        if (size > 0) {
+            encoder.orderBatch(sequencer, this);
+        }
+    }
+
+    private int nextIndex() {
+        if (size == creates.length) {
+            creates = Arrays.copyOf(creates, size * 2);
+            sides = Arrays.copyOf(sides, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+            prices = Arrays.copyOf(prices, size * 2);
+            orderIds = Arrays.copyOf(orderIds, size * 2);
+        }
+        return size++;
+    }
+
+    private int checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " is outside a batch of " + size);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("BatchChildOrderAction(");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            if (creates[i]) {
+                builder.append("CreateChildOrder(side=").append(sides[i]).append(",quantity=").append(quantities[i]).append(",price=").append(prices[i]).append(')');
+            } else {
+                builder.append("CancelChildOrder(orderId=").append(orderIds[i]).append(')');
+            }
+        }
+        return builder.append(')').toString();
+    }
+}
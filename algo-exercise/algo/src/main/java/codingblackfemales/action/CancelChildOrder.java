@@ -2,11 +2,6 @@ package codingblackfemales.action;
 
 import codingblackfemales.sequencer.Sequencer;
 import codingblackfemales.sotw.ChildOrder;
-import messages.order.CancelOrderEncoder;
-import messages.order.MessageHeaderEncoder;
-import org.agrona.concurrent.UnsafeBuffer;
-
-import java.nio.ByteBuffer;
 
 public class CancelChildOrder implements Action{
 
@@ -23,18 +18,11 @@ public class CancelChildOrder implements Action{
 
     @Override
     public void apply(final Sequencer sequencer) {
+        apply(sequencer, ActionEncoder.forCurrentThread());
+    }
 
-        final CancelOrderEncoder encoder = new CancelOrderEncoder();
-        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
-        final UnsafeBuffer directBuffer = new UnsafeBuffer(byteBuffer);
-        final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
-
-        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
-        headerEncoder.schemaId(CancelOrderEncoder.SCHEMA_ID);
-        headerEncoder.version(CancelOrderEncoder.SCHEMA_VERSION);
-
-        encoder.orderId(orderToCancel.getOrderId());
-
-        sequencer.onCommand(directBuffer);
+    @Override
+    public void apply(final Sequencer sequencer, final ActionEncoder encoder) {
+        encoder.cancelOrder(sequencer, orderToCancel.getOrderId());
     }
 }
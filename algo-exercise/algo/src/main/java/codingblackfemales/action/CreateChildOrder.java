@@ -1,15 +1,10 @@
 package codingblackfemales.action;
 
 import codingblackfemales.sequencer.Sequencer;
-import messages.order.CreateOrderEncoder;
-import messages.order.MessageHeaderEncoder;
 import messages.order.Side;
-import org.agrona.concurrent.UnsafeBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
-
 public class CreateChildOrder implements Action {
 
     private static final Logger logger = LoggerFactory.getLogger(CreateChildOrder.class);
@@ -33,17 +28,11 @@ public class CreateChildOrder implements Action {
 
     @Override
     public void apply(Sequencer sequencer) {
-        final CreateOrderEncoder encoder = new CreateOrderEncoder();
-        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
-        final UnsafeBuffer directBuffer = new UnsafeBuffer(byteBuffer);
-        final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
-
-        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
-        headerEncoder.schemaId(CreateOrderEncoder.SCHEMA_ID);
-        headerEncoder.version(CreateOrderEncoder.SCHEMA_VERSION);
-        encoder.price(price);
-        encoder.quantity(quantity);
-        encoder.side(side);
-        sequencer.onCommand(directBuffer);
+        apply(sequencer, ActionEncoder.forCurrentThread());
+    }
+
+    @Override
+    public void apply(final Sequencer sequencer, final ActionEncoder encoder) {
+        encoder.createOrder(sequencer, side, quantity, price);
     }
 }
@@ -0,0 +1,102 @@
+package codingblackfemales.action;
+
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sotw.ChildOrder;
+import messages.order.Side;
+
+/**
+ * A create or cancel action which an algo keeps and refills on each evaluation, instead of allocating a new
+ * CreateChildOrder or CancelChildOrder every time it decides to act.
+ *
+ * The Actioner sends the action before evaluate is called again, so a single instance per algo is enough:
+ *
+ *     private final MutableChildOrderAction action = new MutableChildOrderAction();
+ *     ...
+ *     return action.create(Side.BUY, quantity, price);
+ */
+public class MutableChildOrderAction implements Action {
+
+    private static final int NONE = 0;
+    private static final int CREATE = 1;
+    private static final int CANCEL = 2;
+
+    private int type = NONE;
+    private Side side;
+    private long quantity;
+    private long price;
+    private long orderId;
+
+    public MutableChildOrderAction create(final Side side, final long quantity, final long price) {
+        this.type = CREATE;
+        this.side = side;
+        this.quantity = quantity;
+        this.price = price;
+        this.orderId = 0;
+        return this;
+    }
+
+    public MutableChildOrderAction cancel(final long orderId) {
+        this.type = CANCEL;
+        this.orderId = orderId;
+        return this;
+    }
+
+    public MutableChildOrderAction cancel(final ChildOrder orderToCancel) {
+        return cancel(orderToCancel.getOrderId());
+    }
+
+    public boolean isCreate() {
+        return type == CREATE;
+    }
+
+    public boolean isCancel() {
+        return type == CANCEL;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    @Override
+    public void apply(final Sequencer sequencer) {
+        apply(sequencer, ActionEncoder.forCurrentThread());
+    }
+
+    @Override
+    public void apply(final Sequencer sequencer, final ActionEncoder encoder) {
+        switch (type) {
+            case CREATE:
+                encoder.createOrder(sequencer, side, quantity, price);
+                break;
+            case CANCEL:
+                encoder.cancelOrder(sequencer, orderId);
+                break;
+            default:
+                throw new IllegalStateException("MutableChildOrderAction applied before create or cancel was set");
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case CREATE:
+                return "CreateChildOrder(side=" + side + ",quantity=" + quantity + ",price=" + price + ")";
+            case CANCEL:
+                return "CancelChildOrder(orderId=" + orderId + ")";
+            default:
+                return "MutableChildOrderAction()";
+        }
+    }
+}
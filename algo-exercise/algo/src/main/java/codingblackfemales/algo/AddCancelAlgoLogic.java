@@ -1,8 +1,7 @@
 package codingblackfemales.algo;
 
 import codingblackfemales.action.Action;
-import codingblackfemales.action.CancelChildOrder;
-import codingblackfemales.action.CreateChildOrder;
+import codingblackfemales.action.MutableChildOrderAction;
 import codingblackfemales.action.NoAction;
 import codingblackfemales.sotw.SimpleAlgoState;
 import codingblackfemales.sotw.marketdata.BidLevel;
@@ -15,14 +14,16 @@ public class AddCancelAlgoLogic implements AlgoLogic {
 
     private static final Logger logger = LoggerFactory.getLogger(AddCancelAlgoLogic.class);
 
+    private final MutableChildOrderAction action = new MutableChildOrderAction();
+
     @Override
     public Action evaluate(SimpleAlgoState state) {
 
         logger.info("[ADDCANCELALGO] In Algo Logic....");
 
-        final String book = Util.orderBookToString(state);
-
-        logger.info("[ADDCANCELALGO] Algo Sees Book as:\n" + book);
+        if (logger.isInfoEnabled()) {
+            logger.info("[ADDCANCELALGO] Algo Sees Book as:\n{}", Util.orderBookToString(state));
+        }
 
         var totalOrderCount = state.getChildOrders().size();
 
@@ -34,24 +35,15 @@ public class AddCancelAlgoLogic implements AlgoLogic {
         final var activeOrders = state.getActiveChildOrders();
 
         if (activeOrders.size() > 0) {
-
-            final var option = activeOrders.stream().findFirst();
-
-
-            if (option.isPresent()) {
-                var childOrder = option.get();
-                logger.info("[ADDCANCELALGO] Cancelling order:" + childOrder);
-                return new CancelChildOrder(childOrder);
-            }
-            else{
-                return NoAction.NoAction;
-            }
+            var childOrder = activeOrders.get(0);
+            logger.info("[ADDCANCELALGO] Cancelling order:{}", childOrder);
+            return action.cancel(childOrder);
         } else {
             BidLevel level = state.getBidAt(0);
             final long price = level.price;
             final long quantity = level.quantity;
-            logger.info("[ADDCANCELALGO] Adding order for" + quantity + "@" + price);
-            return new CreateChildOrder(Side.BUY, quantity, price);
+            logger.info("[ADDCANCELALGO] Adding order for{}@{}", quantity, price);
+            return action.create(Side.BUY, quantity, price);
         }
     }
     //@Override
@@ -0,0 +1,68 @@
+package codingblackfemales.algo;
+
+import codingblackfemales.action.Action;
+import codingblackfemales.action.BatchChildOrderAction;
+import codingblackfemales.sotw.ChildOrder;
+import codingblackfemales.sotw.SimpleAlgoState;
+import codingblackfemales.sotw.marketdata.AskLevel;
+import messages.order.Side;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static codingblackfemales.action.NoAction.NoAction;
+
+/**
+ * Lays a ladder of passive buy orders one tick apart, starting two ticks below the far touch, and re-quotes the whole
+ * ladder when the far touch moves. It pegs to the far touch as the near touch includes its own orders.
+ *
+ * Each ladder (and each re-quote, cancels included) goes out as one batch. Orders which have filled in full are left
+ * out of the cancels, there is nothing left of them to cancel.
+ */
+public class LadderAlgoLogic implements AlgoLogic {
+
+    private static final Logger logger = LoggerFactory.getLogger(LadderAlgoLogic.class);
+
+    private static final int LEVELS = 5;
+    private static final long QUANTITY = 50;
+
+    private final BatchChildOrderAction batch = new BatchChildOrderAction();
+
+    private long ladderTop = -1;
+
+    @Override
+    public Action evaluate(SimpleAlgoState state) {
+
+        final AskLevel farTouch = state.getAskAt(0);
+
+        if (farTouch == null) {
+            return NoAction;
+        }
+
+        final long top = farTouch.price - 2L;
+
+        if (top == ladderTop) {
+            return NoAction;
+        }
+
+        batch.clear();
+
+        final List<ChildOrder> activeOrders = state.getActiveChildOrders();
+        for (int i = 0; i < activeOrders.size(); i++) {
+            final ChildOrder order = activeOrders.get(i);
+            if (order.getLeavesQuantity() > 0) {
+                batch.cancel(order);
+            }
+        }
+
+        for (int level = 0; level < LEVELS; level++) {
+            batch.create(Side.BUY, QUANTITY, top - level);
+        }
+
+        logger.info("[LADDERALGO] Far touch moved, quoting {} levels from {} and cancelling {} orders", LEVELS, top, batch.size() - LEVELS);
+
+        ladderTop = top;
+        return batch;
+    }
+}
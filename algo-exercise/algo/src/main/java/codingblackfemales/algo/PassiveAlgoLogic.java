@@ -1,7 +1,7 @@
 package codingblackfemales.algo;
 
 import codingblackfemales.action.Action;
-import codingblackfemales.action.CreateChildOrder;
+import codingblackfemales.action.MutableChildOrderAction;
 import codingblackfemales.sotw.SimpleAlgoState;
 import codingblackfemales.sotw.marketdata.BidLevel;
 import codingblackfemales.util.Util;
@@ -15,14 +15,16 @@ public class PassiveAlgoLogic implements AlgoLogic{
 
     private static final Logger logger = LoggerFactory.getLogger(PassiveAlgoLogic.class);
 
+    private final MutableChildOrderAction action = new MutableChildOrderAction();
+
     @Override
     public Action evaluate(SimpleAlgoState state) {
 
         logger.info("[PASSIVEALGO] In Algo Logic....");
 
-        final String book = Util.orderBookToString(state);
-
-        logger.info("[PASSIVEALGO] Algo Sees Book as:\n" + book);
+        if (logger.isInfoEnabled()) {
+            logger.info("[PASSIVEALGO] Algo Sees Book as:\n{}", Util.orderBookToString(state));
+        }
 
         final BidLevel nearTouch = state.getBidAt(0);
 
@@ -32,10 +34,10 @@ public class PassiveAlgoLogic implements AlgoLogic{
         //until we have three child orders....
         if(state.getChildOrders().size() < 3){
             //then keep creating a new one
-            logger.info("[PASSIVEALGO] Have:" + state.getChildOrders().size() + " children, want 3, joining passive side of book with: " + quantity + " @ " + price);
-            return new CreateChildOrder(Side.BUY, quantity, price);
+            logger.info("[PASSIVEALGO] Have:{} children, want 3, joining passive side of book with: {} @ {}", state.getChildOrders().size(), quantity, price);
+            return action.create(Side.BUY, quantity, price);
         }else{
-            logger.info("[PASSIVEALGO] Have:" + state.getChildOrders().size() + " children, want 3, done.");
+            logger.info("[PASSIVEALGO] Have:{} children, want 3, done.", state.getChildOrders().size());
             return NoAction;
         }
 
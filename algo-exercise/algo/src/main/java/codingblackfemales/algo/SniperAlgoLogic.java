@@ -1,7 +1,7 @@
 package codingblackfemales.algo;
 
 import codingblackfemales.action.Action;
-import codingblackfemales.action.CreateChildOrder;
+import codingblackfemales.action.MutableChildOrderAction;
 import codingblackfemales.sotw.SimpleAlgoState;
 import codingblackfemales.sotw.marketdata.AskLevel;
 import codingblackfemales.util.Util;
@@ -16,17 +16,19 @@ public class SniperAlgoLogic implements AlgoLogic {
     // creating a logger for SniperAlgoLogic class to log info
     private static final Logger logger = LoggerFactory.getLogger(SniperAlgoLogic.class);
 
+    // reused for every decision, so sniping doesn't allocate an action per evaluation
+    private final MutableChildOrderAction action = new MutableChildOrderAction();
+
     @Override
     public Action evaluate(SimpleAlgoState state) {
 
         // logging information that the algo has started
         logger.info("[SNIPERALGO] In Algo Logic....");
 
-        // converting order book into a string format
-        final String book = Util.orderBookToString(state);
-
-        // logging the current state of order book
-        logger.info("[SNIPERALGO] Algo Sees Book as:\n" + book);
+        // logging the current state of order book, only building the string if it will be logged
+        if (logger.isInfoEnabled()) {
+            logger.info("[SNIPERALGO] Algo Sees Book as:\n{}", Util.orderBookToString(state));
+        }
 
         // retrieving the best ask price (the lowst price seller is willing to accept) from the order book
         // state.getAskAt(0) represents best or lowest price in the market known as fatTuch
@@ -40,10 +42,10 @@ public class SniperAlgoLogic implements AlgoLogic {
         // if theres fewer 5, it will create more.
         if (state.getChildOrders().size() < 5) {
             //then keep creating a new one
-            logger.info("[SNIPERALGO] Have:" + state.getChildOrders().size() + " children, want 5, sniping far touch of book with: " + quantity + " @ " + price);
-            return new CreateChildOrder(Side.BUY, quantity, price);
+            logger.info("[SNIPERALGO] Have:{} children, want 5, sniping far touch of book with: {} @ {}", state.getChildOrders().size(), quantity, price);
+            return action.create(Side.BUY, quantity, price);
         } else {
-            logger.info("[SNIPERALGO] Have:" + state.getChildOrders().size() + " children, want 5, done.");
+            logger.info("[SNIPERALGO] Have:{} children, want 5, done.", state.getChildOrders().size());
             return NoAction;
         }
     }
@@ -1,7 +1,9 @@
 package codingblackfemales.container;
 
 import codingblackfemales.action.Action;
+import codingblackfemales.action.ActionEncoder;
 import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.latency.LatencyTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,13 +12,29 @@ public class Actioner {
     private static final Logger logger = LoggerFactory.getLogger(Actioner.class);
 
     private final Sequencer sequencer;
+    private final LatencyTracker latencyTracker;
+    private final ActionEncoder actionEncoder = new ActionEncoder();
 
     public Actioner(Sequencer sequencer) {
+        this(sequencer, LatencyTracker.NOOP);
+    }
+
+    public Actioner(Sequencer sequencer, LatencyTracker latencyTracker) {
         this.sequencer = sequencer;
+        this.latencyTracker = latencyTracker;
     }
 
     public void processAction(final Action action){
-        logger.info("[ALGO] Actioner, sending action:" + action);
-        action.apply(sequencer);
+        processAction(action, 0);
+    }
+
+    /**
+     * Sends the action with its new orders for the given instrument.
+     */
+    public void processAction(final Action action, final long instrumentId){
+        latencyTracker.onAction();
+        actionEncoder.instrumentId(instrumentId);
+        logger.info("[ALGO] Actioner, sending action:{}", action);
+        action.apply(sequencer, actionEncoder);
     }
 }
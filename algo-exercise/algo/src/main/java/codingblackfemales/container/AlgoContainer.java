@@ -2,6 +2,7 @@ package codingblackfemales.container;
 
 import codingblackfemales.action.NoAction;
 import codingblackfemales.algo.AlgoLogic;
+import codingblackfemales.sequencer.latency.LatencyTracker;
 import codingblackfemales.sequencer.net.Consumer;
 import codingblackfemales.service.MarketDataService;
 import codingblackfemales.service.OrderService;
@@ -15,19 +16,32 @@ public class AlgoContainer implements Consumer {
     private final OrderService orderService;
     private final RunTrigger runTrigger;
     private final Actioner actioner;
+    private final LatencyTracker latencyTracker;
 
     private AlgoLogic logic;
 
+    //set once something calls onEndOfBatch after each batch it delivers, until then a message is a batch of its own
+    private boolean batched = false;
+
     private final SimpleAlgoState state;
 
     public AlgoContainer(final MarketDataService marketDataService,
                          final OrderService orderService,
                          final RunTrigger runTrigger,
                          final Actioner actioner) {
+        this(marketDataService, orderService, runTrigger, actioner, LatencyTracker.NOOP);
+    }
+
+    public AlgoContainer(final MarketDataService marketDataService,
+                         final OrderService orderService,
+                         final RunTrigger runTrigger,
+                         final Actioner actioner,
+                         final LatencyTracker latencyTracker) {
         this.marketDataService = marketDataService;
         this.orderService = orderService;
         this.runTrigger = runTrigger;
         this.actioner = actioner;
+        this.latencyTracker = latencyTracker;
         this.state = new SimpleAlgoStateImpl(marketDataService, orderService);
     }
 
@@ -39,13 +53,27 @@ public class AlgoContainer implements Consumer {
         return orderService;
     }
 
+    public RunTrigger getRunTrigger(){
+        return runTrigger;
+    }
+
     public void setLogic(AlgoLogic logic){
         this.logic = logic;
     }
 
+    /**
+     * Called by whatever delivers messages in batches and ends each with onEndOfBatch (AlgoContainerAgent). A
+     * conflating trigger only waits for the end of the batch once it is set, dispatched to directly (e.g. through the
+     * DefaultSequencer in a backtest) the algo is evaluated at the end of each message's dispatch.
+     */
+    void setBatched(final boolean batched){
+        this.batched = batched;
+    }
+
     @Override
     public void onMessage(DirectBuffer buffer){
-        if(runTrigger.shouldRun()){
+        //a conflating trigger waits for the end of the batch, if there is one coming
+        if(runTrigger.shouldRun() && !(runTrigger.isConflating() && batched)){
             runAlgoLogic();
 
         }else {
@@ -53,13 +81,25 @@ public class AlgoContainer implements Consumer {
         }
     }
 
+    /**
+     * Called once every service has applied a batch of messages, evaluates the algo if anything in the batch
+     * triggered a run.
+     */
+    public void onEndOfBatch(){
+        if(runTrigger.shouldRun()){
+            runAlgoLogic();
+        }
+    }
+
     private void runAlgoLogic(){
+        latencyTracker.onEvaluateStart();
         final var action = logic.evaluate(state);
+        latencyTracker.onEvaluateEnd();
 
         runTrigger.hasRun();
 
         if(action !=null && (!action.equals(NoAction.NoAction))){
-            actioner.processAction(action);
+            actioner.processAction(action, state.getInstrumentId());
         }
     }
 
@@ -0,0 +1,205 @@
+package codingblackfemales.container;
+
+import codingblackfemales.sequencer.net.Consumer;
+import codingblackfemales.sequencer.util.FrameLength;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs an AlgoContainer on its own thread.
+ *
+ * Add the agent to the network instead of the container and its services: onMessage only copies the message onto an
+ * inbound queue, and the agent's duty cycle drains the queue into the MarketDataService, OrderService and container,
+ * in that order, idling with the configured strategy when there is nothing to do. Each drained batch ends with
+ * AlgoContainer.onEndOfBatch, so with a conflating RunTrigger the algo is evaluated once per batch.
+ *
+ * An agent can run several containers on its one thread, e.g. one per instrument (see ShardedAlgoContainerHost). Each
+ * message is queued for one of them, onMessage(DirectBuffer) queues for the first.
+ *
+ * The algo's actions are sent from the agent thread, so the container's Actioner must use a sequencer which is safe
+ * to call from more than one thread (e.g. RealSequencer).
+ */
+public class AlgoContainerAgent implements Agent, Consumer, MessageHandler, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlgoContainerAgent.class);
+
+    public static final int DEFAULT_INBOUND_CAPACITY = 1024 * 1024;
+
+    //copied on add, a container is added before the first message queued for it so the queue publishes it to the agent
+    private volatile AlgoContainer[] containers = new AlgoContainer[0];
+    private final ManyToOneRingBuffer inbound;
+    private final ThreadLocal<FrameLength> frameLength = ThreadLocal.withInitial(FrameLength::new);
+    private final UnsafeBuffer frame = new UnsafeBuffer();
+
+    //single writer (the agent thread), lazySet so they can be read from anywhere without slowing the duty cycle
+    private final AtomicLong dutyCycles = new AtomicLong();
+    private final AtomicLong workCycles = new AtomicLong();
+    private final AtomicLong idleCycles = new AtomicLong();
+    private final AtomicLong messagesProcessed = new AtomicLong();
+
+    private AgentRunner runner;
+
+    public AlgoContainerAgent(final AlgoContainer container) {
+        this(container, DEFAULT_INBOUND_CAPACITY);
+    }
+
+    /**
+     * @param inboundCapacity capacity of the inbound queue in bytes, must be a power of two
+     */
+    public AlgoContainerAgent(final AlgoContainer container, final int inboundCapacity) {
+        this(inboundCapacity);
+        addContainer(container);
+    }
+
+    /**
+     * An agent with no containers yet, add them with addContainer.
+     *
+     * @param inboundCapacity capacity of the inbound queue in bytes, must be a power of two
+     */
+    public AlgoContainerAgent(final int inboundCapacity) {
+        this.inbound = new ManyToOneRingBuffer(new UnsafeBuffer(ByteBuffer.allocateDirect(inboundCapacity + RingBufferDescriptor.TRAILER_LENGTH)));
+    }
+
+    /**
+     * Adds a container to run on the agent's thread. Can be called once the agent has started, but only from the
+     * thread which queues messages for the new container.
+     *
+     * @return the index to queue the container's messages with
+     */
+    public int addContainer(final AlgoContainer container) {
+        final AlgoContainer[] current = containers;
+        final AlgoContainer[] added = Arrays.copyOf(current, current.length + 1);
+        added[current.length] = container;
+        container.setBatched(true);
+        containers = added;
+        return current.length;
+    }
+
+    public void start(final IdleStrategyType idleStrategyType) {
+        start(idleStrategyType.newIdleStrategy());
+    }
+
+    public void start(final IdleStrategy idleStrategy) {
+        if (runner != null) {
+            throw new IllegalStateException("AlgoContainerAgent has already been started");
+        }
+        runner = new AgentRunner(idleStrategy, this::onError, null, this);
+        AgentRunner.startOnThread(runner);
+    }
+
+    @Override
+    public void onMessage(final DirectBuffer buffer) {
+        onMessage(0, buffer);
+    }
+
+    /**
+     * Queues the message for the container at the index addContainer returned.
+     */
+    public void onMessage(final int container, final DirectBuffer buffer) {
+        final int length = frameLength.get().frameLength(buffer, 0);
+        //message type ids start at 1
+        while (!inbound.write(container + 1, buffer, 0, length)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public int doWork() {
+        final int messages = inbound.read(this);
+        if (messages > 0) {
+            final AlgoContainer[] containers = this.containers;
+            for (int i = 0; i < containers.length; i++) {
+                containers[i].onEndOfBatch();
+            }
+        }
+
+        dutyCycles.lazySet(dutyCycles.get() + 1);
+        if (messages > 0) {
+            workCycles.lazySet(workCycles.get() + 1);
+            messagesProcessed.lazySet(messagesProcessed.get() + messages);
+        } else {
+            idleCycles.lazySet(idleCycles.get() + 1);
+        }
+
+        return messages;
+    }
+
+    @Override
+    public void onMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length) {
+        frame.wrap(buffer, index, length);
+        final AlgoContainer container = containers[msgTypeId - 1];
+        container.getMarketDataService().onMessage(frame);
+        container.getOrderService().onMessage(frame);
+        container.onMessage(frame);
+    }
+
+    @Override
+    public String roleName() {
+        return "algo-container";
+    }
+
+    @Override
+    public void close() {
+        if (runner != null) {
+            runner.close();
+            runner = null;
+        }
+    }
+
+    /**
+     * @return the first container added
+     */
+    public AlgoContainer getContainer() {
+        return containers[0];
+    }
+
+    public AlgoContainer getContainer(final int container) {
+        return containers[container];
+    }
+
+    public int getContainerCount() {
+        return containers.length;
+    }
+
+    /**
+     * @return number of times the agent has polled its inbound queue
+     */
+    public long getDutyCycles() {
+        return dutyCycles.get();
+    }
+
+    /**
+     * @return number of duty cycles which found at least one message
+     */
+    public long getWorkCycles() {
+        return workCycles.get();
+    }
+
+    /**
+     * @return number of duty cycles which found nothing to do and idled
+     */
+    public long getIdleCycles() {
+        return idleCycles.get();
+    }
+
+    public long getMessagesProcessed() {
+        return messagesProcessed.get();
+    }
+
+    private void onError(final Throwable throwable) {
+        logger.error("[ALGO] Container agent failed processing message", throwable);
+    }
+}
@@ -0,0 +1,36 @@
+package codingblackfemales.container;
+
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.SleepingIdleStrategy;
+import org.agrona.concurrent.YieldingIdleStrategy;
+
+/**
+ * How an AlgoContainerAgent waits when its inbound queue is empty, from lowest latency / highest cpu to the reverse.
+ */
+public enum IdleStrategyType {
+
+    //burns a whole core, lowest tick to trade
+    BUSY_SPIN,
+    //gives the core up to other runnable threads between polls
+    YIELD,
+    //spins, then yields, then parks for increasing periods
+    BACKOFF,
+    //parks between polls, cheapest on cpu but adds the park time to latency
+    PARK;
+
+    public IdleStrategy newIdleStrategy() {
+        switch (this) {
+            case BUSY_SPIN:
+                return new BusySpinIdleStrategy();
+            case YIELD:
+                return new YieldingIdleStrategy();
+            case BACKOFF:
+                return new BackoffIdleStrategy();
+            case PARK:
+            default:
+                return new SleepingIdleStrategy();
+        }
+    }
+}
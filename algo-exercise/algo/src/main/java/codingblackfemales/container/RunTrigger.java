@@ -1,11 +1,38 @@
 package codingblackfemales.container;
 
+/**
+ * Set by the services when they apply a message which should make the algo re-evaluate.
+ *
+ * By default the container evaluates as soon as it sees the trigger set, once per message. A conflating trigger
+ * leaves the evaluation to the end of the batch (AlgoContainer.onEndOfBatch), so a burst of acks, fills and book
+ * updates is evaluated once, against the state after the whole burst has been applied. Only an AlgoContainerAgent
+ * delivers batches, a container dispatched to directly evaluates after each message whether it conflates or not.
+ *
+ * Not thread-safe, read the counts from the container's thread or once it has stopped.
+ */
 public class RunTrigger {
 
+    private final boolean conflating;
+
     private boolean shouldRun = false;
+    private long pendingTriggers = 0;
+    private long runs = 0;
+    private long coalescedRuns = 0;
+
+    public RunTrigger() {
+        this(false);
+    }
+
+    /**
+     * @param conflating true to evaluate once per batch rather than once per message
+     */
+    public RunTrigger(final boolean conflating) {
+        this.conflating = conflating;
+    }
 
     public void triggerRun(){
         shouldRun = true;
+        pendingTriggers++;
     }
 
     public boolean shouldRun(){
@@ -14,6 +41,30 @@ public class RunTrigger {
 
     public void hasRun(){
         this.shouldRun = false;
+        runs++;
+        //every trigger after the first was folded into this run
+        if (pendingTriggers > 1) {
+            coalescedRuns += pendingTriggers - 1;
+        }
+        pendingTriggers = 0;
+    }
+
+    public boolean isConflating() {
+        return conflating;
+    }
+
+    /**
+     * @return number of times the algo has been evaluated
+     */
+    public long getRuns() {
+        return runs;
+    }
+
+    /**
+     * @return number of triggers which didn't get an evaluation of their own, as they were folded into a later one
+     */
+    public long getCoalescedRuns() {
+        return coalescedRuns;
     }
 
 }
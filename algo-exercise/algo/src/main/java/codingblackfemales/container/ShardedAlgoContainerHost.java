@@ -0,0 +1,317 @@
+package codingblackfemales.container;
+
+import codingblackfemales.algo.AlgoLogic;
+import codingblackfemales.collection.extrusive.LongToObjMap;
+import codingblackfemales.collection.extrusive.Map;
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.net.Consumer;
+import codingblackfemales.service.MarketDataService;
+import codingblackfemales.service.OrderService;
+import messages.marketdata.AskBookUpdateDecoder;
+import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookLevelUpdateDecoder;
+import messages.marketdata.BookUpdateDecoder;
+import messages.order.AckedOrderDecoder;
+import messages.order.CancelAckedOrderDecoder;
+import messages.order.CancelOrderDecoder;
+import messages.order.CreateOrderDecoder;
+import messages.order.FillOrderDecoder;
+import messages.order.MessageHeaderDecoder;
+import messages.order.OrderBatchAction;
+import messages.order.OrderBatchDecoder;
+import messages.order.PartialFillOrderDecoder;
+import messages.order.PendingOrderDecoder;
+import org.agrona.DirectBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs one algo per instrument, spread over a fixed number of shards. Each instrument gets an AlgoContainer of its own,
+ * with its own MarketDataService, OrderService, RunTrigger and logic, created the first time the instrument is seen,
+ * and each shard is an AlgoContainerAgent thread running the containers of the instruments that map to it. So an
+ * algo only ever sees its own instrument's book and child orders, however many instruments share its thread.
+ *
+ * Add the host to the network in place of a container. It routes each sequenced message to a single container:
+ * market data by instrumentId, new orders by the instrumentId they were created for, and everything else about an
+ * order (acks, fills, cancels) to the container which created it. Messages it can't route go to every container.
+ *
+ * An order is routed until nothing more can be reported for it, i.e. it has been filled in full or its cancel has
+ * been acked, after which its route is reused for the next order. The algo's own cancel doesn't end the route, as a
+ * fill can still cross it, so routes only drain for cancelled orders if the venue acks its cancels.
+ *
+ * onMessage must be called from one thread, and the shards send their actions from their own threads, so use a
+ * sequencer which is safe to call from several threads and queues rather than dispatching re-entrantly
+ * (e.g. RealSequencer).
+ */
+public class ShardedAlgoContainerHost implements Consumer, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedAlgoContainerHost.class);
+
+    private final AlgoContainerAgent[] shards;
+    //one per shard, as the containers on a shard all act from its thread
+    private final Actioner[] actioners;
+    private final Supplier<AlgoLogic> logicFactory;
+    private final boolean conflating;
+
+    //the container running each instrument's algo, and all of them for the messages which go to every container
+    private final LongToObjMap<InstrumentContainer> containerByInstrumentId = Map.longToObjMap(64);
+    private final List<InstrumentContainer> containers = new ArrayList<>();
+
+    //the container which created each open order, so reports that only carry an orderId go back to it
+    private final LongToObjMap<OrderRoute> routeByOrderId = Map.longToObjMap(1024);
+    //routes of orders which are done with, kept for the next orders
+    private final ArrayDeque<OrderRoute> spareRoutes = new ArrayDeque<>();
+
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final BookUpdateDecoder bookUpdateDecoder = new BookUpdateDecoder();
+    private final BidBookUpdateDecoder bidBookUpdateDecoder = new BidBookUpdateDecoder();
+    private final AskBookUpdateDecoder askBookUpdateDecoder = new AskBookUpdateDecoder();
+    private final BookLevelUpdateDecoder bookLevelUpdateDecoder = new BookLevelUpdateDecoder();
+    private final CreateOrderDecoder createOrderDecoder = new CreateOrderDecoder();
+    private final PendingOrderDecoder pendingOrderDecoder = new PendingOrderDecoder();
+    private final OrderBatchDecoder orderBatchDecoder = new OrderBatchDecoder();
+    private final CancelOrderDecoder cancelOrderDecoder = new CancelOrderDecoder();
+    private final AckedOrderDecoder ackedOrderDecoder = new AckedOrderDecoder();
+    private final CancelAckedOrderDecoder cancelAckedOrderDecoder = new CancelAckedOrderDecoder();
+    private final PartialFillOrderDecoder partialFillOrderDecoder = new PartialFillOrderDecoder();
+    private final FillOrderDecoder fillOrderDecoder = new FillOrderDecoder();
+
+    public ShardedAlgoContainerHost(final Sequencer sequencer, final int shardCount, final Supplier<AlgoLogic> logicFactory) {
+        this(sequencer, shardCount, logicFactory, AlgoContainerAgent.DEFAULT_INBOUND_CAPACITY);
+    }
+
+    public ShardedAlgoContainerHost(final Sequencer sequencer, final int shardCount, final Supplier<AlgoLogic> logicFactory, final int inboundCapacity) {
+        this(sequencer, shardCount, logicFactory, inboundCapacity, false);
+    }
+
+    /**
+     * @param logicFactory called once per instrument, each instrument needs its own logic instance
+     * @param inboundCapacity capacity of each shard's inbound queue in bytes, must be a power of two
+     * @param conflating true to evaluate each instrument's algo once per drained batch rather than once per message
+     */
+    public ShardedAlgoContainerHost(final Sequencer sequencer, final int shardCount, final Supplier<AlgoLogic> logicFactory, final int inboundCapacity, final boolean conflating) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        this.logicFactory = logicFactory;
+        this.conflating = conflating;
+        this.shards = new AlgoContainerAgent[shardCount];
+        this.actioners = new Actioner[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new AlgoContainerAgent(inboundCapacity);
+            actioners[i] = new Actioner(sequencer);
+        }
+    }
+
+    public void start(final IdleStrategyType idleStrategyType) {
+        for (AlgoContainerAgent shard : shards) {
+            shard.start(idleStrategyType);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (AlgoContainerAgent shard : shards) {
+            shard.close();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public AlgoContainerAgent getShard(final int shard) {
+        return shards[shard];
+    }
+
+    public int shardFor(final long instrumentId) {
+        return (int) Math.floorMod(instrumentId, (long) shards.length);
+    }
+
+    /**
+     * Call from the thread calling onMessage, or once the host has stopped.
+     *
+     * @return the container running the instrument's algo, null if the instrument hasn't been seen
+     */
+    public AlgoContainer getContainer(final long instrumentId) {
+        final InstrumentContainer container = containerByInstrumentId.get(instrumentId);
+        return container == null ? null : container.container;
+    }
+
+    /**
+     * @return the number of orders created and not yet filled in full or acked as cancelled
+     */
+    public int getRoutedOrderCount() {
+        return routeByOrderId.size();
+    }
+
+    @Override
+    public void onMessage(final DirectBuffer buffer) {
+
+        header.wrap(buffer, 0);
+
+        final int schemaId = header.schemaId();
+        final int templateId = header.templateId();
+        final int actingBlockLength = header.blockLength();
+        final int actingVersion = header.version();
+        final int bufferOffset = header.encodedLength();
+
+        if (schemaId == BookUpdateDecoder.SCHEMA_ID) {
+            switch (templateId) {
+                case BookUpdateDecoder.TEMPLATE_ID:
+                    bookUpdateDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    containerFor(bookUpdateDecoder.instrumentId()).onMessage(buffer);
+                    return;
+                case BidBookUpdateDecoder.TEMPLATE_ID:
+                    bidBookUpdateDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    containerFor(bidBookUpdateDecoder.instrumentId()).onMessage(buffer);
+                    return;
+                case AskBookUpdateDecoder.TEMPLATE_ID:
+                    askBookUpdateDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    containerFor(askBookUpdateDecoder.instrumentId()).onMessage(buffer);
+                    return;
+                case BookLevelUpdateDecoder.TEMPLATE_ID:
+                    bookLevelUpdateDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    containerFor(bookLevelUpdateDecoder.instrumentId()).onMessage(buffer);
+                    return;
+                default:
+                    break;
+            }
+        } else if (schemaId == CreateOrderDecoder.SCHEMA_ID) {
+            switch (templateId) {
+                case CreateOrderDecoder.TEMPLATE_ID: {
+                    createOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    final InstrumentContainer container = containerFor(createOrderDecoder.instrumentId());
+                    addRoute(createOrderDecoder.orderId(), container, createOrderDecoder.quantity());
+                    container.onMessage(buffer);
+                    return;
+                }
+                case PendingOrderDecoder.TEMPLATE_ID:
+                    pendingOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    containerFor(pendingOrderDecoder.instrumentId()).onMessage(buffer);
+                    return;
+                case OrderBatchDecoder.TEMPLATE_ID: {
+                    orderBatchDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    final InstrumentContainer container = containerFor(orderBatchDecoder.instrumentId());
+                    //the batch's cancels keep their routes until they are acked
+                    for (OrderBatchDecoder.OrdersDecoder order : orderBatchDecoder.orders()) {
+                        if (order.action() == OrderBatchAction.CREATE) {
+                            addRoute(order.orderId(), container, order.quantity());
+                        }
+                    }
+                    container.onMessage(buffer);
+                    return;
+                }
+                case CancelOrderDecoder.TEMPLATE_ID:
+                    cancelOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    routeToCreator(cancelOrderDecoder.orderId(), buffer, templateId);
+                    return;
+                case AckedOrderDecoder.TEMPLATE_ID:
+                    ackedOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    routeToCreator(ackedOrderDecoder.orderId(), buffer, templateId);
+                    return;
+                case CancelAckedOrderDecoder.TEMPLATE_ID: {
+                    cancelAckedOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    final long orderId = cancelAckedOrderDecoder.orderId();
+                    if (routeToCreator(orderId, buffer, templateId) != null) {
+                        removeRoute(orderId);
+                    }
+                    return;
+                }
+                case PartialFillOrderDecoder.TEMPLATE_ID:
+                    partialFillOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    onFill(partialFillOrderDecoder.orderId(), partialFillOrderDecoder.quantity(), buffer, templateId);
+                    return;
+                case FillOrderDecoder.TEMPLATE_ID:
+                    fillOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                    onFill(fillOrderDecoder.orderId(), fillOrderDecoder.quantity(), buffer, templateId);
+                    return;
+                default:
+                    break;
+            }
+        }
+
+        for (int i = 0; i < containers.size(); i++) {
+            containers.get(i).onMessage(buffer);
+        }
+    }
+
+    private void onFill(final long orderId, final long quantity, final DirectBuffer buffer, final int templateId) {
+        final OrderRoute route = routeToCreator(orderId, buffer, templateId);
+        if (route != null) {
+            route.remaining -= quantity;
+            if (route.remaining <= 0) {
+                removeRoute(orderId);
+            }
+        }
+    }
+
+    //null if no container created the order, in which case the message is dropped
+    private OrderRoute routeToCreator(final long orderId, final DirectBuffer buffer, final int templateId) {
+        final OrderRoute route = routeByOrderId.get(orderId);
+        if (route == null) {
+            logger.debug("[ALGO] No container created order {}, dropping template {}", orderId, templateId);
+            return null;
+        }
+        route.container.onMessage(buffer);
+        return route;
+    }
+
+    private InstrumentContainer containerFor(final long instrumentId) {
+        InstrumentContainer container = containerByInstrumentId.get(instrumentId);
+        if (container == null) {
+            final int shard = shardFor(instrumentId);
+            final RunTrigger runTrigger = new RunTrigger(conflating);
+            final AlgoContainer algoContainer = new AlgoContainer(new MarketDataService(runTrigger), new OrderService(runTrigger), runTrigger, actioners[shard]);
+            algoContainer.setLogic(logicFactory.get());
+            container = new InstrumentContainer(shards[shard], shards[shard].addContainer(algoContainer), algoContainer);
+            containerByInstrumentId.put(instrumentId, container);
+            containers.add(container);
+        }
+        return container;
+    }
+
+    private void addRoute(final long orderId, final InstrumentContainer container, final long quantity) {
+        final OrderRoute spare = spareRoutes.poll();
+        final OrderRoute route = spare != null ? spare : new OrderRoute();
+        route.container = container;
+        route.remaining = quantity;
+        routeByOrderId.put(orderId, route);
+    }
+
+    private void removeRoute(final long orderId) {
+        final OrderRoute route = routeByOrderId.remove(orderId);
+        if (route != null) {
+            route.container = null;
+            spareRoutes.push(route);
+        }
+    }
+
+    //an instrument's container and where on its shard to queue for it
+    private static final class InstrumentContainer {
+        private final AlgoContainerAgent shard;
+        private final int index;
+        private final AlgoContainer container;
+
+        private InstrumentContainer(final AlgoContainerAgent shard, final int index, final AlgoContainer container) {
+            this.shard = shard;
+            this.index = index;
+            this.container = container;
+        }
+
+        private void onMessage(final DirectBuffer buffer) {
+            shard.onMessage(index, buffer);
+        }
+    }
+
+    //where an open order goes and how much of it is still to fill
+    private static final class OrderRoute {
+        private InstrumentContainer container;
+        private long remaining;
+    }
+}
@@ -0,0 +1,42 @@
+package codingblackfemales.marketdata.gen;
+
+import codingblackfemales.sequencer.journal.JournalDescriptor;
+import codingblackfemales.sequencer.journal.JournalingNetwork;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+
+/**
+ * Writes generated market data straight to pre-encoded SBE frames, in the format BinaryFileMarketDataProvider
+ * replays, without building a message object or a line of JSON per update.
+ */
+public class BinaryFileMarketDataGenerator implements AutoCloseable {
+
+    private final RandomMarketDataGenerator generator;
+    private final JournalingNetwork journal;
+    private final UnsafeBuffer frame;
+
+    public BinaryFileMarketDataGenerator(final File marketDataDirectory, final RandomMarketDataGenerator generator) {
+        this(marketDataDirectory, generator, JournalDescriptor.DEFAULT_SEGMENT_LENGTH);
+    }
+
+    public BinaryFileMarketDataGenerator(final File marketDataDirectory, final RandomMarketDataGenerator generator, final int segmentLength) {
+        Validate.isTrue(JournalDescriptor.segmentFiles(marketDataDirectory).length == 0, "Market data directory is not empty marketDataDirectory.path=[%s]", marketDataDirectory.getAbsolutePath());
+        this.generator = generator;
+        this.journal = new JournalingNetwork(buffer -> {}, marketDataDirectory, segmentLength);
+        this.frame = new UnsafeBuffer(new byte[generator.maxEncodedLength()]);
+    }
+
+    public void generate(final long entriesCount) {
+        for (long i = 0; i < entriesCount; i++) {
+            final int length = generator.encodeNext(frame, 0);
+            journal.append(frame, 0, length);
+        }
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+}
@@ -0,0 +1,105 @@
+package codingblackfemales.marketdata.gen;
+
+import codingblackfemales.sequencer.journal.JournalDescriptor;
+import messages.marketdata.Venue;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Generates a dataset of binary market data files, one per instrument per day, in parallel.
+ *
+ * Every (instrument, day) gets its own RandomMarketDataGenerator and its own SplittableRandom, split from the
+ * dataset seed on the calling thread in instrument then day order before anything is submitted. So the same seed
+ * and arguments give the same files byte for byte whatever the parallelism, and one session can be regenerated on
+ * its own by generating the same instruments and days again.
+ *
+ *     try (MarketDataDatasetGenerator generator = new MarketDataDatasetGenerator(42, Venue.XLON, 1_000, 100, 15)) {
+ *         List<File> sessions = generator.generate(new File("marketdata"), new long[]{1, 2, 3}, 5, 1_000_000);
+ *     }
+ *
+ * Each session is written to root/instrument-[id]/day-[n] and can be replayed with BinaryFileMarketDataProvider.
+ */
+public class MarketDataDatasetGenerator implements AutoCloseable {
+
+    private final long seed;
+    private final Venue venue;
+    private final long priceLevel;
+    private final long priceMaxDelta;
+    private final long marketDataMessagesMaxLevel;
+    private final int segmentLength;
+    private final ForkJoinPool pool;
+
+    public MarketDataDatasetGenerator(final long seed,
+                                      final Venue venue,
+                                      final long priceLevel,
+                                      final long priceMaxDelta,
+                                      final long marketDataMessagesMaxLevel) {
+        this(seed, venue, priceLevel, priceMaxDelta, marketDataMessagesMaxLevel, Runtime.getRuntime().availableProcessors(), JournalDescriptor.DEFAULT_SEGMENT_LENGTH);
+    }
+
+    /**
+     * @param parallelism the most sessions to generate at once
+     * @param segmentLength the length of each session's segment files
+     */
+    public MarketDataDatasetGenerator(final long seed,
+                                      final Venue venue,
+                                      final long priceLevel,
+                                      final long priceMaxDelta,
+                                      final long marketDataMessagesMaxLevel,
+                                      final int parallelism,
+                                      final int segmentLength) {
+        this.seed = seed;
+        this.venue = venue;
+        this.priceLevel = priceLevel;
+        this.priceMaxDelta = priceMaxDelta;
+        this.marketDataMessagesMaxLevel = marketDataMessagesMaxLevel;
+        this.segmentLength = segmentLength;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Generates updatesPerDay updates for each instrument on each day and waits for them all to be written.
+     *
+     * @return the directory of each session, instrument by instrument and day by day within an instrument
+     */
+    public List<File> generate(final File root, final long[] instrumentIds, final int days, final long updatesPerDay) {
+        Validate.isTrue(days > 0, "days must be positive days=[%s]", days);
+
+        final SplittableRandom datasetRandom = new SplittableRandom(seed);
+        final List<File> sessions = new ArrayList<>(instrumentIds.length * days);
+        final List<ForkJoinTask<?>> tasks = new ArrayList<>(instrumentIds.length * days);
+        for (long instrumentId : instrumentIds) {
+            final SplittableRandom instrumentRandom = datasetRandom.split();
+            for (int day = 0; day < days; day++) {
+                final File session = new File(root, "instrument-" + instrumentId + "/day-" + day);
+                final SplittableRandom sessionRandom = instrumentRandom.split();
+                sessions.add(session);
+                tasks.add(pool.submit(() -> generateSession(session, instrumentId, sessionRandom, updatesPerDay)));
+            }
+        }
+
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return sessions;
+    }
+
+    private void generateSession(final File session, final long instrumentId, final SplittableRandom random, final long updates) {
+        Validate.isTrue(session.isDirectory() || session.mkdirs(), "Could not create session directory session.path=[%s]", session.getAbsolutePath());
+        final RandomMarketDataGenerator generator = new RandomMarketDataGenerator(instrumentId, venue, priceLevel, priceMaxDelta, marketDataMessagesMaxLevel, random);
+        try (BinaryFileMarketDataGenerator fileGenerator = new BinaryFileMarketDataGenerator(session, generator, segmentLength)) {
+            fileGenerator.generate(updates);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
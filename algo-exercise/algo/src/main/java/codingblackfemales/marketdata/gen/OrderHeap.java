@@ -0,0 +1,196 @@
+package codingblackfemales.marketdata.gen;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (price, quantity) orders held in primitive arrays, best price at index 0.
+ *
+ * Unlike a PriorityQueue, orders can be read, changed and removed by heap index, so picking a random order is O(1)
+ * and removing or repricing it is O(log n), with no copying and no per-order objects. best() reads the top levels
+ * in price order without disturbing the heap.
+ */
+final class OrderHeap {
+
+    private final boolean highestFirst;
+
+    private long[] prices;
+    private long[] quantities;
+    private int size = 0;
+
+    //scratch for best(), a heap of indices into the order heap waiting to be read
+    private int[] candidates = new int[16];
+
+    OrderHeap(final boolean highestFirst, final int initialCapacity) {
+        this.highestFirst = highestFirst;
+        this.prices = new long[Math.max(1, initialCapacity)];
+        this.quantities = new long[prices.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long peekPrice() {
+        return prices[0];
+    }
+
+    long priceAt(final int index) {
+        return prices[index];
+    }
+
+    long quantityAt(final int index) {
+        return quantities[index];
+    }
+
+    void setQuantityAt(final int index, final long quantity) {
+        quantities[index] = quantity;
+    }
+
+    void add(final long price, final long quantity) {
+        if (size == prices.length) {
+            prices = Arrays.copyOf(prices, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        prices[size] = price;
+        quantities[size] = quantity;
+        siftUp(size++);
+    }
+
+    void removeAt(final int index) {
+        final int last = --size;
+        if (index != last) {
+            prices[index] = prices[last];
+            quantities[index] = quantities[last];
+            resift(index);
+        }
+    }
+
+    void setPriceAt(final int index, final long price) {
+        prices[index] = price;
+        resift(index);
+    }
+
+    /**
+     * Copies the best orders, best first, into the given arrays.
+     *
+     * @return the number of orders copied, at most maxLevels
+     */
+    int best(final int maxLevels, final long[] bestPrices, final long[] bestQuantities) {
+        if (size == 0 || maxLevels <= 0) {
+            return 0;
+        }
+        //each order read adds at most two candidates, its children in the order heap
+        if (candidates.length < maxLevels * 2 + 1) {
+            candidates = new int[maxLevels * 2 + 1];
+        }
+
+        int count = 0;
+        int candidateCount = 0;
+        candidates[candidateCount++] = 0;
+        while (count < maxLevels && candidateCount > 0) {
+            final int index = candidates[0];
+            candidates[0] = candidates[--candidateCount];
+            siftDownCandidate(0, candidateCount);
+
+            bestPrices[count] = prices[index];
+            bestQuantities[count] = quantities[index];
+            count++;
+
+            final int left = 2 * index + 1;
+            if (left < size) {
+                candidates[candidateCount] = left;
+                siftUpCandidate(candidateCount++);
+            }
+            if (left + 1 < size) {
+                candidates[candidateCount] = left + 1;
+                siftUpCandidate(candidateCount++);
+            }
+        }
+        return count;
+    }
+
+    private void resift(final int index) {
+        if (index > 0 && before(prices[index], prices[(index - 1) >>> 1])) {
+            siftUp(index);
+        } else {
+            siftDown(index);
+        }
+    }
+
+    private boolean before(final long price, final long other) {
+        return highestFirst ? price > other : price < other;
+    }
+
+    private void siftUp(int index) {
+        final long price = prices[index];
+        final long quantity = quantities[index];
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (!before(price, prices[parent])) {
+                break;
+            }
+            prices[index] = prices[parent];
+            quantities[index] = quantities[parent];
+            index = parent;
+        }
+        prices[index] = price;
+        quantities[index] = quantity;
+    }
+
+    private void siftDown(int index) {
+        final long price = prices[index];
+        final long quantity = quantities[index];
+        final int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && before(prices[child + 1], prices[child])) {
+                child++;
+            }
+            if (!before(prices[child], price)) {
+                break;
+            }
+            prices[index] = prices[child];
+            quantities[index] = quantities[child];
+            index = child;
+        }
+        prices[index] = price;
+        quantities[index] = quantity;
+    }
+
+    private void siftUpCandidate(int index) {
+        final int candidate = candidates[index];
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (!before(prices[candidate], prices[candidates[parent]])) {
+                break;
+            }
+            candidates[index] = candidates[parent];
+            index = parent;
+        }
+        candidates[index] = candidate;
+    }
+
+    private void siftDownCandidate(int index, final int candidateCount) {
+        if (candidateCount == 0) {
+            return;
+        }
+        final int candidate = candidates[index];
+        final int half = candidateCount >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < candidateCount && before(prices[candidates[child + 1]], prices[candidates[child]])) {
+                child++;
+            }
+            if (!before(prices[candidates[child]], prices[candidate])) {
+                break;
+            }
+            candidates[index] = candidates[child];
+            index = child;
+        }
+        candidates[index] = candidate;
+    }
+}
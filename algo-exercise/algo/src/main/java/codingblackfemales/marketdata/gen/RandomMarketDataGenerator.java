@@ -5,23 +5,43 @@ import codingblackfemales.marketdata.api.MarketDataMessage;
 import codingblackfemales.marketdata.impl.AskBookUpdateImpl;
 import codingblackfemales.marketdata.impl.BidBookUpdateImpl;
 import codingblackfemales.marketdata.impl.BookUpdateImpl;
+import messages.marketdata.AskBookUpdateEncoder;
+import messages.marketdata.BidBookUpdateEncoder;
+import messages.marketdata.BookUpdateEncoder;
 import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
 import messages.marketdata.Venue;
+import org.agrona.MutableDirectBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
 
 import static java.lang.Math.toIntExact;
 
+/**
+ * Generates a random walk of book updates for one instrument.
+ *
+ * Each side of the book is an OrderHeap, so picking a random order to cancel, resize or reprice is O(1) to find and
+ * O(log n) to change, and the levels published are read from the top of the heap without copying it.
+ *
+ * Built with a seed (or a SplittableRandom split from a seeded one) it produces the same session every time, so
+ * datasets can be regenerated exactly; without one each generator is seeded at random.
+ *
+ * next() returns each update as a MarketDataMessage. encodeNext() writes it straight into a buffer as the SBE frame
+ * MarketDataEncoder would produce for that message, without allocating, for generating long sessions quickly.
+ */
 public class RandomMarketDataGenerator implements MarketDataGenerator {
     private static final long BID_START = Long.MIN_VALUE;
     private static final long ASK_START = Long.MAX_VALUE;
     private static final int spreadMultiplierMin = 5;
     private static final int spreadMultiplierMax = 12;
+    private static final int INITIAL_ORDERS = 64;
+    private static final int BUY_UPDATED = 1;
+    private static final int SELL_UPDATED = 2;
     private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final SplittableRandom random;
     private final long startPriceLevel;
     private long spreadMultiplier;
     private final long priceMaxDelta;
@@ -29,24 +49,58 @@ public class RandomMarketDataGenerator implements MarketDataGenerator {
     private final Venue venue;
     private long marketDataMessagesMaxLevel;
     private final InstrumentStatus instrumentStatus = InstrumentStatus.CONTINUOUS;
-    private final Comparator<Order> buysCompare = Order::compareTo;
-    private final Queue<Order> buys = new PriorityQueue<>(buysCompare);
-    private final Comparator<Order> sellsCompare = (t1, t2) -> -1 * t1.compareTo(t2);
-    private final Queue<Order> sells = new PriorityQueue<>(sellsCompare);
+    private final OrderHeap buys = new OrderHeap(true, INITIAL_ORDERS);
+    private final OrderHeap sells = new OrderHeap(false, INITIAL_ORDERS);
     private long mid;
     private long bid = BID_START;
     private long ask = ASK_START;
 
+    //levels read from the top of each side for the next message
+    private final long[] levelPrices;
+    private final long[] levelQuantities;
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder bookUpdateEncoder = new BookUpdateEncoder();
+    private final BidBookUpdateEncoder bidBookUpdateEncoder = new BidBookUpdateEncoder();
+    private final AskBookUpdateEncoder askBookUpdateEncoder = new AskBookUpdateEncoder();
+
     public RandomMarketDataGenerator(final long instrumentId,
                                      final Venue venue,
                                      final long priceLevel,
                                      final long priceMaxDelta,
                                      final long marketDataMessagesMaxLevel) {
+        this(instrumentId, venue, priceLevel, priceMaxDelta, marketDataMessagesMaxLevel, new SplittableRandom());
+    }
+
+    /**
+     * A generator which produces the same updates every time it is built with the same seed.
+     */
+    public RandomMarketDataGenerator(final long instrumentId,
+                                     final Venue venue,
+                                     final long priceLevel,
+                                     final long priceMaxDelta,
+                                     final long marketDataMessagesMaxLevel,
+                                     final long seed) {
+        this(instrumentId, venue, priceLevel, priceMaxDelta, marketDataMessagesMaxLevel, new SplittableRandom(seed));
+    }
+
+    /**
+     * @param random only used by this generator, e.g. split from a seeded SplittableRandom per instrument
+     */
+    public RandomMarketDataGenerator(final long instrumentId,
+                                     final Venue venue,
+                                     final long priceLevel,
+                                     final long priceMaxDelta,
+                                     final long marketDataMessagesMaxLevel,
+                                     final SplittableRandom random) {
+        this.random = random;
         this.startPriceLevel = this.mid = priceLevel;
         this.priceMaxDelta = priceMaxDelta;
         this.instrumentId = instrumentId;
         this.venue = venue;
         this.marketDataMessagesMaxLevel = marketDataMessagesMaxLevel;
+        this.levelPrices = new long[toIntExact(marketDataMessagesMaxLevel)];
+        this.levelQuantities = new long[levelPrices.length];
         initBook();
     }
 
@@ -55,28 +109,52 @@ public class RandomMarketDataGenerator implements MarketDataGenerator {
         return updateBook();
     }
 
+    /**
+     * Moves the book on by one update and encodes it, header included, at offset.
+     *
+     * @return the length of the encoded frame
+     */
+    public int encodeNext(final MutableDirectBuffer buffer, final int offset) {
+        final int updated = step();
+        if (updated == (BUY_UPDATED | SELL_UPDATED)) {
+            return encodeBookUpdate(buffer, offset);
+        } else if (updated == BUY_UPDATED) {
+            return encodeBidBookUpdate(buffer, offset);
+        } else {
+            return encodeAskBookUpdate(buffer, offset);
+        }
+    }
+
+    /**
+     * @return the longest frame encodeNext can write, a full book update at the maximum depth
+     */
+    public int maxEncodedLength() {
+        return MessageHeaderEncoder.ENCODED_LENGTH + BookUpdateEncoder.BLOCK_LENGTH
+                + 2 * (BookUpdateEncoder.BidBookEncoder.sbeHeaderSize() + levelPrices.length * BookUpdateEncoder.BidBookEncoder.sbeBlockLength());
+    }
+
     public void initBook() {
+        //a zero multiplier leaves no room between the ask and the top of the ask range once the spread closes to a tick
+        nextSpreadMultiplier();
         bid = rand(mid - priceMaxDelta, mid - 1);
         ask = rand(mid + 1, mid + priceMaxDelta);
 
         for (int i = 0; i < rand0Max(10); i++) {
-            Order order = buyTrade();
-            addBuy(order);
+            addBuy(nextBid(), nextQty());
         }
         for (int i = 0; i < rand0Max(10); i++) {
-            Order order = sellTrade();
-            addSell(order);
+            addSell(nextAsk(), nextQty());
         }
     }
 
-    private void addSell(Order order) {
-        sells.add(order);
-        updateAsk(order);
+    private void addSell(final long price, final long qty) {
+        sells.add(price, qty);
+        updateAsk(price);
     }
 
-    private void addBuy(Order order) {
-        buys.add(order);
-        updateBid(order);
+    private void addBuy(final long price, final long qty) {
+        buys.add(price, qty);
+        updateBid(price);
     }
 
     enum Action {
@@ -91,55 +169,62 @@ public class RandomMarketDataGenerator implements MarketDataGenerator {
         Sell
     }
 
+    //values() copies its array on every call
+    private static final Action[] ACTIONS = Action.values();
+    private static final Side[] SIDES = Side.values();
+
     public MarketDataMessage updateBook() {
+        return toMarketDataMessage(step());
+    }
+
+    /**
+     * Applies one to three random changes to the book.
+     *
+     * @return which sides changed, BUY_UPDATED and/or SELL_UPDATED
+     */
+    private int step() {
         int updateCount = toIntExact(rand(1, 3));
-        boolean buyUpdated = false;
-        boolean sellUpdated = false;
+        int updated = 0;
         for (int i = 0; i < updateCount; i++) {
-            Side updated = doUpdateBook();
-            if (updated == Side.Buy) {
-                buyUpdated = true;
-            } else if (updated == Side.Sell) {
-                sellUpdated = true;
+            Side side = doUpdateBook();
+            if (side == Side.Buy) {
+                updated |= BUY_UPDATED;
+            } else if (side == Side.Sell) {
+                updated |= SELL_UPDATED;
             }
         }
 
-        if (!sellUpdated && !buyUpdated) {
+        if (updated == 0) {
             // we have been very unlucky, just insert new order
-            Side side = Side.values()[(int) rand0Max(Side.values().length)];
-            Queue<Order> orders = side == Side.Buy ? buys : sells;
-            newOrder(side, orders);
-            if (side == Side.Buy) {
-                buyUpdated = true;
-            } else {
-                sellUpdated = true;
-            }
+            Side side = SIDES[(int) rand0Max(SIDES.length)];
+            newOrder(side);
+            updated = side == Side.Buy ? BUY_UPDATED : SELL_UPDATED;
         }
 
-        return toMarketDataMessage(buyUpdated, sellUpdated);
+        return updated;
     }
 
     private Side doUpdateBook() {
         for (int i = 0; i < 20; i++) {
-            Side side = Side.values()[(int) rand0Max(Side.values().length)];
-            Queue<Order> orders = side == Side.Buy ? buys : sells;
-            Action action = Action.values()[(int) rand0Max(Action.values().length)];
+            Side side = SIDES[(int) rand0Max(SIDES.length)];
+            OrderHeap orders = side == Side.Buy ? buys : sells;
+            Action action = ACTIONS[(int) rand0Max(ACTIONS.length)];
 
             switch (action) {
                 case Cancel:
-                    if (orders.size() == 0) continue; // can't perform update for: (side & action) try again
+                    if (orders.isEmpty()) continue; // can't perform update for: (side & action) try again
                     cancel(side, orders);
                     break;
                 case UpdateQty:
-                    if (orders.size() == 0) continue; // can't perform update for: (side & action) try again
+                    if (orders.isEmpty()) continue; // can't perform update for: (side & action) try again
                     updateQty(side, orders);
                     break;
                 case UpdatePrice:
-                    if (orders.size() == 0) continue; // can't perform update for: (side & action) try again
+                    if (orders.isEmpty()) continue; // can't perform update for: (side & action) try again
                     updatePrice(side, orders);
                     break;
                 case NewOrder:
-                    newOrder(side, orders);
+                    newOrder(side);
                     break;
             }
             return side;
@@ -147,79 +232,79 @@ public class RandomMarketDataGenerator implements MarketDataGenerator {
         return null;
     }
 
-    private void cancel(Side side, Queue<Order> orders) {
-        if (orders.size() > 0) {
-            int idx = toIntExact(rand0Max(orders.size()));
-            orders.remove(orders.toArray()[idx]);
-            logger.debug("cancel side=[{}] idx=[{}] qty=[{}]", side, idx);
-            updateAskBid();
+    private void cancel(Side side, OrderHeap orders) {
+        int idx = toIntExact(rand0Max(orders.size()));
+        if (logger.isDebugEnabled()) {
+            logger.debug("cancel side=[{}] idx=[{}] qty=[{}]", side, idx, orders.quantityAt(idx));
         }
+        orders.removeAt(idx);
+        updateAskBid();
     }
 
-    private void updateQty(Side side, Queue<Order> orders) {
-        if (orders.size() > 0) {
-            int idx = toIntExact(rand0Max(orders.size()));
-            Order order = (Order) orders.toArray()[idx];
-            order.qty = nextQty();
-            logger.debug("qty_update side=[{}] idx=[{}] qty=[{}]", side, idx, order.qty);
+    private void updateQty(Side side, OrderHeap orders) {
+        int idx = toIntExact(rand0Max(orders.size()));
+        orders.setQuantityAt(idx, nextQty());
+        if (logger.isDebugEnabled()) {
+            logger.debug("qty_update side=[{}] idx=[{}] qty=[{}]", side, idx, orders.quantityAt(idx));
         }
     }
 
-    private void updatePrice(Side side, Queue<Order> orders) {
-        if (orders.size() > 0) {
-            nextSpreadMultiplier();
-            int idx = toIntExact(rand0Max(orders.size()));
-            Order order = (Order) orders.toArray()[idx];
-            orders.remove(order);
-            order.price = side == Side.Buy ? nextBid() : nextAsk();
-            orders.add(order);
-            updateAskBid();
-            logger.debug("price_update side=[{}] idx=[{}] price=[{}]", side, idx, order.price);
+    private void updatePrice(Side side, OrderHeap orders) {
+        nextSpreadMultiplier();
+        int idx = toIntExact(rand0Max(orders.size()));
+        final long price = side == Side.Buy ? nextBid() : nextAsk();
+        orders.setPriceAt(idx, price);
+        updateAskBid();
+        if (logger.isDebugEnabled()) {
+            logger.debug("price_update side=[{}] idx=[{}] price=[{}]", side, idx, price);
         }
     }
 
-    private void newOrder(Side side, Queue<Order> orders) {
+    private void newOrder(Side side) {
         nextSpreadMultiplier();
-        final Order order;
+        final long price;
+        final long qty = nextQty();
         if (side == Side.Buy) {
-            addBuy(order = new Order(nextBid(), nextQty()));
+            addBuy(price = nextBid(), qty);
         } else {
-            addSell(order = new Order(nextAsk(), nextQty()));
+            addSell(price = nextAsk(), qty);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("new_trade side=[{}] price=[{}] qty=[{}]", side, price, qty);
         }
-        logger.debug("new_trade side=[{}] trade=[{}]", side, order);
     }
 
     private void nextSpreadMultiplier() {
         this.spreadMultiplier = rand(spreadMultiplierMin, spreadMultiplierMax);
     }
 
-    private void updateBid(Order order) {
-        this.bid = Math.max(order.price, bid);
+    private void updateBid(long price) {
+        this.bid = Math.max(price, bid);
         updatePriceTarget();
     }
 
-    private void updateAsk(Order order) {
-        this.ask = Math.min(order.price, ask);
+    private void updateAsk(long price) {
+        this.ask = Math.min(price, ask);
         updatePriceTarget();
     }
 
     private void updateAskBid() {
-        if (buys.size() == 0 && sells.size() == 0) {
+        if (buys.isEmpty() && sells.isEmpty()) {
             this.mid = startPriceLevel;
             this.ask = ASK_START;
             this.bid = BID_START;
-        } else if (buys.size() != 0 && sells.size() == 0) {
-            this.mid = buys.peek().price;
+        } else if (!buys.isEmpty() && sells.isEmpty()) {
+            this.mid = buys.peekPrice();
             this.ask = ASK_START;
-            this.bid = buys.peek().price;
-        } else if (buys.size() == 0 && sells.size() != 0) {
-            this.mid = sells.peek().price;
-            this.ask = sells.peek().price;
+            this.bid = buys.peekPrice();
+        } else if (buys.isEmpty()) {
+            this.mid = sells.peekPrice();
+            this.ask = sells.peekPrice();
             this.bid = BID_START;
         } else {
-            this.mid = (buys.peek().price + sells.peek().price) / 2;
-            this.ask = sells.peek().price;
-            this.bid = buys.peek().price;
+            this.mid = (buys.peekPrice() + sells.peekPrice()) / 2;
+            this.ask = sells.peekPrice();
+            this.bid = buys.peekPrice();
         }
     }
 
@@ -229,11 +314,6 @@ public class RandomMarketDataGenerator implements MarketDataGenerator {
         }
     }
 
-    Order buyTrade() {
-        long bid = nextBid();
-        return new Order(bid, nextQty());
-    }
-
     private long nextBid() {
         long minBid = minBid();
         long maxBid = maxBid();
@@ -248,11 +328,6 @@ public class RandomMarketDataGenerator implements MarketDataGenerator {
         return bid != BID_START ? Math.max(bid - Math.min(spreadMultiplier * spread(), 10), mid - priceMaxDelta) : mid - priceMaxDelta;
     }
 
-    Order sellTrade() {
-        long ask = nextAsk();
-        return new Order(ask, nextQty());
-    }
-
     private long nextAsk() {
         long minAsk = minAsk();
         long maxAsk = maxAsk();
@@ -272,49 +347,22 @@ public class RandomMarketDataGenerator implements MarketDataGenerator {
     }
 
     private long spread() {
+        //with one side empty bid - ask overflows once prices walk down to zero, treat it as the widest spread
+        if (bid == BID_START || ask == ASK_START) {
+            return 100;
+        }
         return Math.min(Math.abs(bid - ask), 100);
     }
 
     private long rand0Max(long bound) {
-        return ThreadLocalRandom.current().nextLong(bound);
+        return random.nextLong(bound);
     }
 
     private long rand(long min, long max) {
         if (min >= max) {
             throw new RuntimeException(String.format("min >= max -- min=[%s] max=[%s]", min, max));
         }
-        return ThreadLocalRandom.current().nextLong(min, max);
-    }
-
-    class Order implements Comparable<Order> {
-        long price;
-        long qty;
-
-        public Order(long price, long qty) {
-            this.price = price;
-            this.qty = qty;
-        }
-
-        public long getPrice() {
-            return price;
-        }
-
-        public long getQty() {
-            return qty;
-        }
-
-        @Override
-        public int compareTo(Order o) {
-            return -1 * Long.compare(price, o.price);
-        }
-
-        @Override
-        public String toString() {
-            return "Trade{" +
-                    "price=" + price +
-                    ", qty=" + qty +
-                    '}';
-        }
+        return random.nextLong(min, max);
     }
 
     @Override
@@ -323,18 +371,28 @@ public class RandomMarketDataGenerator implements MarketDataGenerator {
                 String.format("\n mid=%d spraed=%d spreadMultiplier=%d", mid, spread(), spreadMultiplier) +
                 String.format("\n bid=%d min/max=(%d/%d)", bid, minBid(), maxBid()) +
                 String.format("\n ask=%d min/max=(%d/%d)", ask, minAsk(), maxAsk()) +
-                "\n buys=\n\t" + buys.stream().sorted(buysCompare).map(Object::toString).collect(Collectors.joining("\n\t")) +
-                "\n sells=\n\t" + sells.stream().sorted(sellsCompare).map(Object::toString).collect(Collectors.joining("\n\t")) +
+                "\n buys=\n\t" + ordersToString(buys) +
+                "\n sells=\n\t" + ordersToString(sells) +
                 '}';
     }
 
-    private MarketDataMessage toMarketDataMessage(final boolean buyUpdated,
-                                                  final boolean sellUpdated) {
-        if (buyUpdated && sellUpdated) {
+    private static String ordersToString(final OrderHeap orders) {
+        final long[] prices = new long[orders.size()];
+        final long[] quantities = new long[orders.size()];
+        final int count = orders.best(orders.size(), prices, quantities);
+        final StringJoiner joiner = new StringJoiner("\n\t");
+        for (int i = 0; i < count; i++) {
+            joiner.add("Trade{price=" + prices[i] + ", qty=" + quantities[i] + '}');
+        }
+        return joiner.toString();
+    }
+
+    private MarketDataMessage toMarketDataMessage(final int updated) {
+        if (updated == (BUY_UPDATED | SELL_UPDATED)) {
             return toBookUpdate();
-        } else if (buyUpdated) {
+        } else if (updated == BUY_UPDATED) {
             return toBidBookUpdate();
-        } else if (sellUpdated) {
+        } else if (updated == SELL_UPDATED) {
             return toAskBookUpdate();
         } else {
             throw new IllegalStateException();
@@ -353,18 +411,61 @@ public class RandomMarketDataGenerator implements MarketDataGenerator {
         return new BookUpdateImpl(instrumentId, venue, instrumentStatus, toBookEntries(this.buys), toBookEntries(this.sells));
     }
 
-    private List<BookEntry> toBookEntries(Queue<Order> orders) {
-        List<BookEntry> bidBook = new ArrayList<>();
-        Queue<Order> buys = new PriorityQueue(orders);
-        Order buy;
-        int count = 0;
-        while ((buy = buys.poll()) != null) {
-            bidBook.add(new BookEntry().setPrice(buy.price).setSize(buy.qty));
-            count++;
-            if (count == marketDataMessagesMaxLevel) {
-                break;
-            }
+    private List<BookEntry> toBookEntries(OrderHeap orders) {
+        final int count = orders.best(levelPrices.length, levelPrices, levelQuantities);
+        final List<BookEntry> book = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            book.add(new BookEntry().setPrice(levelPrices[i]).setSize(levelQuantities[i]));
+        }
+        return book;
+    }
+
+    //same field and group order as MarketDataEncoder, so the frames match those encoded from next()
+    private int encodeBookUpdate(final MutableDirectBuffer buffer, final int offset) {
+        bookUpdateEncoder.wrapAndApplyHeader(buffer, offset, headerEncoder);
+        bookUpdateEncoder.venue(venue);
+        bookUpdateEncoder.instrumentId(instrumentId);
+
+        int count = sells.best(levelPrices.length, levelPrices, levelQuantities);
+        final BookUpdateEncoder.AskBookEncoder askBookEncoder = bookUpdateEncoder.askBookCount(count);
+        for (int i = 0; i < count; i++) {
+            askBookEncoder.next().price(levelPrices[i]).size(levelQuantities[i]);
+        }
+
+        count = buys.best(levelPrices.length, levelPrices, levelQuantities);
+        final BookUpdateEncoder.BidBookEncoder bidBookEncoder = bookUpdateEncoder.bidBookCount(count);
+        for (int i = 0; i < count; i++) {
+            bidBookEncoder.next().price(levelPrices[i]).size(levelQuantities[i]);
+        }
+
+        bookUpdateEncoder.instrumentStatus(instrumentStatus);
+        bookUpdateEncoder.source(Source.STREAM);
+        return MessageHeaderEncoder.ENCODED_LENGTH + bookUpdateEncoder.encodedLength();
+    }
+
+    private int encodeBidBookUpdate(final MutableDirectBuffer buffer, final int offset) {
+        bidBookUpdateEncoder.wrapAndApplyHeader(buffer, offset, headerEncoder);
+        bidBookUpdateEncoder.venue(venue);
+        bidBookUpdateEncoder.instrumentId(instrumentId);
+
+        final int count = buys.best(levelPrices.length, levelPrices, levelQuantities);
+        final BidBookUpdateEncoder.BidBookEncoder bidBookEncoder = bidBookUpdateEncoder.bidBookCount(count);
+        for (int i = 0; i < count; i++) {
+            bidBookEncoder.next().price(levelPrices[i]).size(levelQuantities[i]);
+        }
+        return MessageHeaderEncoder.ENCODED_LENGTH + bidBookUpdateEncoder.encodedLength();
+    }
+
+    private int encodeAskBookUpdate(final MutableDirectBuffer buffer, final int offset) {
+        askBookUpdateEncoder.wrapAndApplyHeader(buffer, offset, headerEncoder);
+        askBookUpdateEncoder.venue(venue);
+        askBookUpdateEncoder.instrumentId(instrumentId);
+
+        final int count = sells.best(levelPrices.length, levelPrices, levelQuantities);
+        final AskBookUpdateEncoder.AskBookEncoder askBookEncoder = askBookUpdateEncoder.askBookCount(count);
+        for (int i = 0; i < count; i++) {
+            askBookEncoder.next().price(levelPrices[i]).size(levelQuantities[i]);
         }
-        return bidBook;
+        return MessageHeaderEncoder.ENCODED_LENGTH + askBookUpdateEncoder.encodedLength();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package codingblackfemales.marketdata.impl;
+
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.journal.JournalReader;
+import codingblackfemales.sequencer.net.Consumer;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+
+/**
+ * Replays market data written by MarketDataFileConverter, handing the pre-encoded SBE frames straight to a sequencer.
+ *
+ * The segments are memory mapped read only, so there is no parsing or allocation per message. The sequencer stamps
+ * its sequence number into the frame, so each frame is copied into one reused buffer first: a PRIVATE mapping would
+ * take the writes instead, but page by page it would copy the whole journal into memory (see JournalReader).
+ */
+public class BinaryFileMarketDataProvider implements AutoCloseable {
+
+    private final JournalReader reader;
+    private final Consumer toSequencer = this::onFrame;
+
+    //the frame the sequencer is handed, over a copy it can write to
+    private final ExpandableArrayBuffer frameCopy = new ExpandableArrayBuffer(1024);
+    private final UnsafeBuffer stampedFrame = new UnsafeBuffer();
+
+    private Sequencer sequencer;
+
+    public BinaryFileMarketDataProvider(final String marketDataDirectoryName) {
+        this(new File(marketDataDirectoryName));
+    }
+
+    public BinaryFileMarketDataProvider(final File marketDataDirectory) {
+        Validate.isTrue(marketDataDirectory.isDirectory(), "Unable to read marketDataDirectory.path=[%s]", marketDataDirectory.getAbsolutePath());
+        this.reader = new JournalReader(marketDataDirectory);
+    }
+
+    /**
+     * Sends the next frame to the sequencer.
+     *
+     * @return false once every frame has been sent
+     */
+    public boolean poll(final Sequencer sequencer) {
+        return poll(sequencer, 1) > 0;
+    }
+
+    /**
+     * Sends up to limit frames to the sequencer.
+     *
+     * @return the number of frames sent, 0 once every frame has been sent
+     */
+    public int poll(final Sequencer sequencer, final int limit) {
+        this.sequencer = sequencer;
+        return reader.poll(toSequencer, limit);
+    }
+
+    /**
+     * Sends every remaining frame to the sequencer.
+     *
+     * @return the number of frames sent
+     */
+    public long replay(final Sequencer sequencer) {
+        this.sequencer = sequencer;
+        return reader.replay(toSequencer);
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+
+    private void onFrame(final DirectBuffer frame) {
+        final int length = frame.capacity();
+        frameCopy.putBytes(0, frame, 0, length);
+        stampedFrame.wrap(frameCopy, 0, length);
+        sequencer.onCommand(stampedFrame);
+    }
+}
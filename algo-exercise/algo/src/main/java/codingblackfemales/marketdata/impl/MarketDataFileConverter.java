@@ -0,0 +1,59 @@
+package codingblackfemales.marketdata.impl;
+
+import codingblackfemales.marketdata.api.MarketDataEncoder;
+import codingblackfemales.marketdata.api.MarketDataMessage;
+import codingblackfemales.sequencer.journal.JournalDescriptor;
+import codingblackfemales.sequencer.journal.JournalingNetwork;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Converts a JSON market data file, as read by SimpleFileMarketDataProvider, into pre-encoded SBE frames for
+ * BinaryFileMarketDataProvider, so the JSON only has to be parsed once rather than on every replay.
+ *
+ * The output is a directory of journal segments (see JournalDescriptor), each frame encoded exactly as
+ * MarketDataEncoder encodes it for the JSON provider.
+ *
+ *     java codingblackfemales.marketdata.impl.MarketDataFileConverter marketdata.json marketdata-sbe
+ */
+public class MarketDataFileConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataFileConverter.class);
+
+    private MarketDataFileConverter() {
+    }
+
+    public static long convert(final String marketDataFileName, final File outputDirectory) {
+        return convert(marketDataFileName, outputDirectory, JournalDescriptor.DEFAULT_SEGMENT_LENGTH);
+    }
+
+    /**
+     * @return the number of messages converted
+     */
+    public static long convert(final String marketDataFileName, final File outputDirectory, final int segmentLength) {
+        //the journal appends to existing segments, and a replay would then see both files
+        Validate.isTrue(JournalDescriptor.segmentFiles(outputDirectory).length == 0, "Output directory already holds market data outputDirectory.path=[%s]", outputDirectory.getAbsolutePath());
+
+        final MarketDataEncoder encoder = new MarketDataEncoder();
+
+        long converted = 0;
+        try (SimpleFileMarketDataProvider provider = new SimpleFileMarketDataProvider(marketDataFileName);
+             JournalingNetwork journal = new JournalingNetwork(buffer -> {}, outputDirectory, segmentLength)) {
+            MarketDataMessage message;
+            while ((message = provider.poll()) != null) {
+                journal.dispatch(encoder.encode(message));
+                converted++;
+            }
+        }
+        return converted;
+    }
+
+    public static void main(final String[] args) {
+        Validate.isTrue(args.length == 2, "Usage: MarketDataFileConverter <json market data file> <output directory>");
+        final long converted = convert(args[0], new File(args[1]));
+        logger.info("Converted {} messages from {} to {}", converted, args[0], args[1]);
+    }
+}
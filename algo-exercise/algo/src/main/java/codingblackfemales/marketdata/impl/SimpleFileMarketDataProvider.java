@@ -9,7 +9,7 @@ import org.apache.commons.lang3.Validate;
 
 import java.io.*;
 
-public class SimpleFileMarketDataProvider implements MarketDataProvider {
+public class SimpleFileMarketDataProvider implements MarketDataProvider, AutoCloseable {
     private final Gson gson;
     private final File marketDataFile;
     private final FileReader reader;
@@ -49,4 +49,13 @@ public class SimpleFileMarketDataProvider implements MarketDataProvider {
             throw new RuntimeException(String.format("Failed to read file marketDataFileName=[%s]", marketDataFileName), e);
         }
     }
+
+    @Override
+    public void close() {
+        try {
+            bufferedReader.close();
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Failed to close file marketDataFileName=[%s]", marketDataFileName), e);
+        }
+    }
 }
@@ -1,149 +1,195 @@
 package codingblackfemales.service;
 
+import codingblackfemales.collection.extrusive.LongToObjMap;
+import codingblackfemales.collection.extrusive.Map;
 import codingblackfemales.container.RunTrigger;
+import codingblackfemales.sequencer.latency.LatencyTracker;
 import codingblackfemales.sequencer.event.MarketDataEventListener;
 import codingblackfemales.sotw.marketdata.AskLevel;
 import codingblackfemales.sotw.marketdata.BidLevel;
+import codingblackfemales.sotw.marketdata.InstrumentBook;
 import messages.marketdata.AskBookUpdateDecoder;
 import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookLevelUpdateDecoder;
 import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.LevelUpdateAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Keeps the latest book for each instrument seen on market data, for the algo to read.
+ *
+ * Books are held in a LongToObjMap keyed by instrumentId, each with its levels allocated once up to the configured
+ * depth and overwritten in place, so a tick for a known instrument doesn't allocate. Levels beyond the depth are
+ * ignored. Incremental updates (BookLevelUpdate) are applied to the book as it stands, see InstrumentBook for what
+ * that means at the depth. A level read from a book is only valid until that instrument's next update, copy its
+ * price and quantity if they are needed for longer.
+ *
+ * getBidLevel, getAskLevel and friends read the book of the instrument updated most recently, which is all a single
+ * instrument algo needs. Use getBook(instrumentId) to read a particular instrument.
+ */
 public class MarketDataService extends MarketDataEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(MarketDataService.class);
 
-    private int bidLength = 0;
-    private int askLength = 0;
+    public static final int DEFAULT_DEPTH = 15;
+
+    private final int depth;
+    private final LongToObjMap<InstrumentBook> books = Map.longToObjMap();
+
+    //the book updated most recently, an empty book until the first update arrives
+    private InstrumentBook currentBook;
 
-    private long instrumentId;
-    private final BidLevel[] bidBook = new BidLevel[15];
-    private final AskLevel[] askBook = new AskLevel[15];
     private final RunTrigger runTrigger;
+    private final LatencyTracker latencyTracker;
 
     public MarketDataService(RunTrigger runTrigger) {
+        this(runTrigger, LatencyTracker.NOOP);
+    }
+
+    public MarketDataService(RunTrigger runTrigger, int depth) {
+        this(runTrigger, LatencyTracker.NOOP, depth);
+    }
+
+    public MarketDataService(RunTrigger runTrigger, LatencyTracker latencyTracker) {
+        this(runTrigger, latencyTracker, DEFAULT_DEPTH);
+    }
+
+    public MarketDataService(RunTrigger runTrigger, LatencyTracker latencyTracker, int depth) {
         this.runTrigger = runTrigger;
+        this.latencyTracker = latencyTracker;
+        this.depth = depth;
+        this.currentBook = new InstrumentBook(0, depth);
     }
 
     public BidLevel getBidLevel(int i){
-        return bidBook[i];
+        return currentBook.getBidLevel(i);
     }
 
     public AskLevel getAskLevel(int i){
-        return askBook[i];
+        return currentBook.getAskLevel(i);
     }
 
     public int getBidLength(){
-        return bidLength;
+        return currentBook.getBidLength();
     }
 
     public int getAskLength(){
-        return askLength;
+        return currentBook.getAskLength();
     }
 
-    public long getInstrumentId(){return instrumentId;}
+    public int getDepth(){
+        return depth;
+    }
 
-    private static void empty(BidLevel[] levels){
-        for (int i=0; i<levels.length; i++) {
-            levels[i] = null;
+    public long getInstrumentId(){return currentBook.getInstrumentId();}
+
+    /**
+     * @return the latest book for the instrument, or null if there hasn't been market data for it
+     */
+    public InstrumentBook getBook(final long instrumentId){
+        return books.get(instrumentId);
+    }
+
+    public int getInstrumentCount(){
+        return books.size();
+    }
+
+    private InstrumentBook bookFor(final long instrumentId){
+        InstrumentBook book = books.get(instrumentId);
+        if (book == null) {
+            book = new InstrumentBook(instrumentId, depth);
+            books.put(instrumentId, book);
+        }
+        currentBook = book;
+        return book;
+    }
+
+    private static void addBid(final InstrumentBook book, final long price, final long quantity){
+        if (book.addBid(price, quantity) && logger.isDebugEnabled()) {
+            logger.debug("[ALGO] BID: price:" + price + " quantity:" + quantity);
         }
     }
 
-    private static void empty(AskLevel[] levels){
-        for (int i=0; i<levels.length; i++) {
-            levels[i] = null;
+    private static void addAsk(final InstrumentBook book, final long price, final long quantity){
+        if (book.addAsk(price, quantity) && logger.isDebugEnabled()) {
+            logger.debug("[ALGO] ASK: price:" + price + " quantity:" + quantity);
         }
     }
 
     @Override
     public void onBookUpdate(BookUpdateDecoder bookUpdate) {
 
-        int bookLevel = 0;
+        final InstrumentBook book = bookFor(bookUpdate.instrumentId());
 
-        instrumentId = bookUpdate.instrumentId();
-
-        empty(bidBook);
+        book.clearBids();
 
         for(BookUpdateDecoder.BidBookDecoder decoder : bookUpdate.bidBook()){
-            final long price = decoder.price();
-            final long quantity = decoder.size();
-            bidBook[bookLevel] = new BidLevel();
-            bidBook[bookLevel].setPrice(price);
-            bidBook[bookLevel].setQuantity(quantity);
-            logger.debug("[ALGO] BID: price:" + price + " quantity:" + quantity);
-
-            bookLevel+= 1;
-            bidLength = bookLevel;
-
+            addBid(book, decoder.price(), decoder.size());
         }
 
-        empty(askBook);
-
-        bookLevel = 0;
+        book.clearAsks();
 
         for(BookUpdateDecoder.AskBookDecoder decoder : bookUpdate.askBook()){
-            final long price = decoder.price();
-            final long quantity = decoder.size();
-
-            askBook[bookLevel] = new AskLevel();
-            askBook[bookLevel].setPrice(price);
-            askBook[bookLevel].setQuantity(quantity);
-
-            logger.debug("[ALGO] ASK: price:" + price + " quantity:" + quantity);
-
-            bookLevel+= 1;
-            askLength = bookLevel;
+            addAsk(book, decoder.price(), decoder.size());
         }
 
+        latencyTracker.onMarketData();
         runTrigger.triggerRun();
     }
 
     @Override
     public void onAskBook(AskBookUpdateDecoder askBookDec){
 
-        instrumentId = askBookDec.instrumentId();
-
-        empty(askBook);
+        final InstrumentBook book = bookFor(askBookDec.instrumentId());
 
-        int bookLevel = 0;
+        book.clearAsks();
 
         for(AskBookUpdateDecoder.AskBookDecoder decoder : askBookDec.askBook()){
-            final long price = decoder.price();
-            final long quantity = decoder.size();
-            askBook[bookLevel] = new AskLevel();
-            askBook[bookLevel].setPrice(price);
-            askBook[bookLevel].setQuantity(quantity);
-            logger.debug("[ALGO] ASK: price:" + price + " quantity:" + quantity);
-
-            bookLevel+= 1;
-            askLength = bookLevel;
-
+            addAsk(book, decoder.price(), decoder.size());
         }
 
+        latencyTracker.onMarketData();
         runTrigger.triggerRun();
     }
 
     @Override
     public void onBidBook(BidBookUpdateDecoder bidBookDec) {
-        int bookLevel = 0;
 
-        empty(bidBook);
+        final InstrumentBook book = bookFor(bidBookDec.instrumentId());
 
-        instrumentId = bidBookDec.instrumentId();
+        book.clearBids();
 
         for(BidBookUpdateDecoder.BidBookDecoder decoder : bidBookDec.bidBook()){
-            final long price = decoder.price();
-            final long quantity = decoder.size();
-            bidBook[bookLevel] = new BidLevel();
-            bidBook[bookLevel].setPrice(price);
-            bidBook[bookLevel].setQuantity(quantity);
-            logger.debug("[ALGO] BID: price:" + price + " quantity:" + quantity);
+            addBid(book, decoder.price(), decoder.size());
+        }
+
+        latencyTracker.onMarketData();
+        runTrigger.triggerRun();
+    }
+
+    @Override
+    public void onLevelUpdate(BookLevelUpdateDecoder levelUpdate) {
+
+        final InstrumentBook book = bookFor(levelUpdate.instrumentId());
+
+        for(BookLevelUpdateDecoder.BidLevelsDecoder decoder : levelUpdate.bidLevels()){
+            if(decoder.action() == LevelUpdateAction.DELETE){
+                book.removeBid(decoder.price());
+            }else if (book.setBid(decoder.price(), decoder.size()) && logger.isDebugEnabled()) {
+                logger.debug("[ALGO] BID: price:" + decoder.price() + " quantity:" + decoder.size());
+            }
+        }
 
-            bookLevel+= 1;
-            bidLength = bookLevel;
+        for(BookLevelUpdateDecoder.AskLevelsDecoder decoder : levelUpdate.askLevels()){
+            if(decoder.action() == LevelUpdateAction.DELETE){
+                book.removeAsk(decoder.price());
+            }else if (book.setAsk(decoder.price(), decoder.size()) && logger.isDebugEnabled()) {
+                logger.debug("[ALGO] ASK: price:" + decoder.price() + " quantity:" + decoder.size());
+            }
         }
 
+        latencyTracker.onMarketData();
         runTrigger.triggerRun();
     }
 }
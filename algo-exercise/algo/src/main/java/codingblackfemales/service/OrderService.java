@@ -1,22 +1,58 @@
 package codingblackfemales.service;
 
+import codingblackfemales.collection.extrusive.LongToObjMap;
+import codingblackfemales.collection.extrusive.Map;
 import codingblackfemales.container.RunTrigger;
 import codingblackfemales.sequencer.event.OrderEventListener;
 import codingblackfemales.sotw.ChildOrder;
 import codingblackfemales.sotw.OrderState;
 import messages.order.*;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class OrderService extends OrderEventListener {
 
+    /**
+     * How many of the most recently archived children late reports can still find, by default.
+     */
+    public static final int DEFAULT_RECENTLY_ARCHIVED = 1024;
+
     private final RunTrigger runTrigger;
 
-    private List<ChildOrder> children = new LinkedList<>();
+    private List<ChildOrder> children = new ArrayList<>();
+
+    //children which haven't been cancelled or archived, in the order they were created
+    private final List<ChildOrder> activeChildren = new ArrayList<>();
+    private final List<ChildOrder> activeChildrenView = Collections.unmodifiableList(activeChildren);
+
+    //completed children moved off the children list by archiveCompletedOrders
+    private final List<ChildOrder> archivedChildren = new ArrayList<>();
+
+    //every ack, fill and cancel looks its order up by id, children which haven't been archived
+    private final LongToObjMap<ChildOrder> childrenById = Map.longToObjMap();
+
+    //the last children archived by id, so a fill crossing a cancel still finds its order, and their ids in the order
+    //they were archived, the oldest at recentlyArchivedNext once it is full
+    private final LongToObjMap<ChildOrder> recentlyArchivedById = Map.longToObjMap();
+    private final long[] recentlyArchivedIds;
+    private int recentlyArchivedNext = 0;
 
     public OrderService(RunTrigger runTrigger) {
+        this(runTrigger, DEFAULT_RECENTLY_ARCHIVED);
+    }
+
+    /**
+     * @param recentlyArchived how many of the most recently archived children late reports can still find
+     */
+    public OrderService(final RunTrigger runTrigger, final int recentlyArchived) {
+        if (recentlyArchived <= 0) {
+            throw new IllegalArgumentException("recentlyArchived must be positive: " + recentlyArchived);
+        }
         this.runTrigger = runTrigger;
+        this.recentlyArchivedIds = new long[recentlyArchived];
     }
 
 
@@ -28,22 +64,57 @@ public class OrderService extends OrderEventListener {
         return new ChildOrder(create.side(), create.orderId(), create.quantity(), create.price(), OrderState.PENDING);
     }
 
+    private static boolean isActive(final int state){
+        return state != OrderState.CANCELLED;
+    }
+
+    //cancelled or fully filled, nothing more can happen to it
+    private static boolean isCompleted(final ChildOrder child){
+        return child.getState() == OrderState.CANCELLED || child.getFilledQuantity() >= child.getQuantity();
+    }
+
     private void updateState(ChildOrder child, int state){
+        //an archived child is done with, a late ack or cancel doesn't bring it back
+        if (childrenById.get(child.getOrderId()) != child) {
+            return;
+        }
+        final boolean wasActive = isActive(child.getState());
         child.setState(state);
+        final boolean active = isActive(state);
+        if (wasActive && !active) {
+            activeChildren.remove(child);
+        } else if (!wasActive && active) {
+            activeChildren.add(child);
+        }
     }
 
     private void addChildFill(ChildOrder child, long filledQuantity, long filledPrice){
         child.addFill(filledQuantity, filledPrice);
     }
 
+    private void addChild(final ChildOrder child){
+        children.add(child);
+        if (isActive(child.getState())) {
+            activeChildren.add(child);
+        }
+        childrenById.put(child.getOrderId(), child);
+    }
+
     @Override
     public void onCreateOrder(final CreateOrderDecoder create) {
-        children.add(createChildOrder(create));
+        addChild(createChildOrder(create));
         triggerRun();
     }
 
     private ChildOrder find(long orderId){
-        return children.stream().filter( order -> order.getOrderId() == orderId).findFirst().get();
+        ChildOrder child = childrenById.get(orderId);
+        if (child == null) {
+            child = recentlyArchivedById.get(orderId);
+        }
+        if (child == null) {
+            throw new NoSuchElementException("No child order with id " + orderId);
+        }
+        return child;
     }
 
     @Override
@@ -74,6 +145,55 @@ public class OrderService extends OrderEventListener {
         return this.children;
     }
 
+    /**
+     * A read-only view of the children which haven't been cancelled or archived. It is the same list every call and is kept up
+     * to date as orders change state, so callers that need a snapshot must copy it.
+     */
+    public List<ChildOrder> activeChildren(){
+        return this.activeChildrenView;
+    }
+
+    public List<ChildOrder> archivedChildren(){
+        return this.archivedChildren;
+    }
+
+    /**
+     * Moves cancelled and fully filled children from the children list to the archive and takes them off the active
+     * list, so a long running algo isn't walking every order it has ever sent.
+     *
+     * Archived children leave the lookup by id too, all but the most recently archived (recentlyArchived of them), so
+     * a late fill for one of those still lands on it. A late ack or cancel doesn't change an archived child's state,
+     * and a report for a child archived before those is for an unknown order.
+     *
+     * @return the number of children archived
+     */
+    public int archiveCompletedOrders(){
+        final int before = children.size();
+        children.removeIf(child -> {
+            final boolean completed = isCompleted(child);
+            if (completed) {
+                archive(child);
+            }
+            return completed;
+        });
+        //cancelled children have already left the active list, filled ones leave it here
+        activeChildren.removeIf(OrderService::isCompleted);
+        return before - children.size();
+    }
+
+    private void archive(final ChildOrder child){
+        archivedChildren.add(child);
+        childrenById.remove(child.getOrderId());
+
+        //once full, the oldest recently archived child makes way
+        if (recentlyArchivedById.size() == recentlyArchivedIds.length) {
+            recentlyArchivedById.remove(recentlyArchivedIds[recentlyArchivedNext]);
+        }
+        recentlyArchivedIds[recentlyArchivedNext] = child.getOrderId();
+        recentlyArchivedById.put(child.getOrderId(), child);
+        recentlyArchivedNext = (recentlyArchivedNext + 1) % recentlyArchivedIds.length;
+    }
+
     @Override
     public void onPartialFill(PartialFillOrderDecoder partialFill) {
         addChildFill(find(partialFill.orderId()), partialFill.quantity(), partialFill.price());
@@ -85,4 +205,17 @@ public class OrderService extends OrderEventListener {
         addChildFill(find(fill.orderId()), fill.quantity(), fill.price());
         triggerRun();
     }
+
+    @Override
+    public void onOrderBatch(final OrderBatchDecoder batch) {
+        for (OrderBatchDecoder.OrdersDecoder order : batch.orders()) {
+            if (order.action() == OrderBatchAction.CREATE) {
+                addChild(new ChildOrder(order.side(), order.orderId(), order.quantity(), order.price(), OrderState.PENDING));
+            } else {
+                updateState(find(order.orderId()), OrderState.CANCELLED);
+            }
+        }
+        //the algo sees the whole batch at once
+        triggerRun();
+    }
 }
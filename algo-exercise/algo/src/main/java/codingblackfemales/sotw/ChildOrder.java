@@ -2,11 +2,13 @@ package codingblackfemales.sotw;
 
 import messages.order.Side;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
 public class ChildOrder {
+
+    private static final long[] NO_FILLS = new long[0];
+    private static final int INITIAL_FILL_CAPACITY = 4;
+
     private Side side;
     private long orderId;
     private long quantity;
@@ -14,7 +16,13 @@ public class ChildOrder {
 
     private int state;
 
-    public List<ChildFill> fills = new LinkedList<>();
+    //running aggregates, updated as each fill arrives so reading them doesn't walk the fills
+    private long filledQuantity = 0;
+    private long filledNotional = 0;
+
+    //fills stored as (quantity, price) pairs, allocated on the first fill as most orders never fill
+    private long[] fills = NO_FILLS;
+    private int fillCount = 0;
 
     public ChildOrder(Side side, long orderId, long quantity, long price, int state) {
         this.side = side;
@@ -41,7 +49,41 @@ public class ChildOrder {
     }
 
     public long getFilledQuantity() {
-        return fills.stream().map( cf -> cf.getQuantity()).collect(Collectors.summingLong(Long::longValue));
+        return filledQuantity;
+    }
+
+    public long getLeavesQuantity() {
+        return Math.max(0, quantity - filledQuantity);
+    }
+
+    /**
+     * The sum of quantity * price over the fills so far.
+     */
+    public long getFilledNotional() {
+        return filledNotional;
+    }
+
+    /**
+     * The volume weighted average price of the fills so far, or 0 if there are none.
+     */
+    public double getAverageFillPrice() {
+        return filledQuantity == 0 ? 0 : (double) filledNotional / filledQuantity;
+    }
+
+    public int getFillCount() {
+        return fillCount;
+    }
+
+    public long getFillQuantity(final int index) {
+        return fills[checkFillIndex(index) * 2];
+    }
+
+    public long getFillPrice(final int index) {
+        return fills[checkFillIndex(index) * 2 + 1];
+    }
+
+    public ChildFill getFill(final int index) {
+        return new ChildFill(getFillQuantity(index), getFillPrice(index));
     }
 
     public int getState() {
@@ -53,6 +95,21 @@ public class ChildOrder {
     }
 
     public void addFill(long filledQuantity, long filledPrice) {
-        this.fills.add(new ChildFill(filledQuantity, filledPrice));
+        if (fillCount * 2 == fills.length) {
+            fills = Arrays.copyOf(fills, Math.max(INITIAL_FILL_CAPACITY * 2, fills.length * 2));
+        }
+        fills[fillCount * 2] = filledQuantity;
+        fills[fillCount * 2 + 1] = filledPrice;
+        fillCount++;
+
+        this.filledQuantity += filledQuantity;
+        this.filledNotional += filledQuantity * filledPrice;
+    }
+
+    private int checkFillIndex(final int index) {
+        if (index < 0 || index >= fillCount) {
+            throw new IndexOutOfBoundsException("fill " + index + " of " + fillCount);
+        }
+        return index;
     }
 }
@@ -17,9 +17,19 @@ public interface SimpleAlgoState {
 
     public List<ChildOrder> getChildOrders();
 
+    /**
+     * The child orders which haven't been cancelled, as a read-only view which is updated in place as orders change
+     * state. Index it with get(i) to read it without allocating.
+     */
     public List<ChildOrder> getActiveChildOrders();
 
     public long getInstrumentId();
 
+    /**
+     * The same state with its market data read from one instrument's book, rather than the book updated last.
+     * Child orders are shared by all instruments.
+     */
+    public SimpleAlgoState forInstrument(long instrumentId);
+
 
 }
@@ -1,26 +1,61 @@
 package codingblackfemales.sotw;
 
+import codingblackfemales.collection.extrusive.LongToObjMap;
+import codingblackfemales.collection.extrusive.Map;
 import codingblackfemales.service.MarketDataService;
 import codingblackfemales.service.OrderService;
 import codingblackfemales.sotw.marketdata.AskLevel;
 import codingblackfemales.sotw.marketdata.BidLevel;
+import codingblackfemales.sotw.marketdata.InstrumentBook;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class SimpleAlgoStateImpl implements SimpleAlgoState {
 
     public final MarketDataService marketDataService;
     public final OrderService orderService;
 
+    //the instrument this state reads, or unscoped to read whichever instrument was updated last
+    private final boolean scoped;
+    private final long scopedInstrumentId;
+
+    //states scoped to each instrument, created on first use and reused after, only kept by the unscoped state
+    private final LongToObjMap<SimpleAlgoStateImpl> instrumentStates;
+
     public SimpleAlgoStateImpl(final MarketDataService marketDataService, final OrderService orderService) {
         this.marketDataService = marketDataService;
         this.orderService = orderService;
+        this.scoped = false;
+        this.scopedInstrumentId = 0;
+        this.instrumentStates = Map.longToObjMap();
+    }
+
+    private SimpleAlgoStateImpl(final SimpleAlgoStateImpl parent, final long instrumentId) {
+        this.marketDataService = parent.marketDataService;
+        this.orderService = parent.orderService;
+        this.scoped = true;
+        this.scopedInstrumentId = instrumentId;
+        this.instrumentStates = parent.instrumentStates;
+    }
+
+    @Override
+    public SimpleAlgoState forInstrument(final long instrumentId) {
+        SimpleAlgoStateImpl state = instrumentStates.get(instrumentId);
+        if (state == null) {
+            state = new SimpleAlgoStateImpl(this, instrumentId);
+            instrumentStates.put(instrumentId, state);
+        }
+        return state;
+    }
+
+    //null if this state is scoped to an instrument which hasn't had market data yet
+    private InstrumentBook scopedBook() {
+        return marketDataService.getBook(scopedInstrumentId);
     }
 
     @Override
     public long getInstrumentId() {
-        return marketDataService.getInstrumentId();
+        return scoped ? scopedInstrumentId : marketDataService.getInstrumentId();
     }
 
     @Override
@@ -30,22 +65,38 @@ public class SimpleAlgoStateImpl implements SimpleAlgoState {
 
     @Override
     public int getBidLevels() {
-        return marketDataService.getBidLength();
+        if (!scoped) {
+            return marketDataService.getBidLength();
+        }
+        final InstrumentBook book = scopedBook();
+        return book == null ? 0 : book.getBidLength();
     }
 
     @Override
     public int getAskLevels() {
-        return marketDataService.getAskLength();
+        if (!scoped) {
+            return marketDataService.getAskLength();
+        }
+        final InstrumentBook book = scopedBook();
+        return book == null ? 0 : book.getAskLength();
     }
 
     @Override
     public BidLevel getBidAt(int index) {
-        return marketDataService.getBidLevel(index);
+        if (!scoped) {
+            return marketDataService.getBidLevel(index);
+        }
+        final InstrumentBook book = scopedBook();
+        return book == null ? null : book.getBidLevel(index);
     }
 
     @Override
     public AskLevel getAskAt(int index) {
-        return marketDataService.getAskLevel(index);
+        if (!scoped) {
+            return marketDataService.getAskLevel(index);
+        }
+        final InstrumentBook book = scopedBook();
+        return book == null ? null : book.getAskLevel(index);
     }
 
     @Override
@@ -55,6 +106,6 @@ public class SimpleAlgoStateImpl implements SimpleAlgoState {
 
     @Override
     public List<ChildOrder> getActiveChildOrders() {
-        return orderService.children().stream().filter(order -> order.getState() != OrderState.CANCELLED).collect(Collectors.toList());
+        return orderService.activeChildren();
     }
 }
@@ -0,0 +1,196 @@
+package codingblackfemales.sotw.marketdata;
+
+/**
+ * The latest book for one instrument, with its levels allocated once up to a fixed depth and overwritten in place.
+ * Levels beyond the depth are dropped, so each instrument's book takes a bounded amount of memory.
+ *
+ * A side is either set whole, clearBids then addBid best first, or updated a level at a time with setBid and removeBid.
+ * Once a level is removed from a full side the book no longer knows which levels come after its last one, they were
+ * beyond its depth. Until the side is next set whole it stays short: levels worse than its last are dropped rather
+ * than added after it with the levels between them missing, levels better than its last are still set.
+ */
+public class InstrumentBook {
+
+    private final long instrumentId;
+
+    private final BidLevel[] bids;
+    private final AskLevel[] asks;
+
+    private int bidLength = 0;
+    private int askLength = 0;
+
+    //a level went from a full side, so what follows its last level is unknown until it is set whole
+    private boolean bidsTruncated = false;
+    private boolean asksTruncated = false;
+
+    public InstrumentBook(final long instrumentId, final int depth) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("depth must be positive: " + depth);
+        }
+        this.instrumentId = instrumentId;
+        this.bids = new BidLevel[depth];
+        this.asks = new AskLevel[depth];
+        for (int i = 0; i < depth; i++) {
+            bids[i] = new BidLevel();
+            asks[i] = new AskLevel();
+        }
+    }
+
+    public long getInstrumentId() {
+        return instrumentId;
+    }
+
+    public int getDepth() {
+        return bids.length;
+    }
+
+    public int getBidLength() {
+        return bidLength;
+    }
+
+    public int getAskLength() {
+        return askLength;
+    }
+
+    /**
+     * @return the level, or null if the book has no level at i
+     */
+    public BidLevel getBidLevel(final int i) {
+        return i >= 0 && i < bidLength ? bids[i] : null;
+    }
+
+    /**
+     * @return the level, or null if the book has no level at i
+     */
+    public AskLevel getAskLevel(final int i) {
+        return i >= 0 && i < askLength ? asks[i] : null;
+    }
+
+    /**
+     * Starts a new bid side, the levels are then set best first with addBid.
+     */
+    public void clearBids() {
+        bidLength = 0;
+        bidsTruncated = false;
+    }
+
+    public void clearAsks() {
+        askLength = 0;
+        asksTruncated = false;
+    }
+
+    /**
+     * @return false if the book is already at its depth and the level was dropped
+     */
+    public boolean addBid(final long price, final long quantity) {
+        if (bidLength == bids.length) {
+            return false;
+        }
+        bids[bidLength].setPrice(price);
+        bids[bidLength].setQuantity(quantity);
+        bidLength++;
+        return true;
+    }
+
+    public boolean addAsk(final long price, final long quantity) {
+        if (askLength == asks.length) {
+            return false;
+        }
+        asks[askLength].setPrice(price);
+        asks[askLength].setQuantity(quantity);
+        askLength++;
+        return true;
+    }
+
+    /**
+     * Sets the quantity of the bid at price, adding a level in price order if there isn't one.
+     *
+     * @return false if the level would be beyond the depth, or beyond the last level of a truncated side, and was dropped
+     */
+    public boolean setBid(final long price, final long quantity) {
+        final int length = setLevel(bids, bidLength, price, quantity, true, bidsTruncated);
+        if (length < 0) {
+            return false;
+        }
+        bidLength = length;
+        return true;
+    }
+
+    public boolean setAsk(final long price, final long quantity) {
+        final int length = setLevel(asks, askLength, price, quantity, false, asksTruncated);
+        if (length < 0) {
+            return false;
+        }
+        askLength = length;
+        return true;
+    }
+
+    /**
+     * @return false if there was no bid at price
+     */
+    public boolean removeBid(final long price) {
+        final int length = removeLevel(bids, bidLength, price, true);
+        if (length == bidLength) {
+            return false;
+        }
+        bidsTruncated |= bidLength == bids.length;
+        bidLength = length;
+        return true;
+    }
+
+    public boolean removeAsk(final long price) {
+        final int length = removeLevel(asks, askLength, price, false);
+        if (length == askLength) {
+            return false;
+        }
+        asksTruncated |= askLength == asks.length;
+        askLength = length;
+        return true;
+    }
+
+    /**
+     * @return the new length of the side, or -1 if the level was dropped
+     */
+    private static int setLevel(final AbstractLevel[] levels, final int length, final long price, final long quantity, final boolean highestFirst, final boolean truncated) {
+        final int i = find(levels, length, price, highestFirst);
+        if (i < length && levels[i].getPrice() == price) {
+            levels[i].setQuantity(quantity);
+            return length;
+        }
+        if (i == levels.length || (truncated && i == length)) {
+            return -1;
+        }
+        //shift the worse levels down one, the last falls off a full side
+        final int newLength = Math.min(length + 1, levels.length);
+        for (int j = newLength - 1; j > i; j--) {
+            levels[j].setPrice(levels[j - 1].getPrice());
+            levels[j].setQuantity(levels[j - 1].getQuantity());
+        }
+        levels[i].setPrice(price);
+        levels[i].setQuantity(quantity);
+        return newLength;
+    }
+
+    private static int removeLevel(final AbstractLevel[] levels, final int length, final long price, final boolean highestFirst) {
+        final int i = find(levels, length, price, highestFirst);
+        if (i == length || levels[i].getPrice() != price) {
+            return length;
+        }
+        for (int j = i; j < length - 1; j++) {
+            levels[j].setPrice(levels[j + 1].getPrice());
+            levels[j].setQuantity(levels[j + 1].getQuantity());
+        }
+        return length - 1;
+    }
+
+    /**
+     * @return the index of the level at price, or of the first level worse than it
+     */
+    private static int find(final AbstractLevel[] levels, final int length, final long price, final boolean highestFirst) {
+        int i = 0;
+        while (i < length && (highestFirst ? levels[i].getPrice() > price : levels[i].getPrice() < price)) {
+            i++;
+        }
+        return i;
+    }
+}
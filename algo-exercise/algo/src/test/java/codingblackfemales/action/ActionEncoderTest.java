@@ -0,0 +1,210 @@
+package codingblackfemales.action;
+
+import codingblackfemales.sequencer.Sequencer;
+import messages.order.CancelOrderDecoder;
+import messages.order.CreateOrderDecoder;
+import messages.order.MessageHeaderDecoder;
+import messages.order.OrderBatchAction;
+import messages.order.OrderBatchDecoder;
+import messages.order.Side;
+import org.agrona.DirectBuffer;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ActionEncoderTest {
+
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final CreateOrderDecoder createDecoder = new CreateOrderDecoder();
+    private final CancelOrderDecoder cancelDecoder = new CancelOrderDecoder();
+    private final OrderBatchDecoder batchDecoder = new OrderBatchDecoder();
+
+    @Test
+    public void testMutableActionEncodesCreateAndCancel() {
+
+        final ActionEncoder encoder = new ActionEncoder();
+        final MutableChildOrderAction action = new MutableChildOrderAction();
+        final CapturingSequencer sequencer = new CapturingSequencer();
+
+        action.create(Side.SELL, 75, 101).apply(sequencer, encoder);
+
+        assertEquals(CreateOrderDecoder.TEMPLATE_ID, sequencer.lastTemplateId);
+        assertEquals(Side.SELL, sequencer.lastSide);
+        assertEquals(75, sequencer.lastQuantity);
+        assertEquals(101, sequencer.lastPrice);
+
+        action.cancel(42).apply(sequencer, encoder);
+
+        assertEquals(CancelOrderDecoder.TEMPLATE_ID, sequencer.lastTemplateId);
+        assertEquals(42, sequencer.lastOrderId);
+    }
+
+    @Test
+    public void testBatchIsSentAsOneCommand() {
+
+        final ActionEncoder encoder = new ActionEncoder();
+        final BatchChildOrderAction batch = new BatchChildOrderAction();
+        final int[] commands = new int[1];
+        final StringBuilder decoded = new StringBuilder();
+
+        final Sequencer sequencer = buffer -> {
+            commands[0]++;
+            batchDecoder.wrapAndApplyHeader(buffer, 0, header);
+            for (OrderBatchDecoder.OrdersDecoder order : batchDecoder.orders()) {
+                if (order.action() == OrderBatchAction.CREATE) {
+                    decoded.append(order.side()).append(' ').append(order.quantity()).append('@').append(order.price()).append(';');
+                } else {
+                    decoded.append("cancel ").append(order.orderId()).append(';');
+                }
+            }
+        };
+
+        batch.clear().cancel(3).create(Side.BUY, 100, 98).create(Side.SELL, 50, 102).apply(sequencer, encoder);
+
+        assertEquals(1, commands[0]);
+        assertEquals("cancel 3;BUY 100@98;SELL 50@102;", decoded.toString());
+
+        //an empty batch sends nothing
+        batch.clear().apply(sequencer, encoder);
+        assertEquals(1, commands[0]);
+    }
+
+    @Test
+    public void testBatchLargerThanOneMessageIsSplit() {
+
+        final ActionEncoder encoder = new ActionEncoder();
+        final BatchChildOrderAction batch = new BatchChildOrderAction();
+        final List<Long> prices = new ArrayList<>();
+        final int[] commands = new int[1];
+
+        final Sequencer sequencer = buffer -> {
+            commands[0]++;
+            batchDecoder.wrapAndApplyHeader(buffer, 0, header);
+            for (OrderBatchDecoder.OrdersDecoder order : batchDecoder.orders()) {
+                prices.add(order.price());
+            }
+        };
+
+        for (int i = 0; i <= ActionEncoder.MAX_BATCH_SIZE; i++) {
+            batch.create(Side.BUY, 1, 1_000 - i);
+        }
+        batch.apply(sequencer, encoder);
+
+        //a full message, then the one order left over
+        assertEquals(2, commands[0]);
+        assertEquals(ActionEncoder.MAX_BATCH_SIZE + 1, prices.size());
+        for (int i = 0; i <= ActionEncoder.MAX_BATCH_SIZE; i++) {
+            assertEquals(1_000L - i, (long) prices.get(i));
+        }
+    }
+
+    @Test
+    public void testReusedActionDoesNotAllocate() {
+
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        final ActionEncoder encoder = new ActionEncoder();
+        final MutableChildOrderAction action = new MutableChildOrderAction();
+        final CapturingSequencer sequencer = new CapturingSequencer();
+
+        for (int i = 0; i < 100_000; i++) {
+            action.create(Side.BUY, 100, 98).apply(sequencer, encoder);
+            action.cancel(i).apply(sequencer, encoder);
+        }
+
+        final long before = threadMXBean.getCurrentThreadAllocatedBytes();
+
+        for (int i = 0; i < 100_000; i++) {
+            action.create(Side.BUY, 100, 98).apply(sequencer, encoder);
+            action.cancel(i).apply(sequencer, encoder);
+        }
+
+        final long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue("allocated " + allocated + " bytes sending 200000 actions", allocated < 1024);
+    }
+
+    @Test
+    public void testActionSentWithoutAnEncoderDoesNotAllocate() {
+
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        final MutableChildOrderAction action = new MutableChildOrderAction();
+        final CapturingSequencer sequencer = new CapturingSequencer();
+
+        for (int i = 0; i < 100_000; i++) {
+            action.create(Side.BUY, 100, 98).apply(sequencer);
+            action.cancel(i).apply(sequencer);
+        }
+
+        final long before = threadMXBean.getCurrentThreadAllocatedBytes();
+
+        for (int i = 0; i < 100_000; i++) {
+            action.create(Side.BUY, 100, 98).apply(sequencer);
+            action.cancel(i).apply(sequencer);
+        }
+
+        final long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue("allocated " + allocated + " bytes sending 200000 actions", allocated < 1024);
+        assertEquals(CancelOrderDecoder.TEMPLATE_ID, sequencer.lastTemplateId);
+    }
+
+    @Test
+    public void testNestedActionsEncodeIntoSeparateBuffers() {
+
+        final ActionEncoder encoder = new ActionEncoder(1);
+        final MutableChildOrderAction outer = new MutableChildOrderAction();
+        final MutableChildOrderAction inner = new MutableChildOrderAction();
+        final long[] seenAfterNested = new long[1];
+
+        //the sequencer dispatches synchronously, and the algo reacts with another action before the first returns
+        final Sequencer sequencer = new Sequencer() {
+            private int depth = 0;
+
+            @Override
+            public void onCommand(final DirectBuffer buffer) {
+                if (depth++ == 0) {
+                    inner.cancel(7).apply(this, encoder);
+                    createDecoder.wrapAndApplyHeader(buffer, 0, header);
+                    seenAfterNested[0] = createDecoder.price();
+                }
+            }
+        };
+
+        outer.create(Side.BUY, 10, 99).apply(sequencer, encoder);
+
+        assertEquals(99, seenAfterNested[0]);
+    }
+
+    private final class CapturingSequencer implements Sequencer {
+
+        private int lastTemplateId;
+        private Side lastSide;
+        private long lastQuantity;
+        private long lastPrice;
+        private long lastOrderId;
+
+        @Override
+        public void onCommand(final DirectBuffer buffer) {
+            header.wrap(buffer, 0);
+            lastTemplateId = header.templateId();
+            if (lastTemplateId == CreateOrderDecoder.TEMPLATE_ID) {
+                createDecoder.wrapAndApplyHeader(buffer, 0, header);
+                lastSide = createDecoder.side();
+                lastQuantity = createDecoder.quantity();
+                lastPrice = createDecoder.price();
+            } else {
+                cancelDecoder.wrapAndApplyHeader(buffer, 0, header);
+                lastOrderId = cancelDecoder.orderId();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package codingblackfemales.container;
+
+import codingblackfemales.algo.PassiveAlgoLogic;
+import codingblackfemales.sequencer.RealSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.service.MarketDataService;
+import codingblackfemales.service.OrderService;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.YieldingIdleStrategy;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AlgoContainerAgentTest {
+
+    @Test
+    public void testContainerRunsOnItsOwnDutyCycle() throws Exception {
+
+        final TestNetwork network = new TestNetwork();
+        final RealSequencer sequencer = new RealSequencer(network);
+
+        final RunTrigger runTrigger = new RunTrigger();
+        final Actioner actioner = new Actioner(sequencer);
+        final AlgoContainer container = new AlgoContainer(new MarketDataService(runTrigger), new OrderService(runTrigger), runTrigger, actioner);
+        container.setLogic(new PassiveAlgoLogic());
+
+        final AlgoContainerAgent agent = new AlgoContainerAgent(container, 64 * 1024);
+        network.addConsumer(agent);
+
+        try (AgentRunner sequencerRunner = new AgentRunner(new YieldingIdleStrategy(), Throwable::printStackTrace, null, sequencer)) {
+            AgentRunner.startOnThread(sequencerRunner);
+            agent.start(IdleStrategyType.PARK);
+
+            sequencer.onCommand(createSampleMarketDataTick());
+
+            //the tick, then the three child orders the passive algo creates in response
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (agent.getMessagesProcessed() < 4 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        } finally {
+            agent.close();
+        }
+
+        assertEquals(4, agent.getMessagesProcessed());
+        assertEquals(3, container.getState().getChildOrders().size());
+
+        assertTrue(agent.getWorkCycles() >= 1);
+        assertTrue(agent.getIdleCycles() >= 1);
+        assertEquals(agent.getDutyCycles(), agent.getWorkCycles() + agent.getIdleCycles());
+    }
+
+    private UnsafeBuffer createSampleMarketDataTick() {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+
+        encoder.askBookCount(3)
+                .next().price(100L).size(101L)
+                .next().price(110L).size(200L)
+                .next().price(115L).size(5000L);
+
+        encoder.bidBookCount(3)
+                .next().price(98L).size(100L)
+                .next().price(95L).size(200L)
+                .next().price(91L).size(300L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        encoder.source(Source.STREAM);
+
+        return directBuffer;
+    }
+}
@@ -0,0 +1,131 @@
+package codingblackfemales.container;
+
+import codingblackfemales.action.NoAction;
+import codingblackfemales.algo.AlgoLogic;
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.service.MarketDataService;
+import codingblackfemales.service.OrderService;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class AlgoContainerTest {
+
+    private int evaluations = 0;
+    private long bestBidSeen = 0;
+
+    private final AlgoLogic countingLogic = state -> {
+        evaluations++;
+        bestBidSeen = state.getBidAt(0).getPrice();
+        return NoAction.NoAction;
+    };
+
+    @Test
+    public void testEvaluatesOncePerMessage() {
+
+        final RunTrigger runTrigger = new RunTrigger();
+        final AlgoContainer container = createContainer(runTrigger);
+
+        for (int i = 0; i < 3; i++) {
+            onMessage(container, createSampleMarketDataTick(98 + i));
+        }
+        container.onEndOfBatch();
+
+        assertEquals(3, evaluations);
+        assertEquals(3, runTrigger.getRuns());
+        assertEquals(0, runTrigger.getCoalescedRuns());
+    }
+
+    @Test
+    public void testConflatingTriggerEvaluatesOncePerBatch() {
+
+        final RunTrigger runTrigger = new RunTrigger(true);
+        final AlgoContainer container = createContainer(runTrigger);
+        //as the container agent does
+        container.setBatched(true);
+
+        for (int i = 0; i < 3; i++) {
+            onMessage(container, createSampleMarketDataTick(98 + i));
+        }
+        assertEquals(0, evaluations);
+
+        container.onEndOfBatch();
+
+        //one evaluation, against the book after the last tick
+        assertEquals(1, evaluations);
+        assertEquals(100, bestBidSeen);
+        assertEquals(1, runTrigger.getRuns());
+        assertEquals(2, runTrigger.getCoalescedRuns());
+
+        //nothing new in the next batch, so nothing to evaluate
+        container.onEndOfBatch();
+        assertEquals(1, evaluations);
+    }
+
+    @Test
+    public void testConflatingTriggerEvaluatesWhenDispatchedDirectly() {
+
+        final RunTrigger runTrigger = new RunTrigger(true);
+        final TestNetwork network = new TestNetwork();
+        final DefaultSequencer sequencer = new DefaultSequencer(network);
+        final AlgoContainer container = new AlgoContainer(new MarketDataService(runTrigger), new OrderService(runTrigger), runTrigger, new Actioner(sequencer));
+        container.setLogic(countingLogic);
+
+        network.addConsumer(container.getMarketDataService());
+        network.addConsumer(container.getOrderService());
+        network.addConsumer(container);
+
+        //no batches without an agent, so each dispatch is evaluated when it ends
+        for (int i = 0; i < 3; i++) {
+            sequencer.onCommand(createSampleMarketDataTick(98 + i));
+            assertEquals(i + 1, evaluations);
+            assertEquals(98 + i, bestBidSeen);
+        }
+        assertEquals(3, runTrigger.getRuns());
+    }
+
+    private AlgoContainer createContainer(final RunTrigger runTrigger) {
+        final Actioner actioner = new Actioner(new DefaultSequencer(new TestNetwork()));
+        final AlgoContainer container = new AlgoContainer(new MarketDataService(runTrigger), new OrderService(runTrigger), runTrigger, actioner);
+        container.setLogic(countingLogic);
+        return container;
+    }
+
+    //in the order the container agent applies a message
+    private void onMessage(final AlgoContainer container, final UnsafeBuffer buffer) {
+        container.getMarketDataService().onMessage(buffer);
+        container.getOrderService().onMessage(buffer);
+        container.onMessage(buffer);
+    }
+
+    private UnsafeBuffer createSampleMarketDataTick(final long bestBid) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+
+        encoder.bidBookCount(2)
+                .next().price(bestBid).size(100L)
+                .next().price(95L).size(200L);
+
+        encoder.askBookCount(2)
+                .next().price(102L).size(101L)
+                .next().price(110L).size(200L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        encoder.source(Source.STREAM);
+
+        return directBuffer;
+    }
+}
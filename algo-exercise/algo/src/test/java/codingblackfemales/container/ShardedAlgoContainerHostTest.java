@@ -0,0 +1,210 @@
+package codingblackfemales.container;
+
+import codingblackfemales.action.NoAction;
+import codingblackfemales.algo.PassiveAlgoLogic;
+import codingblackfemales.sequencer.RealSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.service.MarketDataService;
+import codingblackfemales.sotw.ChildOrder;
+import codingblackfemales.sotw.OrderState;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import messages.order.CancelAckedOrderEncoder;
+import messages.order.CancelOrderEncoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.FillOrderEncoder;
+import messages.order.OrderBatchAction;
+import messages.order.OrderBatchEncoder;
+import messages.order.PartialFillOrderEncoder;
+import messages.order.Side;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.YieldingIdleStrategy;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ShardedAlgoContainerHostTest {
+
+    @Test
+    public void testEachInstrumentIsRoutedToAContainerOfItsOwn() throws Exception {
+
+        final TestNetwork network = new TestNetwork();
+        final RealSequencer sequencer = new RealSequencer(network);
+
+        final ShardedAlgoContainerHost host = new ShardedAlgoContainerHost(sequencer, 2, PassiveAlgoLogic::new, 64 * 1024);
+        network.addConsumer(host);
+
+        try (AgentRunner sequencerRunner = new AgentRunner(new YieldingIdleStrategy(), Throwable::printStackTrace, null, sequencer)) {
+            AgentRunner.startOnThread(sequencerRunner);
+            host.start(IdleStrategyType.PARK);
+
+            //instruments 1 and 3 land on shard 1, instrument 2 on shard 0
+            sequencer.onCommand(createSampleMarketDataTick(1L));
+            sequencer.onCommand(createSampleMarketDataTick(2L));
+            sequencer.onCommand(createSampleMarketDataTick(3L));
+
+            //the passive algo stops at three child orders, each instrument's algo only sees the orders it created
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((childOrders(host.getShard(0)) < 3 || childOrders(host.getShard(1)) < 6) && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        } finally {
+            host.close();
+        }
+
+        assertEquals(1, host.getShard(0).getContainerCount());
+        assertEquals(2, host.getShard(1).getContainerCount());
+
+        for (long instrumentId = 1; instrumentId <= 3; instrumentId++) {
+            final AlgoContainer container = host.getContainer(instrumentId);
+            assertEquals(3, container.getState().getChildOrders().size());
+
+            final MarketDataService marketData = container.getMarketDataService();
+            assertEquals(1, marketData.getInstrumentCount());
+            assertNotNull(marketData.getBook(instrumentId));
+        }
+        assertNull(host.getContainer(4L));
+    }
+
+    @Test
+    public void testRoutesAreDroppedOnceOrdersAreDone() {
+
+        final ShardedAlgoContainerHost host = new ShardedAlgoContainerHost(new RealSequencer(new TestNetwork()), 2, () -> state -> NoAction.NoAction, 64 * 1024);
+
+        //the shards aren't started, their queues are drained below
+        host.onMessage(createOrder(1L, 1L, 100L));
+        host.onMessage(createOrder(2L, 2L, 50L));
+        host.onMessage(orderBatch(1L, OrderBatchAction.CREATE, 3L, 10L, OrderBatchAction.CREATE, 4L, 20L));
+        assertEquals(4, host.getRoutedOrderCount());
+
+        //an order is done once filled in full, however many fills that takes
+        host.onMessage(fill(1L, 40L));
+        assertEquals(4, host.getRoutedOrderCount());
+        host.onMessage(fill(1L, 60L));
+        assertEquals(3, host.getRoutedOrderCount());
+
+        //or once its cancel is acked, a fill can still cross the cancel
+        host.onMessage(cancel(2L));
+        host.onMessage(partialFill(2L, 10L));
+        assertEquals(3, host.getRoutedOrderCount());
+        host.onMessage(cancelAcked(2L));
+        assertEquals(2, host.getRoutedOrderCount());
+
+        host.onMessage(orderBatch(1L, OrderBatchAction.CANCEL, 3L, 0L, OrderBatchAction.CREATE, 6L, 5L));
+        assertEquals(3, host.getRoutedOrderCount());
+        host.onMessage(cancelAcked(3L));
+        assertEquals(2, host.getRoutedOrderCount());
+
+        host.onMessage(partialFill(4L, 20L));
+        host.onMessage(fill(6L, 5L));
+        assertEquals(0, host.getRoutedOrderCount());
+
+        //a report for an order which is done is dropped, and routes are reused for new orders
+        host.onMessage(fill(1L, 10L));
+        host.onMessage(createOrder(1L, 5L, 10L));
+        assertEquals(1, host.getRoutedOrderCount());
+
+        for (int i = 0; i < host.getShardCount(); i++) {
+            while (host.getShard(i).doWork() > 0) {
+            }
+        }
+
+        //every report reached the container which created the order
+        final List<ChildOrder> instrument1 = host.getContainer(1L).getState().getChildOrders();
+        assertEquals(5, instrument1.size());
+        assertEquals(100L, instrument1.get(0).getFilledQuantity());
+        assertEquals(OrderState.CANCELLED, instrument1.get(1).getState());
+        assertEquals(20L, instrument1.get(2).getFilledQuantity());
+
+        final List<ChildOrder> instrument2 = host.getContainer(2L).getState().getChildOrders();
+        assertEquals(1, instrument2.size());
+        assertEquals(10L, instrument2.get(0).getFilledQuantity());
+        assertEquals(OrderState.CANCELLED, instrument2.get(0).getState());
+    }
+
+    private static UnsafeBuffer createOrder(final long instrumentId, final long orderId, final long quantity) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        new CreateOrderEncoder().wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder())
+                .instrumentId(instrumentId).price(100L).quantity(quantity).side(Side.BUY).orderId(orderId);
+        return directBuffer;
+    }
+
+    private static UnsafeBuffer orderBatch(final long instrumentId, final OrderBatchAction firstAction, final long firstOrderId, final long firstQuantity,
+                                           final OrderBatchAction secondAction, final long secondOrderId, final long secondQuantity) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        new OrderBatchEncoder().wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder())
+                .instrumentId(instrumentId)
+                .ordersCount(2)
+                .next().action(firstAction).side(Side.BUY).price(100L).quantity(firstQuantity).orderId(firstOrderId)
+                .next().action(secondAction).side(Side.BUY).price(100L).quantity(secondQuantity).orderId(secondOrderId);
+        return directBuffer;
+    }
+
+    private static UnsafeBuffer fill(final long orderId, final long quantity) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        new FillOrderEncoder().wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder())
+                .orderId(orderId).quantity(quantity).price(100L);
+        return directBuffer;
+    }
+
+    private static UnsafeBuffer partialFill(final long orderId, final long quantity) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        new PartialFillOrderEncoder().wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder())
+                .orderId(orderId).quantity(quantity).price(100L);
+        return directBuffer;
+    }
+
+    private static UnsafeBuffer cancelAcked(final long orderId) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        new CancelAckedOrderEncoder().wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder()).orderId(orderId);
+        return directBuffer;
+    }
+
+    private static UnsafeBuffer cancel(final long orderId) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        new CancelOrderEncoder().wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder()).orderId(orderId);
+        return directBuffer;
+    }
+
+    private static int childOrders(final AlgoContainerAgent shard) {
+        int childOrders = 0;
+        for (int i = 0; i < shard.getContainerCount(); i++) {
+            childOrders += shard.getContainer(i).getState().getChildOrders().size();
+        }
+        return childOrders;
+    }
+
+    private UnsafeBuffer createSampleMarketDataTick(final long instrumentId) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(instrumentId);
+
+        encoder.askBookCount(3)
+                .next().price(100L).size(101L)
+                .next().price(110L).size(200L)
+                .next().price(115L).size(5000L);
+
+        encoder.bidBookCount(3)
+                .next().price(98L).size(100L)
+                .next().price(95L).size(200L)
+                .next().price(91L).size(300L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        encoder.source(Source.STREAM);
+
+        return directBuffer;
+    }
+}
@@ -0,0 +1,68 @@
+package codingblackfemales.marketdata.gen;
+
+import codingblackfemales.sequencer.journal.JournalDescriptor;
+import messages.marketdata.Venue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class MarketDataDatasetGeneratorTest {
+
+    private static final int SEGMENT_LENGTH = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParallelDatasetMatchesSerialDataset() throws Exception {
+        final List<File> serial = generate(42, 1, folder.newFolder("serial"));
+        final List<File> parallel = generate(42, 4, folder.newFolder("parallel"));
+
+        assertEquals(6, serial.size());
+        assertEquals(new File(folder.getRoot(), "serial/instrument-2/day-1"), serial.get(3));
+        for (int i = 0; i < serial.size(); i++) {
+            assertArrayEquals(serial.get(i).getPath(), read(serial.get(i)), read(parallel.get(i)));
+        }
+    }
+
+    @Test
+    public void testSessionsDifferAcrossDaysAndSeeds() throws Exception {
+        final List<File> sessions = generate(42, 2, folder.newFolder("seed-42"));
+        final List<File> otherSeed = generate(43, 2, folder.newFolder("seed-43"));
+
+        assertFalse(Arrays.equals(read(sessions.get(0)), read(sessions.get(1))));
+        assertFalse(Arrays.equals(read(sessions.get(0)), read(otherSeed.get(0))));
+    }
+
+    private static List<File> generate(final long seed, final int parallelism, final File root) {
+        try (MarketDataDatasetGenerator generator = new MarketDataDatasetGenerator(seed, Venue.XLON, 1_000, 100, 15, parallelism, SEGMENT_LENGTH)) {
+            return generator.generate(root, new long[]{1, 2, 3}, 2, 5_000);
+        }
+    }
+
+    private static byte[] read(final File session) throws Exception {
+        final File[] segments = JournalDescriptor.segmentFiles(session);
+        final byte[][] contents = new byte[segments.length][];
+        int length = 0;
+        for (int i = 0; i < segments.length; i++) {
+            contents[i] = Files.readAllBytes(segments[i].toPath());
+            length += contents[i].length;
+        }
+        final byte[] all = new byte[length];
+        int offset = 0;
+        for (byte[] segment : contents) {
+            System.arraycopy(segment, 0, all, offset, segment.length);
+            offset += segment.length;
+        }
+        return all;
+    }
+}
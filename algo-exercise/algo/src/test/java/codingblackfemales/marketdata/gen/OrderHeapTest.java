@@ -0,0 +1,108 @@
+package codingblackfemales.marketdata.gen;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class OrderHeapTest {
+
+    @Test
+    public void testBestLevelsMatchASortedBook() {
+        checkAgainstSortedBook(new OrderHeap(true, 4), Comparator.comparingLong((long[] order) -> order[0]).reversed());
+        checkAgainstSortedBook(new OrderHeap(false, 4), Comparator.comparingLong((long[] order) -> order[0]));
+    }
+
+    @Test
+    public void testBestOfAnEmptyHeap() {
+        final OrderHeap heap = new OrderHeap(true, 4);
+        assertEquals(0, heap.best(5, new long[5], new long[5]));
+    }
+
+    private void checkAgainstSortedBook(final OrderHeap heap, final Comparator<long[]> bestFirst) {
+        final Random random = new Random(42);
+        final List<long[]> book = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            final int action = heap.size() == 0 ? 0 : random.nextInt(4);
+            switch (action) {
+                case 0:
+                    final long price = 900 + random.nextInt(200);
+                    final long quantity = 1 + random.nextInt(100);
+                    heap.add(price, quantity);
+                    book.add(new long[]{price, quantity});
+                    break;
+                case 1: {
+                    final int index = random.nextInt(heap.size());
+                    removeFrom(book, heap.priceAt(index), heap.quantityAt(index));
+                    heap.removeAt(index);
+                    break;
+                }
+                case 2: {
+                    final int index = random.nextInt(heap.size());
+                    final long[] order = removeFrom(book, heap.priceAt(index), heap.quantityAt(index));
+                    order[0] = 900 + random.nextInt(200);
+                    book.add(order);
+                    heap.setPriceAt(index, order[0]);
+                    break;
+                }
+                default: {
+                    final int index = random.nextInt(heap.size());
+                    final long[] order = removeFrom(book, heap.priceAt(index), heap.quantityAt(index));
+                    order[1] = 1 + random.nextInt(100);
+                    book.add(order);
+                    heap.setQuantityAt(index, order[1]);
+                    break;
+                }
+            }
+
+            assertEquals(book.size(), heap.size());
+            if (i % 100 == 0) {
+                assertBestLevels(heap, book, bestFirst, 15);
+            }
+        }
+        assertBestLevels(heap, book, bestFirst, book.size());
+    }
+
+    private static void assertBestLevels(final OrderHeap heap, final List<long[]> book, final Comparator<long[]> bestFirst, final int levels) {
+        final long[] prices = new long[levels];
+        final long[] quantities = new long[levels];
+        final int count = heap.best(levels, prices, quantities);
+
+        final List<long[]> sorted = new ArrayList<>(book);
+        sorted.sort(bestFirst);
+        assertEquals(Math.min(levels, sorted.size()), count);
+
+        //orders at the same price can come out in any order, so compare prices and the total quantity at each price
+        long expectedQuantity = 0;
+        long actualQuantity = 0;
+        for (int i = 0; i < count; i++) {
+            assertEquals(sorted.get(i)[0], prices[i]);
+            expectedQuantity += sorted.get(i)[1];
+            actualQuantity += quantities[i];
+            if (i + 1 == count || prices[i + 1] != prices[i]) {
+                if (i + 1 == count && i + 1 < sorted.size() && sorted.get(i + 1)[0] == prices[i]) {
+                    //the cut off fell part way through a price, which of its orders made it in is arbitrary
+                    break;
+                }
+                assertEquals(expectedQuantity, actualQuantity);
+                expectedQuantity = 0;
+                actualQuantity = 0;
+            }
+        }
+    }
+
+    private static long[] removeFrom(final List<long[]> book, final long price, final long quantity) {
+        for (int i = 0; i < book.size(); i++) {
+            final long[] order = book.get(i);
+            if (order[0] == price && order[1] == quantity) {
+                return book.remove(i);
+            }
+        }
+        throw new AssertionError("no order " + quantity + "@" + price);
+    }
+}
@@ -1,14 +1,34 @@
 package codingblackfemales.marketdata.gen;
 
+import ch.qos.logback.classic.Level;
+import codingblackfemales.marketdata.api.MarketDataEncoder;
 import codingblackfemales.marketdata.api.MarketDataMessage;
+import codingblackfemales.marketdata.impl.BinaryFileMarketDataProvider;
+import messages.marketdata.AskBookUpdateDecoder;
+import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.MessageHeaderDecoder;
 import messages.marketdata.Venue;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class RandomMarketDataGeneratorTest {
     private Logger logger = LoggerFactory.getLogger(getClass());
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void should_generate_marketdata() {
         final RandomMarketDataGenerator generator = new RandomMarketDataGenerator(1, Venue.XLON, 1_000, 100, 15);
@@ -19,4 +39,134 @@ public class RandomMarketDataGeneratorTest {
             logger.info("{}",marketDataMessage);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void should_generate_the_same_updates_from_the_same_seed() {
+        final RandomMarketDataGenerator generator = new RandomMarketDataGenerator(1, Venue.XLON, 1_000, 100, 15, 42);
+        final RandomMarketDataGenerator sameSeed = new RandomMarketDataGenerator(1, Venue.XLON, 1_000, 100, 15, 42);
+        final RandomMarketDataGenerator otherSeed = new RandomMarketDataGenerator(1, Venue.XLON, 1_000, 100, 15, 43);
+        final MarketDataEncoder encoder = new MarketDataEncoder();
+        final UnsafeBuffer frame = new UnsafeBuffer(new byte[generator.maxEncodedLength()]);
+        final UnsafeBuffer otherFrame = new UnsafeBuffer(new byte[otherSeed.maxEncodedLength()]);
+
+        boolean diverged = false;
+        for (int i = 0; i < 10_000; i++) {
+            final int length = generator.encodeNext(frame, 0);
+            //the same session whether it is encoded straight into a buffer or built as messages
+            final UnsafeBuffer expected = encoder.encode(sameSeed.next());
+            assertEquals("update " + i, new UnsafeBuffer(expected, 0, length), new UnsafeBuffer(frame, 0, length));
+
+            final int otherLength = otherSeed.encodeNext(otherFrame, 0);
+            diverged |= otherLength != length || !new UnsafeBuffer(frame, 0, length).equals(new UnsafeBuffer(otherFrame, 0, otherLength));
+        }
+        assertTrue(diverged);
+    }
+
+    @Test
+    public void should_encode_updates_without_allocating() {
+        final ch.qos.logback.classic.Logger generatorLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(RandomMarketDataGenerator.class);
+        final Level level = generatorLogger.getLevel();
+        generatorLogger.setLevel(Level.INFO);
+        try {
+            final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+            final RandomMarketDataGenerator generator = new RandomMarketDataGenerator(1, Venue.XLON, 1_000, 100, 15, 42);
+            final UnsafeBuffer buffer = new UnsafeBuffer(new byte[generator.maxEncodedLength()]);
+            final FrameChecker checker = new FrameChecker(15);
+
+            //grow the books to their working size
+            for (int i = 0; i < 100_000; i++) {
+                checker.check(buffer, generator.encodeNext(buffer, 0));
+            }
+
+            final long before = threadMXBean.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 100_000; i++) {
+                generator.encodeNext(buffer, 0);
+            }
+            final long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+            //the order heaps can still double now and then as the books wander, but nothing is allocated per update
+            assertTrue("allocated " + allocated + " bytes encoding 100000 updates", allocated < 64 * 1024);
+        } finally {
+            generatorLogger.setLevel(level);
+        }
+    }
+
+    @Test
+    public void should_stream_updates_to_a_binary_file() throws Exception {
+        final File directory = folder.newFolder("marketdata");
+        try (BinaryFileMarketDataGenerator fileGenerator = new BinaryFileMarketDataGenerator(directory, new RandomMarketDataGenerator(1, Venue.XLON, 1_000, 100, 15), 64 * 1024)) {
+            fileGenerator.generate(10_000);
+        }
+
+        final FrameChecker checker = new FrameChecker(15);
+        try (BinaryFileMarketDataProvider provider = new BinaryFileMarketDataProvider(directory)) {
+            assertEquals(10_000, provider.replay(buffer -> checker.check(buffer, buffer.capacity())));
+        }
+        assertEquals(10_000, checker.frames);
+    }
+
+    /**
+     * Decodes each frame and checks its levels are best first on each side.
+     */
+    private static final class FrameChecker {
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final BookUpdateDecoder bookUpdate = new BookUpdateDecoder();
+        private final BidBookUpdateDecoder bidBookUpdate = new BidBookUpdateDecoder();
+        private final AskBookUpdateDecoder askBookUpdate = new AskBookUpdateDecoder();
+        private final int maxLevels;
+        private int frames = 0;
+
+        private FrameChecker(final int maxLevels) {
+            this.maxLevels = maxLevels;
+        }
+
+        private void check(final DirectBuffer buffer, final int length) {
+            assertTrue(length > MessageHeaderDecoder.ENCODED_LENGTH);
+            header.wrap(buffer, 0);
+            switch (header.templateId()) {
+                case BookUpdateDecoder.TEMPLATE_ID: {
+                    bookUpdate.wrapAndApplyHeader(buffer, 0, header);
+                    //encoded asks first, as MarketDataEncoder does
+                    long previous = Long.MIN_VALUE;
+                    final BookUpdateDecoder.BidBookDecoder first = bookUpdate.bidBook();
+                    assertTrue(first.count() <= maxLevels);
+                    for (BookUpdateDecoder.BidBookDecoder level : first) {
+                        assertTrue(level.price() >= previous);
+                        previous = level.price();
+                    }
+                    previous = Long.MAX_VALUE;
+                    final BookUpdateDecoder.AskBookDecoder second = bookUpdate.askBook();
+                    assertTrue(second.count() <= maxLevels);
+                    for (BookUpdateDecoder.AskBookDecoder level : second) {
+                        assertTrue(level.price() <= previous);
+                        previous = level.price();
+                    }
+                    break;
+                }
+                case BidBookUpdateDecoder.TEMPLATE_ID: {
+                    bidBookUpdate.wrapAndApplyHeader(buffer, 0, header);
+                    long previous = Long.MAX_VALUE;
+                    for (BidBookUpdateDecoder.BidBookDecoder level : bidBookUpdate.bidBook()) {
+                        assertTrue(level.price() <= previous);
+                        previous = level.price();
+                    }
+                    break;
+                }
+                case AskBookUpdateDecoder.TEMPLATE_ID: {
+                    askBookUpdate.wrapAndApplyHeader(buffer, 0, header);
+                    long previous = Long.MIN_VALUE;
+                    for (AskBookUpdateDecoder.AskBookDecoder level : askBookUpdate.askBook()) {
+                        assertTrue(level.price() >= previous);
+                        previous = level.price();
+                    }
+                    break;
+                }
+                default:
+                    throw new AssertionError("unexpected template " + header.templateId());
+            }
+            frames++;
+        }
+    }
+}
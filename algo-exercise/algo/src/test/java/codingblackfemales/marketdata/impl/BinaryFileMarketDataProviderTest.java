@@ -0,0 +1,123 @@
+package codingblackfemales.marketdata.impl;
+
+import codingblackfemales.container.RunTrigger;
+import codingblackfemales.marketdata.api.MarketDataEncoder;
+import codingblackfemales.marketdata.api.MarketDataMessage;
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.journal.JournalDescriptor;
+import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.sequencer.util.FrameLength;
+import codingblackfemales.service.MarketDataService;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BinaryFileMarketDataProviderTest {
+
+    private static final String JSON_FILE = "src/test/resources/marketdata.json";
+    private static final int MESSAGES = 1000;
+
+    //small segments, so the replay has to cross several of them
+    private static final int SEGMENT_LENGTH = 16 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final FrameLength frameLength = new FrameLength();
+
+    @Test
+    public void testReplaysTheSameFramesAsTheJsonProvider() throws Exception {
+
+        final File directory = folder.newFolder("marketdata");
+        assertEquals(MESSAGES, MarketDataFileConverter.convert(JSON_FILE, directory, SEGMENT_LENGTH));
+
+        final List<byte[]> expected = new ArrayList<>();
+        try (SimpleFileMarketDataProvider json = new SimpleFileMarketDataProvider(JSON_FILE)) {
+            final MarketDataEncoder encoder = new MarketDataEncoder();
+            MarketDataMessage message;
+            while ((message = json.poll()) != null) {
+                expected.add(copy(encoder.encode(message)));
+            }
+        }
+
+        final List<byte[]> replayed = new ArrayList<>();
+        try (BinaryFileMarketDataProvider provider = new BinaryFileMarketDataProvider(directory)) {
+            assertEquals(MESSAGES, provider.replay(buffer -> replayed.add(copy(new UnsafeBuffer(buffer, 0, buffer.capacity())))));
+            assertFalse(provider.poll(buffer -> replayed.add(new byte[0])));
+        }
+
+        assertEquals(expected.size(), replayed.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals("frame " + i, expected.get(i), replayed.get(i));
+        }
+    }
+
+    @Test
+    public void testSequencerStampsFramesWithoutChangingTheFile() throws Exception {
+
+        final File directory = folder.newFolder("marketdata");
+        MarketDataFileConverter.convert(JSON_FILE, directory, SEGMENT_LENGTH);
+        final byte[][] before = readSegments(directory);
+
+        final MarketDataService fromJson = new MarketDataService(new RunTrigger());
+        try (SimpleFileMarketDataProvider json = new SimpleFileMarketDataProvider(JSON_FILE)) {
+            final MarketDataEncoder encoder = new MarketDataEncoder();
+            MarketDataMessage message;
+            while ((message = json.poll()) != null) {
+                fromJson.onMessage(encoder.encode(message));
+            }
+        }
+
+        final TestNetwork network = new TestNetwork();
+        final MarketDataService fromBinary = new MarketDataService(new RunTrigger());
+        network.addConsumer(fromBinary);
+        final DefaultSequencer sequencer = new DefaultSequencer(network);
+
+        try (BinaryFileMarketDataProvider provider = new BinaryFileMarketDataProvider(directory)) {
+            while (provider.poll(sequencer)) {
+                //one frame at a time, as a backtest would
+            }
+        }
+
+        assertEquals(fromJson.getBidLength(), fromBinary.getBidLength());
+        assertEquals(fromJson.getAskLength(), fromBinary.getAskLength());
+        for (int i = 0; i < fromJson.getBidLength(); i++) {
+            assertEquals(fromJson.getBidLevel(i).getPrice(), fromBinary.getBidLevel(i).getPrice());
+            assertEquals(fromJson.getBidLevel(i).getQuantity(), fromBinary.getBidLevel(i).getQuantity());
+        }
+        for (int i = 0; i < fromJson.getAskLength(); i++) {
+            assertEquals(fromJson.getAskLevel(i).getPrice(), fromBinary.getAskLevel(i).getPrice());
+            assertEquals(fromJson.getAskLevel(i).getQuantity(), fromBinary.getAskLevel(i).getQuantity());
+        }
+
+        final byte[][] after = readSegments(directory);
+        for (int i = 0; i < before.length; i++) {
+            assertArrayEquals("segment " + i, before[i], after[i]);
+        }
+    }
+
+    private byte[] copy(final UnsafeBuffer buffer) {
+        final byte[] bytes = new byte[frameLength.frameLength(buffer, 0)];
+        buffer.getBytes(0, bytes);
+        return bytes;
+    }
+
+    private static byte[][] readSegments(final File directory) throws Exception {
+        final File[] segments = JournalDescriptor.segmentFiles(directory);
+        final byte[][] contents = new byte[segments.length][];
+        for (int i = 0; i < segments.length; i++) {
+            contents[i] = Files.readAllBytes(segments[i].toPath());
+        }
+        return contents;
+    }
+}
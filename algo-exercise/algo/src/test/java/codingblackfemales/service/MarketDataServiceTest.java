@@ -0,0 +1,253 @@
+package codingblackfemales.service;
+
+import ch.qos.logback.classic.Level;
+import codingblackfemales.container.RunTrigger;
+import codingblackfemales.sotw.SimpleAlgoState;
+import codingblackfemales.sotw.SimpleAlgoStateImpl;
+import codingblackfemales.sotw.marketdata.BidLevel;
+import messages.marketdata.BookLevelUpdateEncoder;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.LevelUpdateAction;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MarketDataServiceTest {
+
+    private final ch.qos.logback.classic.Logger serviceLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(MarketDataService.class);
+    private Level previousLevel;
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder encoder = new BookUpdateEncoder();
+    private final BookLevelUpdateEncoder levelUpdateEncoder = new BookLevelUpdateEncoder();
+
+    @Before
+    public void quietLogging() {
+        //debug logging of each level allocates, keep it out of the allocation check
+        previousLevel = serviceLogger.getLevel();
+        serviceLogger.setLevel(Level.INFO);
+    }
+
+    @After
+    public void restoreLogging() {
+        serviceLogger.setLevel(previousLevel);
+    }
+
+    @Test
+    public void testLevelsBeyondDepthAreIgnored() {
+
+        final MarketDataService service = new MarketDataService(new RunTrigger(), 2);
+
+        service.onMessage(bookUpdate(new long[]{98, 95, 91}, new long[]{100, 110, 115, 119}));
+
+        assertEquals(2, service.getDepth());
+        assertEquals(2, service.getBidLength());
+        assertEquals(2, service.getAskLength());
+        assertEquals(95, service.getBidLevel(1).price);
+        assertEquals(110, service.getAskLevel(1).price);
+        assertNull(service.getBidLevel(2));
+    }
+
+    @Test
+    public void testLevelsAreOverwrittenInPlace() {
+
+        final MarketDataService service = new MarketDataService(new RunTrigger());
+
+        service.onMessage(bookUpdate(new long[]{98, 95, 91}, new long[]{100}));
+        final BidLevel best = service.getBidLevel(0);
+
+        service.onMessage(bookUpdate(new long[]{97}, new long[]{101, 102}));
+
+        assertSame(best, service.getBidLevel(0));
+        assertEquals(97, best.price);
+        assertEquals(1, service.getBidLength());
+        assertNull(service.getBidLevel(1));
+        assertEquals(102, service.getAskLevel(1).price);
+
+        //an empty side empties the book
+        service.onMessage(bookUpdate(new long[]{}, new long[]{101}));
+        assertEquals(0, service.getBidLength());
+        assertNull(service.getBidLevel(0));
+    }
+
+    @Test
+    public void testTickDoesNotAllocate() {
+
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        final MarketDataService service = new MarketDataService(new RunTrigger());
+        final UnsafeBuffer first = bookUpdate(new long[]{98, 95, 91}, new long[]{100, 110, 115, 119});
+        final UnsafeBuffer second = bookUpdate(new long[]{97, 95}, new long[]{99, 110});
+
+        for (int i = 0; i < 100_000; i++) {
+            service.onMessage((i & 1) == 0 ? first : second);
+        }
+
+        final long before = threadMXBean.getCurrentThreadAllocatedBytes();
+
+        long total = 0;
+        for (int i = 0; i < 100_000; i++) {
+            service.onMessage((i & 1) == 0 ? first : second);
+            total += service.getBidLevel(0).price;
+        }
+
+        final long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(50_000L * 98 + 50_000L * 97, total);
+        assertTrue("allocated " + allocated + " bytes over 100000 ticks", allocated < 1024);
+    }
+
+    @Test
+    public void testInstrumentsKeepSeparateBooks() {
+
+        final MarketDataService service = new MarketDataService(new RunTrigger());
+        final SimpleAlgoState state = new SimpleAlgoStateImpl(service, new OrderService(new RunTrigger()));
+
+        service.onMessage(bookUpdate(1L, new long[]{98, 95}, new long[]{100}));
+        service.onMessage(bookUpdate(2L, new long[]{2_010}, new long[]{2_020, 2_030}));
+
+        assertEquals(2, service.getInstrumentCount());
+
+        //unscoped reads follow the instrument updated last
+        assertEquals(2L, state.getInstrumentId());
+        assertEquals(2_010, state.getBidAt(0).price);
+
+        final SimpleAlgoState first = state.forInstrument(1L);
+        assertEquals(1L, first.getInstrumentId());
+        assertEquals(2, first.getBidLevels());
+        assertEquals(98, first.getBidAt(0).price);
+        assertEquals(100, first.getAskAt(0).price);
+        assertNull(first.getAskAt(1));
+
+        final SimpleAlgoState second = state.forInstrument(2L);
+        assertEquals(2, second.getAskLevels());
+        assertEquals(2_030, second.getAskAt(1).price);
+
+        //scoped states are reused rather than created per call
+        assertSame(first, state.forInstrument(1L));
+
+        //an instrument without market data has an empty book
+        final SimpleAlgoState unknown = state.forInstrument(3L);
+        assertEquals(0, unknown.getBidLevels());
+        assertNull(unknown.getBidAt(0));
+    }
+
+    @Test
+    public void testLevelUpdatesAreAppliedInPlace() {
+
+        final MarketDataService service = new MarketDataService(new RunTrigger(), 3);
+
+        service.onMessage(bookUpdate(new long[]{98, 95, 91}, new long[]{100}));
+        final BidLevel best = service.getBidLevel(0);
+
+        //a new best bid pushes 91 past the depth, 95 resized, the ask gone
+        service.onMessage(levelUpdate(
+                new Object[]{LevelUpdateAction.NEW, 99L, 10L, LevelUpdateAction.CHANGE, 95L, 50L},
+                new Object[]{LevelUpdateAction.DELETE, 100L, 0L, LevelUpdateAction.NEW, 103L, 20L}));
+
+        assertSame(best, service.getBidLevel(0));
+        assertEquals(3, service.getBidLength());
+        assertEquals(99, service.getBidLevel(0).price);
+        assertEquals(98, service.getBidLevel(1).price);
+        assertEquals(95, service.getBidLevel(2).price);
+        assertEquals(50, service.getBidLevel(2).quantity);
+        assertEquals(1, service.getAskLength());
+        assertEquals(103, service.getAskLevel(0).price);
+
+        //one past a full side is dropped
+        service.onMessage(levelUpdate(new Object[]{LevelUpdateAction.NEW, 70L, 10L}, new Object[]{}));
+        assertEquals(3, service.getBidLength());
+        assertEquals(95, service.getBidLevel(2).price);
+    }
+
+    @Test
+    public void testDeleteFromFullSideKeepsItShortUntilSetWhole() {
+
+        final MarketDataService service = new MarketDataService(new RunTrigger(), 3);
+
+        //91 and 90 are in the publisher's book beyond the depth
+        service.onMessage(bookUpdate(new long[]{98, 95, 93, 91, 90}, new long[]{100}));
+
+        //91 would move up into the depth, the service never saw it so it has to leave the side short
+        service.onMessage(levelUpdate(new Object[]{LevelUpdateAction.DELETE, 95L, 0L}, new Object[]{}));
+        assertEquals(2, service.getBidLength());
+
+        //a deeper level isn't put straight after 93 with 91 missing between them
+        service.onMessage(levelUpdate(new Object[]{LevelUpdateAction.CHANGE, 90L, 50L}, new Object[]{}));
+        assertEquals(2, service.getBidLength());
+        assertEquals(93, service.getBidLevel(1).price);
+
+        //levels inside what it knows are still kept up to date
+        service.onMessage(levelUpdate(new Object[]{LevelUpdateAction.NEW, 96L, 10L, LevelUpdateAction.CHANGE, 93L, 70L}, new Object[]{}));
+        assertEquals(3, service.getBidLength());
+        assertEquals(96, service.getBidLevel(1).price);
+        assertEquals(70, service.getBidLevel(2).quantity);
+
+        //the whole side again ends it
+        service.onMessage(bookUpdate(new long[]{98}, new long[]{100}));
+        service.onMessage(levelUpdate(new Object[]{LevelUpdateAction.NEW, 90L, 10L}, new Object[]{}));
+        assertEquals(2, service.getBidLength());
+        assertEquals(90, service.getBidLevel(1).price);
+    }
+
+    //action, price, size triples best first
+    private UnsafeBuffer levelUpdate(final Object[] bids, final Object[] asks) {
+        final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        levelUpdateEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder);
+        levelUpdateEncoder.instrumentId(123L);
+        levelUpdateEncoder.venue(Venue.XLON);
+        levelUpdateEncoder.source(Source.ORDERBOOK);
+
+        final BookLevelUpdateEncoder.BidLevelsEncoder bidLevels = levelUpdateEncoder.bidLevelsCount(bids.length / 3);
+        for (int i = 0; i < bids.length; i += 3) {
+            bidLevels.next().action((LevelUpdateAction) bids[i]).price((Long) bids[i + 1]).size((Long) bids[i + 2]);
+        }
+        final BookLevelUpdateEncoder.AskLevelsEncoder askLevels = levelUpdateEncoder.askLevelsCount(asks.length / 3);
+        for (int i = 0; i < asks.length; i += 3) {
+            askLevels.next().action((LevelUpdateAction) asks[i]).price((Long) asks[i + 1]).size((Long) asks[i + 2]);
+        }
+
+        return buffer;
+    }
+
+    private UnsafeBuffer bookUpdate(final long[] bids, final long[] asks) {
+        return bookUpdate(123L, bids, asks);
+    }
+
+    private UnsafeBuffer bookUpdate(final long instrumentId, final long[] bids, final long[] asks) {
+        final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        encoder.wrapAndApplyHeader(buffer, 0, headerEncoder);
+        encoder.instrumentId(instrumentId);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        encoder.source(Source.STREAM);
+
+        final BookUpdateEncoder.BidBookEncoder bidBook = encoder.bidBookCount(bids.length);
+        for (long price : bids) {
+            bidBook.next().price(price).size(100L);
+        }
+        final BookUpdateEncoder.AskBookEncoder askBook = encoder.askBookCount(asks.length);
+        for (long price : asks) {
+            askBook.next().price(price).size(100L);
+        }
+
+        return buffer;
+    }
+}
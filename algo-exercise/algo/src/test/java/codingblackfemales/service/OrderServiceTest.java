@@ -0,0 +1,173 @@
+package codingblackfemales.service;
+
+import codingblackfemales.container.RunTrigger;
+import codingblackfemales.sotw.ChildOrder;
+import codingblackfemales.sotw.OrderState;
+import messages.order.AckedOrderEncoder;
+import messages.order.CancelOrderEncoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.FillOrderEncoder;
+import messages.order.MessageHeaderEncoder;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OrderServiceTest {
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final CreateOrderEncoder createEncoder = new CreateOrderEncoder();
+    private final CancelOrderEncoder cancelEncoder = new CancelOrderEncoder();
+    private final AckedOrderEncoder ackEncoder = new AckedOrderEncoder();
+    private final FillOrderEncoder fillEncoder = new FillOrderEncoder();
+
+    private OrderService orderService = new OrderService(new RunTrigger());
+
+    @Test
+    public void testActiveChildrenFollowStateChanges() {
+
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            create(orderId, 100);
+        }
+
+        cancel(2);
+        cancel(4);
+
+        assertEquals(5, orderService.children().size());
+        assertEquals(3, orderService.activeChildren().size());
+        assertEquals(1, orderService.activeChildren().get(0).getOrderId());
+        assertEquals(3, orderService.activeChildren().get(1).getOrderId());
+        assertEquals(5, orderService.activeChildren().get(2).getOrderId());
+        assertTrue(orderService.activeChildren().stream().allMatch(child -> child.getState() != OrderState.CANCELLED));
+    }
+
+    @Test
+    public void testActiveViewIsLiveAndReadOnly() {
+
+        final List<ChildOrder> active = orderService.activeChildren();
+
+        create(1, 100);
+        create(2, 100);
+        assertEquals(2, active.size());
+
+        cancel(1);
+        assertEquals(1, active.size());
+        assertEquals(2, active.get(0).getOrderId());
+
+        //the same view every time, nothing is allocated to read it
+        assertSame(active, orderService.activeChildren());
+
+        try {
+            active.clear();
+            fail("active view should be read-only");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testCompletedOrdersAreArchived() {
+
+        create(1, 100);
+        create(2, 100);
+        create(3, 100);
+
+        fill(1, 100);
+        fill(2, 40);
+        cancel(3);
+
+        assertEquals(2, orderService.archiveCompletedOrders());
+
+        assertEquals(1, orderService.children().size());
+        assertEquals(2, orderService.children().get(0).getOrderId());
+        assertEquals(2, orderService.archivedChildren().size());
+
+        //the filled order left the active list with the archive, the cancelled one when it was cancelled
+        assertEquals(1, orderService.activeChildren().size());
+        assertSame(orderService.children().get(0), orderService.activeChildren().get(0));
+
+        //a late report for an archived order still finds it
+        final ChildOrder archived = orderService.archivedChildren().get(1);
+        assertEquals(3, archived.getOrderId());
+        fill(archived.getOrderId(), 10);
+        assertEquals(10, archived.getFilledQuantity());
+        assertEquals(1, orderService.activeChildren().size());
+
+        //but a late ack doesn't bring it back
+        ack(archived.getOrderId());
+        assertEquals(OrderState.CANCELLED, archived.getState());
+        assertEquals(1, orderService.activeChildren().size());
+        assertEquals(1, orderService.children().size());
+    }
+
+    @Test
+    public void testOnlyRecentlyArchivedOrdersAreFoundById() {
+
+        orderService = new OrderService(new RunTrigger(), 2);
+
+        for (long orderId = 1; orderId <= 4; orderId++) {
+            create(orderId, 10);
+            fill(orderId, 10);
+        }
+        assertEquals(4, orderService.archiveCompletedOrders());
+        assertEquals(4, orderService.archivedChildren().size());
+
+        //the last two archived are still found
+        fill(4, 1);
+        fill(3, 1);
+        assertEquals(11, orderService.archivedChildren().get(3).getFilledQuantity());
+
+        try {
+            fill(2, 1);
+            fail("order 2 was archived before the last two");
+        } catch (NoSuchElementException expected) {
+        }
+    }
+
+    @Test
+    public void testManyOrdersAreFoundById() {
+
+        for (long orderId = 1; orderId <= 50_000; orderId++) {
+            create(orderId, 10);
+        }
+        for (long orderId = 1; orderId <= 50_000; orderId++) {
+            fill(orderId, 10);
+        }
+
+        assertTrue(orderService.children().stream().allMatch(child -> child.getFilledQuantity() == 10));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testReportForUnknownOrderFails() {
+        fill(99, 10);
+    }
+
+    private void create(final long orderId, final long quantity) {
+        createEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder)
+                .orderId(orderId).side(Side.BUY).quantity(quantity).price(100);
+        orderService.onMessage(buffer);
+    }
+
+    private void ack(final long orderId) {
+        ackEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder).orderId(orderId);
+        orderService.onMessage(buffer);
+    }
+
+    private void cancel(final long orderId) {
+        cancelEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder).orderId(orderId);
+        orderService.onMessage(buffer);
+    }
+
+    private void fill(final long orderId, final long quantity) {
+        fillEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder).orderId(orderId).quantity(quantity).price(100);
+        orderService.onMessage(buffer);
+    }
+}
@@ -0,0 +1,55 @@
+package codingblackfemales.sotw;
+
+import messages.order.Side;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChildOrderTest {
+
+    @Test
+    public void testFillAggregatesAreKeptAsFillsArrive() {
+
+        final ChildOrder order = new ChildOrder(Side.BUY, 1, 300, 100, OrderState.ACKED);
+
+        assertEquals(0, order.getFilledQuantity());
+        assertEquals(300, order.getLeavesQuantity());
+        assertEquals(0.0, order.getAverageFillPrice(), 0.0);
+        assertEquals(0, order.getFillCount());
+
+        order.addFill(100, 100);
+        order.addFill(50, 94);
+
+        assertEquals(150, order.getFilledQuantity());
+        assertEquals(150, order.getLeavesQuantity());
+        assertEquals((100 * 100 + 50 * 94) / 150.0, order.getAverageFillPrice(), 1e-9);
+
+        assertEquals(2, order.getFillCount());
+        assertEquals(50, order.getFillQuantity(1));
+        assertEquals(94, order.getFillPrice(1));
+        assertEquals(100, order.getFill(0).getQuantity());
+    }
+
+    @Test
+    public void testManyFills() {
+
+        final ChildOrder order = new ChildOrder(Side.SELL, 1, 1_000, 100, OrderState.ACKED);
+
+        for (int i = 0; i < 1_000; i++) {
+            order.addFill(1, 100 + (i % 2));
+        }
+
+        assertEquals(1_000, order.getFilledQuantity());
+        assertEquals(0, order.getLeavesQuantity());
+        assertEquals(100.5, order.getAverageFillPrice(), 1e-9);
+        assertEquals(1_000, order.getFillCount());
+        assertEquals(101, order.getFillPrice(999));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testReadingPastTheLastFillFails() {
+        final ChildOrder order = new ChildOrder(Side.BUY, 1, 100, 100, OrderState.ACKED);
+        order.addFill(10, 100);
+        order.getFillQuantity(1);
+    }
+}
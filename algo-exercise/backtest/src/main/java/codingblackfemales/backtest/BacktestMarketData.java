@@ -0,0 +1,122 @@
+package codingblackfemales.backtest;
+
+import codingblackfemales.marketdata.api.MarketDataEncoder;
+import codingblackfemales.marketdata.api.MarketDataMessage;
+import codingblackfemales.marketdata.impl.SimpleFileMarketDataProvider;
+import codingblackfemales.sequencer.journal.JournalReader;
+import codingblackfemales.sequencer.util.FrameLength;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Market data ticks loaded once and shared by every run of a BacktestRunner.
+ *
+ * The frames are held in one contiguous buffer which is never written after loading, so any number of runs can read
+ * it at once. Sequencers stamp their sequence number into the frame they are sent, so a run copies each frame into
+ * its own buffer (copyFrame) rather than sending the shared one.
+ */
+public final class BacktestMarketData {
+
+    private final UnsafeBuffer frames;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int maxFrameLength;
+
+    private BacktestMarketData(final Builder builder) {
+        this.frames = new UnsafeBuffer(builder.frames.byteArray(), 0, builder.position);
+        this.offsets = Arrays.copyOf(builder.offsets, builder.count);
+        this.lengths = Arrays.copyOf(builder.lengths, builder.count);
+        this.maxFrameLength = builder.maxFrameLength;
+    }
+
+    /**
+     * @param ticks SBE frames, header included, in the order they should be replayed
+     */
+    public static BacktestMarketData fromFrames(final List<? extends DirectBuffer> ticks) {
+        final Builder builder = new Builder();
+        for (DirectBuffer tick : ticks) {
+            builder.add(tick);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Loads a JSON market data file, as read by SimpleFileMarketDataProvider.
+     */
+    public static BacktestMarketData fromJsonFile(final String marketDataFileName) {
+        final Builder builder = new Builder();
+        final MarketDataEncoder encoder = new MarketDataEncoder();
+        try (SimpleFileMarketDataProvider provider = new SimpleFileMarketDataProvider(marketDataFileName)) {
+            MarketDataMessage message;
+            while ((message = provider.poll()) != null) {
+                builder.add(encoder.encode(message));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Loads market data written by MarketDataFileConverter.
+     */
+    public static BacktestMarketData fromBinaryFile(final File marketDataDirectory) {
+        final Builder builder = new Builder();
+        try (JournalReader reader = new JournalReader(marketDataDirectory)) {
+            reader.replay(builder::add);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    /**
+     * Copies a tick into the start of the destination buffer.
+     *
+     * @return the length of the tick
+     */
+    public int copyFrame(final int index, final MutableDirectBuffer destination) {
+        final int length = lengths[index];
+        destination.putBytes(0, frames, offsets[index], length);
+        return length;
+    }
+
+    private static final class Builder {
+
+        private final FrameLength frameLength = new FrameLength();
+        private final ExpandableArrayBuffer frames = new ExpandableArrayBuffer(64 * 1024);
+        private int[] offsets = new int[1024];
+        private int[] lengths = new int[1024];
+        private int count = 0;
+        private int position = 0;
+        private int maxFrameLength = 0;
+
+        private void add(final DirectBuffer tick) {
+            final int length = frameLength.frameLength(tick, 0);
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            frames.putBytes(position, tick, 0, length);
+            offsets[count] = position;
+            lengths[count] = length;
+            count++;
+            position += length;
+            maxFrameLength = Math.max(maxFrameLength, length);
+        }
+
+        private BacktestMarketData build() {
+            return new BacktestMarketData(this);
+        }
+    }
+}
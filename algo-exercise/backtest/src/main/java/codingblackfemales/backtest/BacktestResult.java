@@ -0,0 +1,150 @@
+package codingblackfemales.backtest;
+
+import codingblackfemales.container.AlgoContainer;
+import codingblackfemales.sotw.ChildOrder;
+import codingblackfemales.sotw.OrderState;
+import codingblackfemales.sotw.SimpleAlgoState;
+import messages.order.Side;
+
+import java.util.List;
+
+/**
+ * What one run of a BacktestRunner did: its child orders, fills and P&L, those the OrderService has archived included.
+ *
+ * P&L is the cash from the fills plus the open position marked at the last mid price the algo saw (or the last
+ * touch if only one side of the book was showing). Prices are in the units of the market data.
+ *
+ * @param <P> the parameters the run's algo was built from
+ */
+public final class BacktestResult<P> {
+
+    private final P parameters;
+    private final int childOrders;
+    private final int cancelledOrders;
+    private final int fills;
+    private final long boughtQuantity;
+    private final long boughtNotional;
+    private final long soldQuantity;
+    private final long soldNotional;
+    private final double markPrice;
+    private final long elapsedNanos;
+
+    BacktestResult(final P parameters, final AlgoContainer container, final long elapsedNanos) {
+        this.parameters = parameters;
+        this.elapsedNanos = elapsedNanos;
+
+        final SimpleAlgoState state = container.getState();
+        final List<ChildOrder> children = state.getChildOrders();
+        final List<ChildOrder> archived = container.getOrderService().archivedChildren();
+        final Totals totals = new Totals();
+        totals.add(children);
+        totals.add(archived);
+
+        this.childOrders = children.size() + archived.size();
+        this.cancelledOrders = totals.cancelled;
+        this.fills = totals.fills;
+        this.boughtQuantity = totals.boughtQuantity;
+        this.boughtNotional = totals.boughtNotional;
+        this.soldQuantity = totals.soldQuantity;
+        this.soldNotional = totals.soldNotional;
+        this.markPrice = markPrice(state);
+    }
+
+    public P getParameters() {
+        return parameters;
+    }
+
+    public int getChildOrders() {
+        return childOrders;
+    }
+
+    public int getCancelledOrders() {
+        return cancelledOrders;
+    }
+
+    public int getFills() {
+        return fills;
+    }
+
+    public long getBoughtQuantity() {
+        return boughtQuantity;
+    }
+
+    public long getBoughtNotional() {
+        return boughtNotional;
+    }
+
+    public long getSoldQuantity() {
+        return soldQuantity;
+    }
+
+    public long getSoldNotional() {
+        return soldNotional;
+    }
+
+    /**
+     * @return quantity bought less quantity sold
+     */
+    public long getPosition() {
+        return boughtQuantity - soldQuantity;
+    }
+
+    public double getMarkPrice() {
+        return markPrice;
+    }
+
+    public double getPnl() {
+        return (soldNotional - boughtNotional) + getPosition() * markPrice;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    private static double markPrice(final SimpleAlgoState state) {
+        final boolean hasBid = state.getBidLevels() > 0;
+        final boolean hasAsk = state.getAskLevels() > 0;
+        if (hasBid && hasAsk) {
+            return (state.getBidAt(0).getPrice() + state.getAskAt(0).getPrice()) / 2.0;
+        } else if (hasBid) {
+            return state.getBidAt(0).getPrice();
+        } else if (hasAsk) {
+            return state.getAskAt(0).getPrice();
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "BacktestResult(parameters=" + parameters + ",childOrders=" + childOrders + ",cancelled=" + cancelledOrders
+                + ",fills=" + fills + ",bought=" + boughtQuantity + ",sold=" + soldQuantity + ",position=" + getPosition()
+                + ",pnl=" + getPnl() + ",elapsedMicros=" + elapsedNanos / 1000 + ")";
+    }
+
+    private static final class Totals {
+        private int cancelled = 0;
+        private int fills = 0;
+        private long boughtQuantity = 0;
+        private long boughtNotional = 0;
+        private long soldQuantity = 0;
+        private long soldNotional = 0;
+
+        private void add(final List<ChildOrder> children) {
+            for (int i = 0; i < children.size(); i++) {
+                final ChildOrder child = children.get(i);
+                if (child.getState() == OrderState.CANCELLED) {
+                    cancelled++;
+                }
+                fills += child.getFillCount();
+                final long notional = child.getFilledNotional();
+                if (child.getSide() == Side.SELL) {
+                    soldQuantity += child.getFilledQuantity();
+                    soldNotional += notional;
+                } else {
+                    boughtQuantity += child.getFilledQuantity();
+                    boughtNotional += notional;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package codingblackfemales.backtest;
+
+import codingblackfemales.algo.AlgoLogic;
+import codingblackfemales.container.Actioner;
+import codingblackfemales.container.AlgoContainer;
+import codingblackfemales.container.RunTrigger;
+import codingblackfemales.orderbook.OrderBook;
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.consumer.OrderBookInboundOrderConsumer;
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.service.MarketDataService;
+import codingblackfemales.service.OrderService;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Runs many backtests over the same market data at once, e.g. to sweep an algo's parameters.
+ *
+ * Each run gets its own pipeline, wired as in the backtest tests (sequencer, order book, container and services, no
+ * logging consumer), and replays every tick of the shared BacktestMarketData through it on a fork join pool. Runs
+ * share nothing but the market data, which is read only, so they scale with the pool's parallelism.
+ *
+ *     try (BacktestRunner runner = new BacktestRunner(BacktestMarketData.fromJsonFile("marketdata.json"))) {
+ *         List<BacktestResult<Long>> results = runner.run(List.of(50L, 100L, 200L), quantity -> new MyAlgoLogic(quantity));
+ *     }
+ *
+ * The logic factory is called on the pool's threads, once per run, so it must return a new instance each time.
+ */
+public class BacktestRunner implements AutoCloseable {
+
+    private final BacktestMarketData marketData;
+    private final ForkJoinPool pool;
+
+    public BacktestRunner(final BacktestMarketData marketData) {
+        this(marketData, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism the most runs to have in flight at once
+     */
+    public BacktestRunner(final BacktestMarketData marketData, final int parallelism) {
+        this.marketData = marketData;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Runs one backtest per set of parameters and waits for them all to finish.
+     *
+     * @return a result per set of parameters, in the same order
+     */
+    public <P> List<BacktestResult<P>> run(final List<P> parameters, final Function<P, AlgoLogic> logicFactory) {
+        final List<ForkJoinTask<BacktestResult<P>>> runs = new ArrayList<>(parameters.size());
+        for (P runParameters : parameters) {
+            runs.add(pool.submit(() -> runOne(runParameters, logicFactory.apply(runParameters))));
+        }
+
+        final List<BacktestResult<P>> results = new ArrayList<>(runs.size());
+        for (ForkJoinTask<BacktestResult<P>> run : runs) {
+            results.add(run.join());
+        }
+        return results;
+    }
+
+    /**
+     * Runs a single backtest on the calling thread.
+     */
+    public <P> BacktestResult<P> runOne(final P parameters, final AlgoLogic logic) {
+        final long start = System.nanoTime();
+
+        final TestNetwork network = new TestNetwork();
+        final Sequencer sequencer = new DefaultSequencer(network);
+
+        final RunTrigger runTrigger = new RunTrigger();
+        final Actioner actioner = new Actioner(sequencer);
+
+        final MarketDataChannel marketDataChannel = new MarketDataChannel(sequencer);
+        final OrderChannel orderChannel = new OrderChannel(sequencer);
+        final OrderBook book = new OrderBook(marketDataChannel, orderChannel);
+
+        final OrderBookInboundOrderConsumer orderConsumer = new OrderBookInboundOrderConsumer(book);
+
+        final AlgoContainer container = new AlgoContainer(new MarketDataService(runTrigger), new OrderService(runTrigger), runTrigger, actioner);
+        container.setLogic(logic);
+
+        network.addConsumer(book);
+        network.addConsumer(container.getMarketDataService());
+        network.addConsumer(container.getOrderService());
+        network.addConsumer(orderConsumer);
+        network.addConsumer(container);
+
+        //the sequencer stamps each tick in place, so every run sends its own copy
+        final UnsafeBuffer tick = new UnsafeBuffer(new byte[marketData.getMaxFrameLength()]);
+        for (int i = 0; i < marketData.size(); i++) {
+            marketData.copyFrame(i, tick);
+            sequencer.onCommand(tick);
+        }
+
+        return new BacktestResult<>(parameters, container, System.nanoTime() - start);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -1,19 +1,32 @@
 package codingblackfemales.orderbook;
 
+import codingblackfemales.orderbook.pool.OrderBookPool;
 import codingblackfemales.orderbook.visitor.FilteringOrderBookVisitor;
 import codingblackfemales.orderbook.visitor.MutatingAddOrderVisitor;
 import codingblackfemales.orderbook.visitor.OrderBookVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
-
 public class AskBookSide extends OrderBookSide {
 
     private static final Logger logger = LoggerFactory.getLogger(AskBookSide.class);
 
     public AskBookSide() {
-        super(Comparator.naturalOrder());
+        super(false);
+    }
+
+    /**
+     * @param priceIndexed find levels by price through an index rather than walking the levels
+     */
+    public AskBookSide(final boolean priceIndexed) {
+        super(false, priceIndexed);
+    }
+
+    /**
+     * @param pool where the side's levels and market data orders come from and go back to, shared with the book
+     */
+    public AskBookSide(final boolean priceIndexed, final OrderBookPool pool) {
+        super(false, priceIndexed, pool);
     }
 
 }
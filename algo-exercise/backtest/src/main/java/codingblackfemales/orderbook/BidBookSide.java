@@ -1,19 +1,32 @@
 package codingblackfemales.orderbook;
 
+import codingblackfemales.orderbook.pool.OrderBookPool;
 import codingblackfemales.orderbook.visitor.FilteringOrderBookVisitor;
 import codingblackfemales.orderbook.visitor.MutatingAddOrderVisitor;
 import codingblackfemales.orderbook.visitor.OrderBookVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
-
 public class BidBookSide extends OrderBookSide{
 
     private static final Logger logger = LoggerFactory.getLogger(BidBookSide.class);
 
     protected BidBookSide() {
-        super(Comparator.reverseOrder());
+        super(true);
+    }
+
+    /**
+     * @param priceIndexed find levels by price through an index rather than walking the levels
+     */
+    protected BidBookSide(final boolean priceIndexed) {
+        super(true, priceIndexed);
+    }
+
+    /**
+     * @param pool where the side's levels and market data orders come from and go back to, shared with the book
+     */
+    protected BidBookSide(final boolean priceIndexed, final OrderBookPool pool) {
+        super(true, priceIndexed, pool);
     }
 }
 
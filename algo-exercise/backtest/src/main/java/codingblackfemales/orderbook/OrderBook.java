@@ -1,39 +1,107 @@
 package codingblackfemales.orderbook;
 
+import codingblackfemales.collection.extrusive.LongToObjMap;
+import codingblackfemales.collection.extrusive.Map;
 import codingblackfemales.orderbook.channel.MarketDataChannel;
 import codingblackfemales.orderbook.channel.OrderChannel;
 import codingblackfemales.orderbook.order.LimitOrderFlyweight;
 import codingblackfemales.orderbook.order.MarketDataOrderFlyweight;
-import codingblackfemales.orderbook.visitor.CancelOrderVisitor;
+import codingblackfemales.orderbook.pool.ObjectPool;
+import codingblackfemales.orderbook.pool.OrderBookPool;
 import codingblackfemales.orderbook.visitor.MutatingMatchOneMarketDataOrderVisitor;
 import codingblackfemales.orderbook.visitor.MutatingMatchOneOrderVisitor;
+import codingblackfemales.orderbook.visitor.ReadOnlyMarketDataChannelDeltaPublishVisitor;
 import codingblackfemales.orderbook.visitor.ReadOnlyMarketDataChannelPublishVisitor;
 import codingblackfemales.sequencer.event.MarketDataEventListener;
+import codingblackfemales.sequencer.util.BufferStack;
 import messages.marketdata.AskBookUpdateDecoder;
 import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookLevelUpdateDecoder;
 import messages.marketdata.BookUpdateDecoder;
 import messages.marketdata.Source;
 import messages.order.Side;
-import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * The backtest's book of market data and the algo's limit orders, matching one against the other.
+ *
+ * After each order, cancel or batch the book publishes the levels which changed since it last published
+ * (a BookLevelUpdate), and every snapshotInterval publishes the whole book instead (a BookUpdate), so a reader which
+ * missed or misapplied an update is put right. Deltas rely on readers seeing the book's updates in the order they were
+ * published.
+ *
+ * The book is for one instrument, the one in the market data it was last given, and it publishes as that instrument so
+ * readers apply its updates to the same book as the stream's. Until it has had market data it publishes as
+ * DEFAULT_INSTRUMENT_ID.
+ */
 public class OrderBook extends MarketDataEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderBook.class);
 
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 100;
+
+    public static final long DEFAULT_INSTRUMENT_ID = 123L;
+
     private final MarketDataChannel marketDataChannel;
     private final OrderChannel orderChannel;
 
     public OrderBook(final MarketDataChannel marketDataChannel, final OrderChannel orderChannel) {
+        this(marketDataChannel, orderChannel, false);
+    }
+
+    /**
+     * @param priceIndexed find levels by price through an index on each side rather than walking the levels
+     */
+    public OrderBook(final MarketDataChannel marketDataChannel, final OrderChannel orderChannel, final boolean priceIndexed) {
+        this(marketDataChannel, orderChannel, priceIndexed, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * @param snapshotInterval publish the whole book every this many publishes and the changed levels in between,
+     *                         1 publishes the whole book every time
+     */
+    public OrderBook(final MarketDataChannel marketDataChannel, final OrderChannel orderChannel, final boolean priceIndexed, final int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("snapshotInterval must be positive: " + snapshotInterval);
+        }
+        this.snapshotInterval = snapshotInterval;
         this.marketDataChannel = marketDataChannel;
         this.orderChannel = orderChannel;
+        this.askBookSide = new AskBookSide(priceIndexed, pool);
+        this.bidBookSide = new BidBookSide(priceIndexed, pool);
+        this.matchVisitors = new ObjectPool<>(() -> new MutatingMatchOneOrderVisitor(orderChannel, restingOrders, pool), 4);
+        this.marketDataMatchVisitors = new ObjectPool<>(() -> new MutatingMatchOneMarketDataOrderVisitor(orderChannel, restingOrders, pool), 4);
     }
 
-    private ReadOnlyMarketDataChannelPublishVisitor mktDataVisitor = new ReadOnlyMarketDataChannelPublishVisitor();
+    //limit orders resting on either side by order id, so a cancel goes straight to the order and its level
+    private final LongToObjMap<LimitOrderFlyweight> restingOrders = Map.longToObjMap();
+
+    //levels and orders are reused rather than left for the collector, see OrderBookPool
+    private final OrderBookPool pool = new OrderBookPool();
 
-    private AskBookSide askBookSide = new AskBookSide();
-    private BidBookSide bidBookSide = new BidBookSide();
+    //a fill is dispatched before matching returns and whoever gets it can send the book an order, so a match can start
+    //inside another one. Each takes its own visitor from the pool and gives it back when done.
+    private final ObjectPool<MutatingMatchOneOrderVisitor> matchVisitors;
+    private final ObjectPool<MutatingMatchOneMarketDataOrderVisitor> marketDataMatchVisitors;
+
+    private int lastMarketDataChanges = 0;
+
+    private long instrumentId = DEFAULT_INSTRUMENT_ID;
+
+    private final ReadOnlyMarketDataChannelPublishVisitor mktDataVisitor = new ReadOnlyMarketDataChannelPublishVisitor();
+    private final ReadOnlyMarketDataChannelDeltaPublishVisitor mktDataDeltaVisitor = new ReadOnlyMarketDataChannelDeltaPublishVisitor();
+
+    //an order from whoever reads an update can make the book publish again before the update has reached everyone, so
+    //each level of nesting gets its own buffer, grown to fit the book
+    private final BufferStack publishBuffers = new BufferStack(1024, 4);
+
+    private final int snapshotInterval;
+    private long publishes = 0;
+
+    private final AskBookSide askBookSide;
+    private final BidBookSide bidBookSide;
 
     public AskBookSide getAskBookSide() {
         return askBookSide;
@@ -43,6 +111,13 @@ public class OrderBook extends MarketDataEventListener {
         return bidBookSide;
     }
 
+    /**
+     * Limit orders given to the book should come from here, the book releases them once they are filled or cancelled.
+     */
+    public OrderBookPool getPool() {
+        return pool;
+    }
+
     public boolean canMatch(final Side side, final long price){
         boolean canMatch = false;
 
@@ -60,138 +135,226 @@ public class OrderBook extends MarketDataEventListener {
         //don't process updates from ourself.
         if(!bookUpdate.source().equals(Source.ORDERBOOK)){
             logger.info("[ORDERBOOK] Processing Mkt Data Update");
-            getBidBookSide().removeMarketDataOrders();
-            addOrMatchBidMarketDataOrders(bookUpdate);
+            instrumentId = bookUpdate.instrumentId();
+            //the groups have to be read in order, bids then asks
+            int changes = 0;
+            getBidBookSide().beginMarketDataRefresh();
+            for(BookUpdateDecoder.BidBookDecoder decoder : bookUpdate.bidBook()) {
+                changes += refreshMarketDataLevel(Side.BUY, decoder.price(), decoder.size());
+            }
+            changes += getBidBookSide().endMarketDataRefresh();
 
-            getAskBookSide().removeMarketDataOrders();
-            addOrMatchAskMarketDataOrders(bookUpdate);
+            getAskBookSide().beginMarketDataRefresh();
+            for(BookUpdateDecoder.AskBookDecoder decoder : bookUpdate.askBook()) {
+                changes += refreshMarketDataLevel(Side.SELL, decoder.price(), decoder.size());
+            }
+            changes += getAskBookSide().endMarketDataRefresh();
+            endMarketDataRefresh(changes);
         }
     }
 
-    private void addOrMatchAskMarketDataOrders(BookUpdateDecoder bookUpdateDecoder){
-        for(BookUpdateDecoder.AskBookDecoder decoder : bookUpdateDecoder.askBook()) {
-            final long price = decoder.price();
-            final long quantity = decoder.size();
-            var marketOrder = new MarketDataOrderFlyweight(Side.SELL, price, quantity);
-            logger.debug("[ORDERBOOK] ASK: Adding order" + marketOrder);
-            if(canMatch(Side.SELL, price)){
-                matchMarketDataOrder(marketOrder);
-            }else{
-                getAskBookSide().addMarketDataOrder(marketOrder);
-            }
+    @Override
+    public void onLevelUpdate(BookLevelUpdateDecoder levelUpdate) {
+        //only the book publishes these, from its own levels
+    }
+
+    @Override
+    public void onAskBook(AskBookUpdateDecoder askBook) {
+        instrumentId = askBook.instrumentId();
+        int changes = 0;
+        getAskBookSide().beginMarketDataRefresh();
+        for(AskBookUpdateDecoder.AskBookDecoder decoder : askBook.askBook()) {
+            changes += refreshMarketDataLevel(Side.SELL, decoder.price(), decoder.size());
         }
+        endMarketDataRefresh(changes + getAskBookSide().endMarketDataRefresh());
     }
 
-    private void addOrMatchAskMarketDataOrders(AskBookUpdateDecoder askBookUpdateDecoder){
-        for(AskBookUpdateDecoder.AskBookDecoder decoder : askBookUpdateDecoder.askBook()) {
-            final long price = decoder.price();
-            final long quantity = decoder.size();
-            var marketOrder = new MarketDataOrderFlyweight(Side.BUY, price, quantity);
-            logger.debug("[ORDERBOOK] ASK: Adding order" + marketOrder);
-            if(canMatch(Side.SELL, price)){
-                matchMarketDataOrder(marketOrder);
-            }else{
-                getAskBookSide().addMarketDataOrder(marketOrder);
-            }
+    @Override
+    public void onBidBook(BidBookUpdateDecoder bidBook) {
+        instrumentId = bidBook.instrumentId();
+        int changes = 0;
+        getBidBookSide().beginMarketDataRefresh();
+        for(BidBookUpdateDecoder.BidBookDecoder decoder : bidBook.bidBook()) {
+            changes += refreshMarketDataLevel(Side.BUY, decoder.price(), decoder.size());
         }
+        endMarketDataRefresh(changes + getBidBookSide().endMarketDataRefresh());
     }
 
-    private void addOrMatchBidMarketDataOrders(BidBookUpdateDecoder bidBookUpdateDecoder){
-        for(BidBookUpdateDecoder.BidBookDecoder decoder : bidBookUpdateDecoder.bidBook()) {
-            final long price = decoder.price();
-            final long quantity = decoder.size();
-            var marketOrder = new MarketDataOrderFlyweight(Side.SELL, price, quantity);
-            logger.debug("[ORDERBOOK] ASK: Adding order" + marketOrder);
-            if(canMatch(Side.BUY, price)){
-                matchMarketDataOrder(marketOrder);
-            }else{
-                getBidBookSide().addMarketDataOrder(marketOrder);
-            }
+    /**
+     * @return 1 when the level crossed the book and traded, the side counts the levels it changes itself
+     */
+    private int refreshMarketDataLevel(final Side side, final long price, final long quantity) {
+        if(side.equals(Side.BUY)){
+            getBidBookSide().getPublishedLevels().add(price, quantity);
+        }else{
+            getAskBookSide().getPublishedLevels().add(price, quantity);
+        }
+        if(canMatch(side, price)){
+            final MarketDataOrderFlyweight marketOrder = pool.acquireMarketDataOrder(side, price, quantity);
+            logger.debug("[ORDERBOOK] Matching market data order{}", marketOrder);
+            matchMarketDataOrder(marketOrder);
+            //whatever is left of it doesn't rest
+            pool.releaseMarketDataOrder(marketOrder);
+            return 1;
         }
+        if(side.equals(Side.BUY)){
+            getBidBookSide().refreshMarketDataLevel(price, quantity);
+        }else{
+            getAskBookSide().refreshMarketDataLevel(price, quantity);
+        }
+        return 0;
     }
 
-    private void addOrMatchBidMarketDataOrders(BookUpdateDecoder bookUpdateDecoder){
-        for(BookUpdateDecoder.AskBookDecoder decoder : bookUpdateDecoder.askBook()) {
-            final long price = decoder.price();
-            final long quantity = decoder.size();
-            var marketOrder = new MarketDataOrderFlyweight(Side.SELL, price, quantity);
-            logger.debug("[ORDERBOOK] ASK: Adding order" + marketOrder);
-            if(canMatch(Side.BUY, price)){
-                matchMarketDataOrder(marketOrder);
-            }else{
-                getBidBookSide().addMarketDataOrder(marketOrder);
-            }
+    private void endMarketDataRefresh(final int changes) {
+        lastMarketDataChanges = changes;
+        if(logger.isDebugEnabled()){
+            logger.debug("[ORDERBOOK] Market data refresh changed " + changes + " levels");
         }
     }
 
-    @Override
-    public void onAskBook(AskBookUpdateDecoder askBook) {
-        getAskBookSide().removeMarketDataOrders();
-        addOrMatchAskMarketDataOrders(askBook);
+    /**
+     * @return the number of levels the last market data update added, resized, removed or traded, rather than the
+     * depth of the update
+     */
+    public int getLastMarketDataChanges() {
+        return lastMarketDataChanges;
     }
 
-    @Override
-    public void onBidBook(BidBookUpdateDecoder bidBook) {
-        getBidBookSide().removeMarketDataOrders();
-        addOrMatchBidMarketDataOrders(bidBook);
+    /**
+     * @return the instrument the book publishes as
+     */
+    public long getInstrumentId() {
+        return instrumentId;
     }
 
     public void matchOrder(final LimitOrderFlyweight limit) {
-        final MutatingMatchOneOrderVisitor visitor = new MutatingMatchOneOrderVisitor(limit, orderChannel);
-        if(limit.getSide().equals(Side.BUY)){
-            getAskBookSide().accept(visitor);
-        }else if(limit.getSide().equals(Side.SELL)){
-            getBidBookSide().accept(visitor);
+        final MutatingMatchOneOrderVisitor visitor = matchVisitors.acquire();
+        visitor.setOrderToMatch(limit);
+        try {
+            if (limit.getSide().equals(Side.BUY)) {
+                getAskBookSide().accept(visitor);
+            } else if (limit.getSide().equals(Side.SELL)) {
+                getBidBookSide().accept(visitor);
+            }
+        } finally {
+            matchVisitors.release(visitor);
         }
     }
 
     public void matchMarketDataOrder(final MarketDataOrderFlyweight market) {
-        final MutatingMatchOneMarketDataOrderVisitor visitor = new MutatingMatchOneMarketDataOrderVisitor(market, orderChannel);
-        if(market.getSide().equals(Side.BUY)){
-            getAskBookSide().accept(visitor);
-        }else if(market.getSide().equals(Side.SELL)){
-            getBidBookSide().accept(visitor);
+        final MutatingMatchOneMarketDataOrderVisitor visitor = marketDataMatchVisitors.acquire();
+        visitor.setOrderToMatch(market);
+        try {
+            if (market.getSide().equals(Side.BUY)) {
+                getAskBookSide().accept(visitor);
+            } else if (market.getSide().equals(Side.SELL)) {
+                getBidBookSide().accept(visitor);
+            }
+        } finally {
+            marketDataMatchVisitors.release(visitor);
         }
     }
 
     public void addLiquidity(final LimitOrderFlyweight limit) {
         if(limit.getSide().equals(Side.BUY)){
-            logger.info("[ORDERBOOK] Adding passive limit order to BID book" + limit);
+            logger.info("[ORDERBOOK] Adding passive limit order to BID book{}", limit);
             this.getBidBookSide().addLimitOrder(limit);
         }else{
-            logger.info("A[ORDERBOOK] dding passive limit order to ASK book" + limit);
+            logger.info("A[ORDERBOOK] dding passive limit order to ASK book{}", limit);
             this.getAskBookSide().addLimitOrder(limit);
         }
+        restingOrders.put(limit.getOrderId(), limit);
     }
 
     public void onLimitOrder(final LimitOrderFlyweight limit) {
+        matchOrAddLimitOrder(limit);
+        publishBook();
+    }
+
+    public void onCancelOrder(final long orderIdToCancel){
+        cancelOrder(orderIdToCancel);
+        publishBook();
+    }
+
+    /**
+     * Matches or rests a limit order without publishing the book, so a batch of orders can be published once.
+     */
+    public void matchOrAddLimitOrder(final LimitOrderFlyweight limit) {
         if(canMatch(limit.getSide(), limit.getPrice())){
             matchOrder(limit);
+            //whatever is left of it doesn't rest
+            pool.releaseLimitOrder(limit);
         }else{
             addLiquidity(limit);
         }
+    }
 
-        publishBook();
+    /**
+     * Cancels an order without publishing the book, so a batch of cancels can be published once.
+     */
+    public void cancelOrder(final long orderIdToCancel){
+        if(logger.isInfoEnabled()){
+            logger.info("[ORDERBOOK] Cancelling order (id=:" + orderIdToCancel + ")");
+        }
+        final LimitOrderFlyweight limit = restingOrders.remove(orderIdToCancel);
+        if(limit != null){
+            //as CancelOrderVisitor does, without searching both sides for it
+            logger.info("[ORDERBOOK] Cancelling order: {}", limit);
+            final OrderBookLevel level = limit.getLevel();
+            level.setFirstOrder(limit.remove());
+            level.setQuantity(level.getQuantity() - limit.getQuantity());
+            //an empty level would still be the side's best price, so it goes as a filled out one does
+            if(level.getFirstOrder() == null){
+                final OrderBookSide side = limit.getSide() == Side.BUY ? getBidBookSide() : getAskBookSide();
+                side.setFirstLevel(level.remove());
+                pool.releaseLevel(level);
+            }
+            pool.releaseLimitOrder(limit);
+        }
     }
 
-    public void onCancelOrder(final long orderIdToCancel){
-        logger.info("[ORDERBOOK] Cancelling order (id=:" + orderIdToCancel + ")");
-        var cancelVisitor = new CancelOrderVisitor(orderIdToCancel);
-        getAskBookSide().accept(cancelVisitor);
-        getBidBookSide().accept(cancelVisitor);
-        publishBook();
+    /**
+     * @return the limit order resting in the book with this id, or null
+     */
+    public LimitOrderFlyweight getRestingOrder(final long orderId){
+        return restingOrders.get(orderId);
     }
 
 
+    /**
+     * Publishes the levels changed since the book was last published, or the whole book every snapshotInterval.
+     */
     public void publishBook(){
-        final var messageBuffer = getBookUpdateMessage();
-        marketDataChannel.publish(messageBuffer);
+        if(publishes++ % snapshotInterval == 0){
+            publishSnapshot();
+            return;
+        }
+
+        mktDataDeltaVisitor.start();
+        getBidBookSide().accept(mktDataDeltaVisitor);
+        getAskBookSide().accept(mktDataDeltaVisitor);
+
+        final UnsafeBuffer buffer = publishBuffers.push(mktDataDeltaVisitor.encodedLength());
+        try {
+            marketDataChannel.publish(mktDataDeltaVisitor.encode(buffer, instrumentId));
+        } finally {
+            publishBuffers.pop();
+        }
     }
 
-    public MutableDirectBuffer getBookUpdateMessage(){
+    /**
+     * Publishes the whole book, whatever was published before.
+     */
+    public void publishSnapshot(){
         mktDataVisitor.start();
         getBidBookSide().accept(mktDataVisitor);
         getAskBookSide().accept(mktDataVisitor);
-        return mktDataVisitor.end();
+
+        final UnsafeBuffer buffer = publishBuffers.push(mktDataVisitor.encodedLength());
+        try {
+            marketDataChannel.publish(mktDataVisitor.encode(buffer, instrumentId));
+        } finally {
+            publishBuffers.pop();
+        }
     }
 }
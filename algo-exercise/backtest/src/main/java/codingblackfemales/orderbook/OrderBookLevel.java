@@ -17,6 +17,16 @@ public class OrderBookLevel extends IntrusiveLinkedListNode<OrderBookLevel> {
         super();
     }
 
+    /**
+     * Makes a pooled level a new, empty one at price, out of any list.
+     */
+    public void reset(final long price) {
+        resetLinks();
+        this.price = price;
+        this.quantity = 0;
+        this.firstOrder = null;
+    }
+
     public long getPrice() {
         return price;
     }
@@ -1,19 +1,34 @@
 package codingblackfemales.orderbook;
 
+import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
 import codingblackfemales.orderbook.order.LimitOrderFlyweight;
 import codingblackfemales.orderbook.order.MarketDataOrderFlyweight;
+import codingblackfemales.orderbook.pool.OrderBookPool;
 import codingblackfemales.orderbook.visitor.FilteringOrderBookVisitor;
 import codingblackfemales.orderbook.visitor.MutatingAddOrderVisitor;
 import codingblackfemales.orderbook.visitor.MutatingRemoveAllMarketDataOrdersVisitor;
 import codingblackfemales.orderbook.visitor.OrderBookVisitor;
+import messages.order.Side;
 
-import java.util.Comparator;
-
+/**
+ * One side of the book, levels best price first in an intrusive list which visitors walk and change.
+ *
+ * Built price indexed, a FilteringOrderBookVisitor (one looking for a single price) goes straight to the level at its
+ * price through a PriceLevelIndex, or to the level a new one goes after, instead of walking the list from the top.
+ * Visitors see the same calls either way.
+ *
+ * Market data is refreshed in place: beginMarketDataRefresh, refreshMarketDataLevel for each level of the new book best
+ * price first, then endMarketDataRefresh. Levels whose market data hasn't moved are left as they are.
+ */
 public abstract class OrderBookSide {
+
+    //furthest levelBefore looks through the index for the level ahead of a new one
+    static final long MAX_SCAN_TICKS = 4096;
+
     private OrderBookLevel firstLevel;
-    private final MutatingAddOrderVisitor addOrderVisitor = new MutatingAddOrderVisitor();
+    private final MutatingAddOrderVisitor addOrderVisitor;
 
-    private final MutatingRemoveAllMarketDataOrdersVisitor removeMarketDataOrderVisitor = new MutatingRemoveAllMarketDataOrdersVisitor();
+    private final MutatingRemoveAllMarketDataOrdersVisitor removeMarketDataOrderVisitor;
 
     public boolean canMatch(OrderBookSide side, long quantity, long price){
         return false;
@@ -27,28 +42,65 @@ public abstract class OrderBookSide {
         firstLevel = level;
     }
 
-    private final Comparator<Long> comparator;
+    //bids are best highest first, asks lowest first
+    private final boolean highestFirst;
+
+    //null when the side walks the level list for every price
+    private final PriceLevelIndex index;
+
+    private final OrderBookPool pool;
+
+    //the level the next market data level is compared with during a refresh, and the levels changed so far
+    private OrderBookLevel refreshCursor;
+    private int refreshChanges;
+
+    private final PublishedLevels publishedLevels = new PublishedLevels();
+
+    protected OrderBookSide(final boolean highestFirst) {
+        this(highestFirst, false);
+    }
+
+    protected OrderBookSide(final boolean highestFirst, final boolean priceIndexed) {
+        this(highestFirst, priceIndexed, new OrderBookPool());
+    }
+
+    /**
+     * @param pool where the side's levels and market data orders come from and go back to, shared with the book
+     */
+    protected OrderBookSide(final boolean highestFirst, final boolean priceIndexed, final OrderBookPool pool) {
+        this.highestFirst = highestFirst;
+        this.index = priceIndexed ? new PriceLevelIndex() : null;
+        this.pool = pool;
+        this.addOrderVisitor = new MutatingAddOrderVisitor(pool);
+        this.removeMarketDataOrderVisitor = new MutatingRemoveAllMarketDataOrdersVisitor(pool);
+    }
+
+    public boolean isPriceIndexed() {
+        return index != null;
+    }
+
+    public boolean isHighestFirst() {
+        return highestFirst;
+    }
 
-    protected OrderBookSide(Comparator<Long> comparator) {
-        this.comparator = comparator;
+    public PublishedLevels getPublishedLevels() {
+        return publishedLevels;
     }
 
     public void accept(final OrderBookVisitor visitor){
 
+        if(index != null && visitor instanceof FilteringOrderBookVisitor){
+            acceptAtPrice(visitor, ((FilteringOrderBookVisitor) visitor).getPrice());
+            return;
+        }
+
         visitor.visitSide(this);
 
         var levelToVisit = getFirstLevel();
 
         //are we the first level...
         if(isNewFirstLevel(levelToVisit, visitor)){
-            OrderBookLevel level = visitor.onNoFirstLevel();
-            if(level != null) {
-                if(levelToVisit != null) {
-                    levelToVisit.insertFirst(levelToVisit, level);
-                }
-                setFirstLevel(level);
-                level.accept(visitor, this);
-            }
+            addFirstLevel(visitor, levelToVisit);
             return;
         }else {
             visitOneLevel(visitor, levelToVisit, levelToVisit.next());
@@ -81,6 +133,108 @@ public abstract class OrderBookSide {
         }
     }
 
+    private void addFirstLevel(final OrderBookVisitor visitor, final OrderBookLevel currentFirst) {
+        OrderBookLevel level = visitor.onNoFirstLevel();
+        if(level != null) {
+            if(currentFirst != null) {
+                currentFirst.insertFirst(currentFirst, level);
+            }
+            setFirstLevel(level);
+            if(index != null) {
+                index.put(level.getPrice(), level);
+            }
+            level.accept(visitor, this);
+        }
+    }
+
+    /**
+     * Visits the level at price, or where a level at price would go, as walking the whole side would.
+     */
+    private void acceptAtPrice(final OrderBookVisitor visitor, final long price) {
+        visitor.visitSide(this);
+
+        final OrderBookLevel first = getFirstLevel();
+        if(first == null || compare(price, first.getPrice()) < 0){
+            index.cover(price, first);
+            addFirstLevel(visitor, first);
+            return;
+        }
+
+        index.cover(price, first);
+        if(!index.covers(price)){
+            //the window stays on the touch of a book wider than it, past its edge the side is walked as if unindexed
+            for(OrderBookLevel level = first; level != null; level = level.next()){
+                visitOneLevel(visitor, level, level.next());
+            }
+            return;
+        }
+
+        final OrderBookLevel existing = index.get(price);
+        if(existing != null && isInBook(existing, price)){
+            existing.accept(visitor, this);
+            return;
+        }
+
+        final OrderBookLevel previous = levelBefore(price, first);
+        final OrderBookLevel next = previous.next();
+        final OrderBookLevel level = visitor.missingBookLevel(previous, next, price);
+        if(level == null){
+            return;
+        }
+        if(next == null){
+            previous.last().add(level);
+        }else{
+            previous.insertAfter(previous, level, next);
+        }
+        index.put(price, level);
+        level.accept(visitor, this);
+    }
+
+    /**
+     * @return the level nearest price on its better side, price is worse than first and not in the book
+     */
+    private OrderBookLevel levelBefore(final long price, final OrderBookLevel first) {
+        //every level inside the window is indexed, so the nearest live one towards the touch is the one before price.
+        //The scan skips empty ticks a word at a time, past MAX_SCAN_TICKS the list walk is no worse on a sparse book
+        final long limit = highestFirst ? Math.min(first.getPrice(), price + MAX_SCAN_TICKS)
+                : Math.max(first.getPrice(), price - MAX_SCAN_TICKS);
+        long better = highestFirst ? price + 1 : price - 1;
+        //levels between price and the window's edge aren't indexed, so the scan has to start inside it
+        while(index.covers(better)){
+            final long indexed = highestFirst ? index.indexedAtOrAbove(better, limit) : index.indexedAtOrBelow(better, limit);
+            if(indexed == PriceLevelIndex.NOT_INDEXED){
+                break;
+            }
+            final OrderBookLevel level = index.get(indexed);
+            if(isInBook(level, indexed)){
+                return level;
+            }
+            //nothing live is at a stale entry's price, or it would have been indexed over it
+            index.remove(indexed);
+            better = highestFirst ? indexed + 1 : indexed - 1;
+        }
+        //the levels before price are outside the window or the scan
+        OrderBookLevel previous = first;
+        while(previous.next() != null && compare(previous.next().getPrice(), price) < 0){
+            previous = previous.next();
+        }
+        return previous;
+    }
+
+    //visitors unlink levels without telling the side, and the pool, shared by both sides, can put one back in at
+    //another price or on the other side, so check an indexed level is still linked into this side's list at the price
+    //it was indexed at
+    private boolean isInBook(final OrderBookLevel level, final long price) {
+        return level.getPrice() == price
+                && level.first() == getFirstLevel()
+                && (level == getFirstLevel() || (level.previous() != null && level.previous().next() == level));
+    }
+
+    //negative when price is better than other
+    private int compare(final long price, final long other) {
+        return highestFirst ? Long.compare(other, price) : Long.compare(price, other);
+    }
+
     MutatingAddOrderVisitor getAddOrderVisitor() {
         return addOrderVisitor;
     }
@@ -91,20 +245,126 @@ public abstract class OrderBookSide {
         }
 
         if( visitor instanceof FilteringOrderBookVisitor) {
-            return comparator.compare(((FilteringOrderBookVisitor) visitor).getPrice(), currentFirst.getPrice()) == -1;
+            return compare(((FilteringOrderBookVisitor) visitor).getPrice(), currentFirst.getPrice()) < 0;
         } else {
             return false;
         }
     }
 
     boolean isBetweenLevels(OrderBookLevel previous, OrderBookLevel next, long price){
-        return previous != null && next != null && comparator.compare(previous.getPrice(), price) == -1 && comparator.compare(next.getPrice() , price) == 1;
+        return previous != null && next != null && compare(previous.getPrice(), price) < 0 && compare(next.getPrice() , price) > 0;
     }
 
     boolean isNewDeepestLevel(OrderBookLevel previous, OrderBookLevel next, long price){
-        return previous != null && next == null && comparator.compare(previous.getPrice(), price) == -1;
+        return previous != null && next == null && compare(previous.getPrice(), price) < 0;
+    }
+
+
+    /**
+     * Readers see the market data update itself, so the levels it carries are what they last saw of the side, the
+     * caller adds them to the PublishedLevels as it goes.
+     */
+    void beginMarketDataRefresh(){
+        refreshCursor = getFirstLevel();
+        refreshChanges = 0;
+        publishedLevels.clear();
+    }
+
+    /**
+     * Makes the market data at price quantity. Levels between the last price refreshed and this one have left the
+     * market data book, so their market data goes. Levels are expected best price first, one out of order is added as
+     * a new market data order at its price.
+     */
+    void refreshMarketDataLevel(final long price, final long quantity){
+        while(refreshCursor != null && compare(refreshCursor.getPrice(), price) < 0){
+            final OrderBookLevel next = refreshCursor.next();
+            removeMarketData(refreshCursor);
+            refreshCursor = next;
+        }
+
+        if(refreshCursor != null && refreshCursor.getPrice() == price){
+            resizeMarketData(refreshCursor, quantity);
+            refreshCursor = refreshCursor.next();
+        }else{
+            //goes in before the cursor, or at the same price again it goes behind the market data already there
+            addMarketDataOrder(pool.acquireMarketDataOrder(highestFirst ? Side.BUY : Side.SELL, price, quantity));
+            refreshChanges++;
+        }
     }
 
+    /**
+     * @return the number of levels added, resized or taken out of the market data since beginMarketDataRefresh
+     */
+    int endMarketDataRefresh(){
+        while(refreshCursor != null){
+            final OrderBookLevel next = refreshCursor.next();
+            removeMarketData(refreshCursor);
+            refreshCursor = next;
+        }
+        return refreshChanges;
+    }
+
+    //keeps the first market data order in the level, where it is in the queue, at the new quantity
+    private void resizeMarketData(final OrderBookLevel level, final long quantity){
+        MarketDataOrderFlyweight marketData = null;
+        boolean changed = false;
+        DefaultOrderFlyweight order = level.getFirstOrder();
+        while(order != null){
+            final DefaultOrderFlyweight next = order.next();
+            if(order instanceof MarketDataOrderFlyweight){
+                if(marketData == null){
+                    marketData = (MarketDataOrderFlyweight) order;
+                }else{
+                    removeMarketDataOrder(level, (MarketDataOrderFlyweight) order);
+                    changed = true;
+                }
+            }
+            order = next;
+        }
+
+        if(marketData == null){
+            addMarketDataOrder(pool.acquireMarketDataOrder(highestFirst ? Side.BUY : Side.SELL, level.getPrice(), quantity));
+            changed = true;
+        }else if(marketData.getQuantity() != quantity){
+            level.setQuantity(level.getQuantity() + quantity - marketData.getQuantity());
+            marketData.setQuantity(quantity);
+            changed = true;
+        }
+
+        if(changed){
+            refreshChanges++;
+        }
+    }
+
+    //takes the market data out of a level and the level out of the side when nothing else rests there
+    private void removeMarketData(final OrderBookLevel level){
+        boolean changed = false;
+        DefaultOrderFlyweight order = level.getFirstOrder();
+        while(order != null){
+            final DefaultOrderFlyweight next = order.next();
+            if(order instanceof MarketDataOrderFlyweight){
+                removeMarketDataOrder(level, (MarketDataOrderFlyweight) order);
+                changed = true;
+            }
+            order = next;
+        }
+
+        if(level.getFirstOrder() == null){
+            setFirstLevel(level.remove());
+            pool.releaseLevel(level);
+            changed = true;
+        }
+
+        if(changed){
+            refreshChanges++;
+        }
+    }
+
+    private void removeMarketDataOrder(final OrderBookLevel level, final MarketDataOrderFlyweight order){
+        level.setFirstOrder(order.remove());
+        level.setQuantity(level.getQuantity() - order.getQuantity());
+        pool.releaseMarketDataOrder(order);
+    }
 
     void removeMarketDataOrders(){
         this.accept(removeMarketDataOrderVisitor);
@@ -0,0 +1,156 @@
+package codingblackfemales.orderbook;
+
+import java.util.Arrays;
+
+/**
+ * The levels of one side of the book by price, in an array indexed by tick over a window of prices around the
+ * levels in the book, so finding the level at a price is an array read rather than a walk down the level list.
+ *
+ * Visitors remove levels from the list directly, so entries can go stale, the side checks a level is still in the
+ * list before using it. Every level in the list whose price is inside the window is in the index: when the window
+ * has to move to cover a new price it is rebuilt from the list.
+ *
+ * A bitmap marks the ticks with a level indexed at them, so the nearest level to a price is found a word of 64 ticks
+ * at a time rather than reading every empty tick in between.
+ */
+final class PriceLevelIndex {
+
+    static final int DEFAULT_MAX_WINDOW = 1 << 16;
+    static final long NOT_INDEXED = Long.MIN_VALUE;
+
+    private final int maxWindow;
+
+    private OrderBookLevel[] levels;
+    //bit per tick of the window, set where levels has an entry
+    private long[] indexed;
+    //price of the level at index 0
+    private long base;
+    private boolean hasWindow = false;
+
+    PriceLevelIndex() {
+        this(64, DEFAULT_MAX_WINDOW);
+    }
+
+    /**
+     * @param initialWindow number of ticks covered to start with, a power of two
+     * @param maxWindow the most ticks the window grows to, past that it is moved instead
+     */
+    PriceLevelIndex(final int initialWindow, final int maxWindow) {
+        this.levels = new OrderBookLevel[initialWindow];
+        this.indexed = new long[words(initialWindow)];
+        this.maxWindow = Math.max(initialWindow, maxWindow);
+    }
+
+    boolean covers(final long price) {
+        return hasWindow && price >= base && price - base < levels.length;
+    }
+
+    OrderBookLevel get(final long price) {
+        return covers(price) ? levels[(int) (price - base)] : null;
+    }
+
+    void put(final long price, final OrderBookLevel level) {
+        if (covers(price)) {
+            final int tick = (int) (price - base);
+            levels[tick] = level;
+            if (level != null) {
+                indexed[tick >>> 6] |= 1L << tick;
+            } else {
+                indexed[tick >>> 6] &= ~(1L << tick);
+            }
+        }
+    }
+
+    /**
+     * @return the lowest price from price up to highest with a level indexed at it, or NOT_INDEXED
+     */
+    long indexedAtOrAbove(final long price, final long highest) {
+        final long from = Math.max(price, base) - base;
+        final long to = Math.min(highest, base + levels.length - 1) - base;
+        if (!hasWindow || from > to) {
+            return NOT_INDEXED;
+        }
+
+        int word = (int) (from >>> 6);
+        long bits = indexed[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word > (int) (to >>> 6)) {
+                return NOT_INDEXED;
+            }
+            bits = indexed[word];
+        }
+        final long tick = ((long) word << 6) + Long.numberOfTrailingZeros(bits);
+        return tick <= to ? base + tick : NOT_INDEXED;
+    }
+
+    /**
+     * @return the highest price from price down to lowest with a level indexed at it, or NOT_INDEXED
+     */
+    long indexedAtOrBelow(final long price, final long lowest) {
+        final long from = Math.min(price, base + levels.length - 1) - base;
+        final long to = Math.max(lowest, base) - base;
+        if (!hasWindow || from < to) {
+            return NOT_INDEXED;
+        }
+
+        int word = (int) (from >>> 6);
+        long bits = indexed[word] & (-1L >>> (63 - (from & 63)));
+        while (bits == 0) {
+            if (--word < (int) (to >>> 6)) {
+                return NOT_INDEXED;
+            }
+            bits = indexed[word];
+        }
+        final long tick = ((long) word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+        return tick >= to ? base + tick : NOT_INDEXED;
+    }
+
+    void remove(final long price) {
+        put(price, null);
+    }
+
+    /**
+     * Grows or moves the window so it covers price, then re-indexes the levels in the list from firstLevel. When the
+     * window can't reach price and the touch together it stays on the touch, and price is left to the list.
+     */
+    void cover(final long price, final OrderBookLevel firstLevel) {
+        if (covers(price)) {
+            return;
+        }
+
+        final long low = hasWindow ? Math.min(base, price) : price;
+        final long high = hasWindow ? Math.max(base + levels.length - 1, price) : price;
+        final long span = high - low + 1;
+
+        //a book wider than the window would otherwise move it, and re-index every level, for each order past its edge
+        final boolean onTouch = firstLevel != null && covers(firstLevel.getPrice());
+        if (span > maxWindow && onTouch) {
+            return;
+        }
+
+        int length = levels.length;
+        while (length < span && length < maxWindow) {
+            length <<= 1;
+        }
+
+        if (length == levels.length) {
+            Arrays.fill(levels, null);
+            Arrays.fill(indexed, 0L);
+        } else {
+            levels = new OrderBookLevel[length];
+            indexed = new long[words(length)];
+        }
+        //leave the spare ticks either side, the book moves both ways. If it can't span both, follow the touch.
+        final long centre = firstLevel != null ? firstLevel.getPrice() : price;
+        base = span <= length ? low - (length - span) / 2 : centre - length / 2;
+        hasWindow = true;
+
+        for (OrderBookLevel level = firstLevel; level != null; level = level.next()) {
+            put(level.getPrice(), level);
+        }
+    }
+
+    private static int words(final int ticks) {
+        return (ticks + 63) >>> 6;
+    }
+}
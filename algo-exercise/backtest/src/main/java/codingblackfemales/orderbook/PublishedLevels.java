@@ -0,0 +1,58 @@
+package codingblackfemales.orderbook;
+
+/**
+ * The levels of one side as whoever reads the book's market data last saw them, best price first, so the next update
+ * can carry only what has changed since. Held as prices and quantities rather than levels, the levels themselves go
+ * back to the pool and are reused.
+ */
+public class PublishedLevels {
+
+    private long[] prices = new long[16];
+    private long[] quantities = new long[16];
+    private int length = 0;
+
+    public void clear() {
+        length = 0;
+    }
+
+    /**
+     * Adds a level worse than those already added.
+     */
+    public void add(final long price, final long quantity) {
+        if (length == prices.length) {
+            final long[] grownPrices = new long[length * 2];
+            final long[] grownQuantities = new long[length * 2];
+            System.arraycopy(prices, 0, grownPrices, 0, length);
+            System.arraycopy(quantities, 0, grownQuantities, 0, length);
+            prices = grownPrices;
+            quantities = grownQuantities;
+        }
+        prices[length] = price;
+        quantities[length] = quantity;
+        length++;
+    }
+
+    /**
+     * Replaces the levels with those of the side that have any quantity, an empty level isn't published.
+     */
+    public void copyOf(final OrderBookSide side) {
+        clear();
+        for (OrderBookLevel level = side.getFirstLevel(); level != null; level = level.next()) {
+            if (level.getQuantity() > 0) {
+                add(level.getPrice(), level.getQuantity());
+            }
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public long getPrice(final int i) {
+        return prices[i];
+    }
+
+    public long getQuantity(final int i) {
+        return quantities[i];
+    }
+}
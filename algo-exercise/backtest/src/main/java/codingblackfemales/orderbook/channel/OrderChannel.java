@@ -2,31 +2,33 @@ package codingblackfemales.orderbook.channel;
 
 import codingblackfemales.orderbook.order.LimitOrderFlyweight;
 import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.util.BufferStack;
 import messages.order.FillOrderEncoder;
 import messages.order.MessageHeaderEncoder;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
-
 public class OrderChannel {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderChannel.class);
 
     private final Sequencer sequencer;
 
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final FillOrderEncoder fillEncoder = new FillOrderEncoder();
+
+    //a fill can be published while another is still being dispatched, so each level of nesting gets its own buffer
+    private final BufferStack buffers = new BufferStack(1024, 4);
+
     public OrderChannel(Sequencer sequencer) {
         this.sequencer = sequencer;
     }
 
     public void publishFill(final long fillQuantity, final long price, final LimitOrderFlyweight limit){
 
-        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
-        final UnsafeBuffer directBuffer = new UnsafeBuffer(byteBuffer);
-        final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+        final UnsafeBuffer directBuffer = buffers.push();
 
-        final FillOrderEncoder fillEncoder = new FillOrderEncoder();
         //write the encoded output to the direct buffer
         fillEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
 
@@ -35,9 +37,13 @@ public class OrderChannel {
         fillEncoder.quantity(fillQuantity);
         fillEncoder.price(price);
 
-        logger.info("[ORDERBOOK] publishing fill to stream: " + fillEncoder);
+        logger.info("[ORDERBOOK] publishing fill to stream: {}", fillEncoder);
 
-        this.sequencer.onCommand(directBuffer);
+        try {
+            this.sequencer.onCommand(directBuffer);
+        } finally {
+            buffers.pop();
+        }
     }
 
 }
@@ -1,7 +1,6 @@
 package codingblackfemales.orderbook.consumer;
 
 import codingblackfemales.orderbook.OrderBook;
-import codingblackfemales.orderbook.order.LimitOrderFlyweight;
 import codingblackfemales.sequencer.event.OrderEventListener;
 import messages.order.*;
 import org.slf4j.Logger;
@@ -19,7 +18,7 @@ public class OrderBookInboundOrderConsumer extends OrderEventListener {
 
     @Override
     public void onCreateOrder(CreateOrderDecoder create) {
-        final var limit = new LimitOrderFlyweight(create.side(), create.price(), create.quantity(), create.orderId());
+        final var limit = book.getPool().acquireLimitOrder(create.side(), create.price(), create.quantity(), create.orderId());
         //logger.info("Adding limit Order:" + limit + " to book");
         book.onLimitOrder(limit);
     }
@@ -53,4 +52,17 @@ public class OrderBookInboundOrderConsumer extends OrderEventListener {
     public void onFill(FillOrderDecoder fill) {
 
     }
+
+    @Override
+    public void onOrderBatch(OrderBatchDecoder batch) {
+        for (OrderBatchDecoder.OrdersDecoder order : batch.orders()) {
+            if (order.action() == OrderBatchAction.CREATE) {
+                book.matchOrAddLimitOrder(book.getPool().acquireLimitOrder(order.side(), order.price(), order.quantity(), order.orderId()));
+            } else {
+                book.cancelOrder(order.orderId());
+            }
+        }
+        //one book update for the whole batch
+        book.publishBook();
+    }
 }
@@ -1,5 +1,6 @@
 package codingblackfemales.orderbook.order;
 
+import codingblackfemales.orderbook.OrderBookLevel;
 import messages.order.Side;
 
 public class LimitOrderFlyweight extends DefaultOrderFlyweight {
@@ -9,6 +10,9 @@ public class LimitOrderFlyweight extends DefaultOrderFlyweight {
     private long quantity;
     private long orderId;
 
+    //the level the order rests in, once it has been added to the book
+    private OrderBookLevel level;
+
     public LimitOrderFlyweight(Side side, long price, long quantity, long orderId) {
         this.side = side;
         this.price = price;
@@ -16,6 +20,18 @@ public class LimitOrderFlyweight extends DefaultOrderFlyweight {
         this.orderId = orderId;
     }
 
+    /**
+     * Makes a pooled order a new one, out of any list and without a level.
+     */
+    public void reset(Side side, long price, long quantity, long orderId) {
+        resetLinks();
+        this.side = side;
+        this.price = price;
+        this.quantity = quantity;
+        this.orderId = orderId;
+        this.level = null;
+    }
+
     public Side getSide() {
         return side;
     }
@@ -38,6 +54,14 @@ public class LimitOrderFlyweight extends DefaultOrderFlyweight {
         return orderId;
     }
 
+    public OrderBookLevel getLevel() {
+        return level;
+    }
+
+    public void setLevel(OrderBookLevel level) {
+        this.level = level;
+    }
+
     @Override
     public String toString() {
         return "Limit(side="+side+",orderId="+orderId+",price="+price+",quantity="+quantity+")";
@@ -14,6 +14,16 @@ public class MarketDataOrderFlyweight extends DefaultOrderFlyweight {
         this.quantity = quantity;
     }
 
+    /**
+     * Makes a pooled order a new one, out of any list.
+     */
+    public void reset(Side side, long price, long quantity) {
+        resetLinks();
+        this.side = side;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
     @Override
     public Side getSide() {
         return side;
@@ -0,0 +1,62 @@
+package codingblackfemales.orderbook.pool;
+
+import java.util.function.Supplier;
+
+/**
+ * A free list of objects for reuse. Acquire takes the most recently released one, or creates one when there are none,
+ * so once the pool has grown to what the book needs at its busiest it stops allocating.
+ *
+ * Nothing is reset on release, the caller resets what it acquires. An object released twice would be handed out
+ * twice, so release it only from the one place that owns it.
+ */
+public class ObjectPool<T> {
+
+    private final Supplier<T> factory;
+
+    private Object[] free;
+    private int size = 0;
+    private long created = 0;
+
+    public ObjectPool(final Supplier<T> factory) {
+        this(factory, 16);
+    }
+
+    public ObjectPool(final Supplier<T> factory, final int initialCapacity) {
+        this.factory = factory;
+        this.free = new Object[Math.max(1, initialCapacity)];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (size == 0) {
+            created++;
+            return factory.get();
+        }
+        final T object = (T) free[--size];
+        free[size] = null;
+        return object;
+    }
+
+    public void release(final T object) {
+        if (size == free.length) {
+            final Object[] grown = new Object[free.length * 2];
+            System.arraycopy(free, 0, grown, 0, free.length);
+            free = grown;
+        }
+        free[size++] = object;
+    }
+
+    /**
+     * @return the number of objects waiting to be reused
+     */
+    public int available() {
+        return size;
+    }
+
+    /**
+     * @return the number of objects the pool has had to create
+     */
+    public long created() {
+        return created;
+    }
+}
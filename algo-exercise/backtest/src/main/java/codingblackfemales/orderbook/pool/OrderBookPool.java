@@ -0,0 +1,58 @@
+package codingblackfemales.orderbook.pool;
+
+import codingblackfemales.orderbook.OrderBookLevel;
+import codingblackfemales.orderbook.order.LimitOrderFlyweight;
+import codingblackfemales.orderbook.order.MarketDataOrderFlyweight;
+import messages.order.Side;
+
+/**
+ * The levels and orders of one book, shared by its sides and visitors. Whatever takes a level or order out of the book
+ * releases it here and whatever puts one in acquires it here, so a long backtest reuses the same few objects rather
+ * than leaving one behind for every update and order.
+ */
+public class OrderBookPool {
+
+    private final ObjectPool<OrderBookLevel> levels = new ObjectPool<>(OrderBookLevel::new);
+    private final ObjectPool<MarketDataOrderFlyweight> marketDataOrders = new ObjectPool<>(() -> new MarketDataOrderFlyweight(null, 0, 0));
+    private final ObjectPool<LimitOrderFlyweight> limitOrders = new ObjectPool<>(() -> new LimitOrderFlyweight(null, 0, 0, 0));
+
+    public OrderBookLevel acquireLevel(final long price) {
+        final OrderBookLevel level = levels.acquire();
+        level.reset(price);
+        return level;
+    }
+
+    /**
+     * Only release a level with no orders left in it, a resting limit order keeps a reference to its level.
+     */
+    public void releaseLevel(final OrderBookLevel level) {
+        levels.release(level);
+    }
+
+    public MarketDataOrderFlyweight acquireMarketDataOrder(final Side side, final long price, final long quantity) {
+        final MarketDataOrderFlyweight order = marketDataOrders.acquire();
+        order.reset(side, price, quantity);
+        return order;
+    }
+
+    public void releaseMarketDataOrder(final MarketDataOrderFlyweight order) {
+        marketDataOrders.release(order);
+    }
+
+    public LimitOrderFlyweight acquireLimitOrder(final Side side, final long price, final long quantity, final long orderId) {
+        final LimitOrderFlyweight order = limitOrders.acquire();
+        order.reset(side, price, quantity, orderId);
+        return order;
+    }
+
+    public void releaseLimitOrder(final LimitOrderFlyweight order) {
+        limitOrders.release(order);
+    }
+
+    /**
+     * @return the number of levels and orders the pool has had to create, flat once the book reaches a steady state
+     */
+    public long created() {
+        return levels.created() + marketDataOrders.created() + limitOrders.created();
+    }
+}
@@ -3,7 +3,9 @@ package codingblackfemales.orderbook.visitor;
 import codingblackfemales.orderbook.OrderBookLevel;
 import codingblackfemales.orderbook.OrderBookSide;
 import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
+import codingblackfemales.orderbook.order.LimitOrderFlyweight;
 import codingblackfemales.orderbook.order.Order;
+import codingblackfemales.orderbook.pool.OrderBookPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,6 +15,17 @@ public class MutatingAddOrderVisitor implements OrderBookVisitor,FilteringOrderB
 
     private DefaultOrderFlyweight orderToAdd;
 
+    //new levels come from the book's pool
+    private final OrderBookPool pool;
+
+    public MutatingAddOrderVisitor() {
+        this(new OrderBookPool());
+    }
+
+    public MutatingAddOrderVisitor(final OrderBookPool pool) {
+        this.pool = pool;
+    }
+
     public Order getOrderToAdd() {
         return orderToAdd;
     }
@@ -27,12 +40,15 @@ public class MutatingAddOrderVisitor implements OrderBookVisitor,FilteringOrderB
     @Override
     public void visitLevel(OrderBookSide side, OrderBookLevel level) {
         level.setQuantity(level.getQuantity() + orderToAdd.getQuantity());
+        if(orderToAdd instanceof LimitOrderFlyweight){
+            ((LimitOrderFlyweight) orderToAdd).setLevel(level);
+        }
     }
 
     @Override
     public void visitOrder(DefaultOrderFlyweight order, OrderBookSide side, OrderBookLevel level, boolean isLast) {
         if(order.getPrice() == orderToAdd.getPrice() && isLast){
-            logger.info("[ORDERBOOK] + " +order);
+            logger.info("[ORDERBOOK] + {}", order);
             order.add(orderToAdd);
         }
     }
@@ -44,17 +60,12 @@ public class MutatingAddOrderVisitor implements OrderBookVisitor,FilteringOrderB
 
     @Override
     public OrderBookLevel missingBookLevel(OrderBookLevel previous, OrderBookLevel next, long price) {
-        OrderBookLevel level = new OrderBookLevel();
-        level.setPrice(price);
-        return level;
+        return pool.acquireLevel(price);
     }
 
     @Override
     public OrderBookLevel onNoFirstLevel() {
-        OrderBookLevel level = new OrderBookLevel();
-        level.setPrice(orderToAdd.getPrice());
-        level.setQuantity(0);
-        return level;
+        return pool.acquireLevel(orderToAdd.getPrice());
     }
 
     @Override
@@ -1,11 +1,13 @@
 package codingblackfemales.orderbook.visitor;
 
+import codingblackfemales.collection.extrusive.LongToObjMap;
 import codingblackfemales.orderbook.OrderBookLevel;
 import codingblackfemales.orderbook.OrderBookSide;
 import codingblackfemales.orderbook.channel.OrderChannel;
 import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
 import codingblackfemales.orderbook.order.LimitOrderFlyweight;
 import codingblackfemales.orderbook.order.MarketDataOrderFlyweight;
+import codingblackfemales.orderbook.pool.OrderBookPool;
 import messages.order.Side;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,18 +16,41 @@ public class MutatingMatchOneMarketDataOrderVisitor implements OrderBookVisitor{
 
     private static final Logger logger = LoggerFactory.getLogger(MutatingMatchOneMarketDataOrderVisitor.class);
 
-    private final MarketDataOrderFlyweight orderToMatch;
+    private MarketDataOrderFlyweight orderToMatch;
     private long filledQuantity;
     private long remainingQuantity;
     private boolean isFullyFilled = false;
 
     private final OrderChannel orderChannel;
 
+    //resting limit orders by id, kept up to date as this takes them out of the book
+    private final LongToObjMap<LimitOrderFlyweight> restingOrders;
+
+    //the orders and levels this fills out of the book go back to the book's pool
+    private final OrderBookPool pool;
+
     public MutatingMatchOneMarketDataOrderVisitor(final MarketDataOrderFlyweight orderToMatch, final OrderChannel orderChannel) {
+        this(orderToMatch, orderChannel, null);
+    }
+
+    public MutatingMatchOneMarketDataOrderVisitor(final MarketDataOrderFlyweight orderToMatch, final OrderChannel orderChannel, final LongToObjMap<LimitOrderFlyweight> restingOrders) {
+        this(orderChannel, restingOrders, new OrderBookPool());
+        setOrderToMatch(orderToMatch);
+    }
+
+    /**
+     * A visitor to be reused, set the order to match before each visit.
+     */
+    public MutatingMatchOneMarketDataOrderVisitor(final OrderChannel orderChannel, final LongToObjMap<LimitOrderFlyweight> restingOrders, final OrderBookPool pool) {
+        this.orderChannel = orderChannel;
+        this.restingOrders = restingOrders;
+        this.pool = pool;
+    }
+
+    public void setOrderToMatch(final MarketDataOrderFlyweight orderToMatch) {
         this.filledQuantity = 0;
         this.orderToMatch = orderToMatch;
         this.remainingQuantity = orderToMatch.getQuantity();
-        this.orderChannel = orderChannel;
     }
 
     @Override
@@ -33,23 +58,26 @@ public class MutatingMatchOneMarketDataOrderVisitor implements OrderBookVisitor{
 
     @Override
     public void visitLevel(OrderBookSide side, OrderBookLevel level) {
-        logger.info("[ORDERBOOK] visiting Level" + level);
+        logger.info("[ORDERBOOK] visiting Level{}", level);
     }
 
     @Override
     public void visitOrder(DefaultOrderFlyweight order, OrderBookSide side, OrderBookLevel level, boolean isLast) {
         if(canMatchOrder(order)){
-            logger.info("[ORDERBOOK] Have found order we can match:" + order + "(" + orderToMatch + ")");
+            logger.info("[ORDERBOOK] Have found order we can match:{}({})", order, orderToMatch);
             //if we can take all the order...
             if(remainingQuantity >= order.getQuantity()){
                 long fillQuantity = order.getQuantity();
                 remainingQuantity -= fillQuantity;
                 filledQuantity += fillQuantity;
                 level.setFirstOrder(order.remove());
+                //out of the index before the fill goes out, in case whoever gets it cancels the order
+                final boolean wasResting = removeResting(order);
+                level.setQuantity(level.getQuantity() - fillQuantity);
                 if(order instanceof LimitOrderFlyweight){
-                    logger.info("Filled:" + fillQuantity + "@" + orderToMatch.getPrice());
                     publishFill(fillQuantity, orderToMatch.getPrice(),(LimitOrderFlyweight) order);
                 }
+                releaseFilled(order, wasResting);
             //if we can only take a nibble...
             }else if(remainingQuantity < order.getQuantity()){
                 long fillQuantity = remainingQuantity;
@@ -57,22 +85,39 @@ public class MutatingMatchOneMarketDataOrderVisitor implements OrderBookVisitor{
                 remainingQuantity -= fillQuantity;
                 filledQuantity += fillQuantity;
                 order.setQuantity(remainingQty);
+                level.setQuantity(level.getQuantity() - fillQuantity);
                 if(order instanceof LimitOrderFlyweight){
-                    logger.info("Filled:" + fillQuantity + "@" + orderToMatch.getPrice());
                     publishFill(fillQuantity, orderToMatch.getPrice(), (LimitOrderFlyweight) order);
                 }
             }
         }else{
-            logger.info("[ORDERBOOK] Can't match order:" + order + "(" + orderToMatch + ")");
+            logger.info("[ORDERBOOK] Can't match order:{}({})", order, orderToMatch);
+        }
+    }
+
+    private boolean removeResting(final DefaultOrderFlyweight order){
+        return restingOrders != null && order instanceof LimitOrderFlyweight
+                && restingOrders.remove(((LimitOrderFlyweight) order).getOrderId()) != null;
+    }
+
+    //once the fill is published the book is done with an order it has taken all of
+    private void releaseFilled(final DefaultOrderFlyweight order, final boolean wasResting){
+        if(order instanceof MarketDataOrderFlyweight){
+            pool.releaseMarketDataOrder((MarketDataOrderFlyweight) order);
+        }else if(wasResting){
+            pool.releaseLimitOrder((LimitOrderFlyweight) order);
         }
     }
 
     private boolean canMatchOrder(final DefaultOrderFlyweight order){
-        return priceIsEqualOrMoreAggressive(order, this.orderToMatch);
+        //once filled, a zero fill would take the level out of the book a second time
+        return remainingQuantity > 0 && priceIsEqualOrMoreAggressive(order, this.orderToMatch);
     }
 
     private void publishFill(final long quantity, final long price, LimitOrderFlyweight orderFlyweight){
-        logger.info("[ORDERBOOK] Filled " + quantity + "@" + price + " for order:" + orderFlyweight);
+        if(logger.isInfoEnabled()){
+            logger.info("[ORDERBOOK] Filled " + quantity + "@" + price + " for order:" + orderFlyweight);
+        }
         orderChannel.publishFill(quantity, price, orderFlyweight);
     }
 
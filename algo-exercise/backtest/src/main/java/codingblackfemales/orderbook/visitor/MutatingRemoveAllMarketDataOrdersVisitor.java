@@ -4,6 +4,7 @@ import codingblackfemales.orderbook.OrderBookLevel;
 import codingblackfemales.orderbook.OrderBookSide;
 import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
 import codingblackfemales.orderbook.order.MarketDataOrderFlyweight;
+import codingblackfemales.orderbook.pool.OrderBookPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,6 +12,17 @@ public class MutatingRemoveAllMarketDataOrdersVisitor implements OrderBookVisito
 
     private static final Logger logger = LoggerFactory.getLogger(MutatingRemoveAllMarketDataOrdersVisitor.class);
 
+    //the orders and emptied levels taken out go back to the book's pool
+    private final OrderBookPool pool;
+
+    public MutatingRemoveAllMarketDataOrdersVisitor() {
+        this(new OrderBookPool());
+    }
+
+    public MutatingRemoveAllMarketDataOrdersVisitor(final OrderBookPool pool) {
+        this.pool = pool;
+    }
+
     @Override
     public void visitLevel(OrderBookSide side, OrderBookLevel level) {}
 
@@ -19,12 +31,16 @@ public class MutatingRemoveAllMarketDataOrdersVisitor implements OrderBookVisito
         if(order instanceof MarketDataOrderFlyweight){
             DefaultOrderFlyweight newFirst = order.remove();
             level.setFirstOrder(newFirst);
-            logger.info("[ORDERBOOK] Removing market data order:" + order);
+            logger.info("[ORDERBOOK] Removing market data order:{}", order);
             if(level.getQuantity() - order.getQuantity() == 0){
-                logger.info("[ORDERBOOK] Removing level:" + level.getPrice());
+                logger.info("[ORDERBOOK] Removing level:{}", level);
                 OrderBookLevel newFirstLevel = level.remove();
                 side.setFirstLevel(newFirstLevel);
+                if(newFirst == null){
+                    pool.releaseLevel(level);
+                }
             }
+            pool.releaseMarketDataOrder((MarketDataOrderFlyweight) order);
         }
     }
 
@@ -0,0 +1,170 @@
+package codingblackfemales.orderbook.visitor;
+
+import codingblackfemales.orderbook.OrderBookLevel;
+import codingblackfemales.orderbook.OrderBookSide;
+import codingblackfemales.orderbook.PublishedLevels;
+import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
+import messages.marketdata.BookLevelUpdateEncoder;
+import messages.marketdata.LevelUpdateAction;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import org.agrona.MutableDirectBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the levels which changed since the book was last published, a BookLevelUpdate. Visiting a side compares it
+ * with its PublishedLevels, both best price first, and notes each level that is new, has a new quantity or has gone,
+ * then makes the side's levels the PublishedLevels for next time. Levels with no quantity left count as gone.
+ *
+ * The buffer is the caller's, sized from encodedLength.
+ */
+public class ReadOnlyMarketDataChannelDeltaPublishVisitor implements OrderBookVisitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadOnlyMarketDataChannelDeltaPublishVisitor.class);
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookLevelUpdateEncoder encoder = new BookLevelUpdateEncoder();
+
+    private final LevelChanges bidChanges = new LevelChanges();
+    private final LevelChanges askChanges = new LevelChanges();
+
+    public void start(){
+        bidChanges.clear();
+        askChanges.clear();
+    }
+
+    /**
+     * @return the number of levels changed on the sides visited since start
+     */
+    public int changes(){
+        return bidChanges.length + askChanges.length;
+    }
+
+    /**
+     * @return the number of bytes encode will write for the sides visited
+     */
+    public int encodedLength(){
+        return MessageHeaderEncoder.ENCODED_LENGTH + BookLevelUpdateEncoder.BLOCK_LENGTH
+                + BookLevelUpdateEncoder.BidLevelsEncoder.sbeHeaderSize() + bidChanges.length * BookLevelUpdateEncoder.BidLevelsEncoder.sbeBlockLength()
+                + BookLevelUpdateEncoder.AskLevelsEncoder.sbeHeaderSize() + askChanges.length * BookLevelUpdateEncoder.AskLevelsEncoder.sbeBlockLength();
+    }
+
+    /**
+     * @param instrumentId the instrument the book is for, from the market data it was last given
+     */
+    public MutableDirectBuffer encode(final MutableDirectBuffer buffer, final long instrumentId){
+        encoder.wrapAndApplyHeader(buffer, 0, headerEncoder);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(instrumentId);
+        encoder.source(Source.ORDERBOOK);
+
+        final var bidLevelsEncoder = encoder.bidLevelsCount(bidChanges.length);
+        for(int i = 0; i < bidChanges.length; i++){
+            if(logger.isDebugEnabled()){
+                logger.debug("Adding Mkt Data Msg BID " + bidChanges.actions[i] + ": Price=" + bidChanges.prices[i] + " Qty=" + bidChanges.quantities[i]);
+            }
+            bidLevelsEncoder.next().action(bidChanges.actions[i]).price(bidChanges.prices[i]).size(bidChanges.quantities[i]);
+        }
+
+        final var askLevelsEncoder = encoder.askLevelsCount(askChanges.length);
+        for(int i = 0; i < askChanges.length; i++){
+            if(logger.isDebugEnabled()){
+                logger.debug("Adding Mkt Data Msg ASK " + askChanges.actions[i] + ": Price=" + askChanges.prices[i] + " Qty=" + askChanges.quantities[i]);
+            }
+            askLevelsEncoder.next().action(askChanges.actions[i]).price(askChanges.prices[i]).size(askChanges.quantities[i]);
+        }
+
+        return buffer;
+    }
+
+    @Override
+    public void visitLevel(OrderBookSide side, OrderBookLevel level) {}
+
+    @Override
+    public void visitSide(OrderBookSide side) {
+        final LevelChanges changes = side.isHighestFirst() ? bidChanges : askChanges;
+        final PublishedLevels published = side.getPublishedLevels();
+
+        changes.clear();
+        int i = 0;
+        OrderBookLevel level = nonEmpty(side.getFirstLevel());
+        while(i < published.length() || level != null){
+            if(level == null || (i < published.length() && isBetter(side, published.getPrice(i), level.getPrice()))){
+                changes.add(LevelUpdateAction.DELETE, published.getPrice(i), 0);
+                i++;
+            }else if(i == published.length() || level.getPrice() != published.getPrice(i)){
+                changes.add(LevelUpdateAction.NEW, level.getPrice(), level.getQuantity());
+                level = nonEmpty(level.next());
+            }else{
+                if(level.getQuantity() != published.getQuantity(i)){
+                    changes.add(LevelUpdateAction.CHANGE, level.getPrice(), level.getQuantity());
+                }
+                i++;
+                level = nonEmpty(level.next());
+            }
+        }
+
+        published.copyOf(side);
+    }
+
+    private static OrderBookLevel nonEmpty(OrderBookLevel level){
+        while(level != null && level.getQuantity() <= 0){
+            level = level.next();
+        }
+        return level;
+    }
+
+    private static boolean isBetter(final OrderBookSide side, final long price, final long other){
+        return side.isHighestFirst() ? price > other : price < other;
+    }
+
+    @Override
+    public void visitOrder(DefaultOrderFlyweight order, OrderBookSide side, OrderBookLevel level, boolean isLast) {}
+
+    @Override
+    public OrderBookLevel missingBookLevel(OrderBookLevel previous, OrderBookLevel next, long price) {
+        return null;
+    }
+
+    @Override
+    public OrderBookLevel onNoFirstLevel() {
+        return null;
+    }
+
+    @Override
+    public DefaultOrderFlyweight onNoFirstOrder() {
+        return null;
+    }
+
+    //the changes to one side, kept until they are encoded and grown as the book gets deeper
+    private static final class LevelChanges {
+        private LevelUpdateAction[] actions = new LevelUpdateAction[16];
+        private long[] prices = new long[16];
+        private long[] quantities = new long[16];
+        private int length = 0;
+
+        void clear(){
+            length = 0;
+        }
+
+        void add(final LevelUpdateAction action, final long price, final long quantity){
+            if(length == prices.length){
+                final LevelUpdateAction[] grownActions = new LevelUpdateAction[length * 2];
+                final long[] grownPrices = new long[length * 2];
+                final long[] grownQuantities = new long[length * 2];
+                System.arraycopy(actions, 0, grownActions, 0, length);
+                System.arraycopy(prices, 0, grownPrices, 0, length);
+                System.arraycopy(quantities, 0, grownQuantities, 0, length);
+                actions = grownActions;
+                prices = grownPrices;
+                quantities = grownQuantities;
+            }
+            actions[length] = action;
+            prices[length] = price;
+            quantities[length] = quantity;
+            length++;
+        }
+    }
+}
@@ -1,18 +1,20 @@
 package codingblackfemales.orderbook.visitor;
 
-import codingblackfemales.orderbook.AskBookSide;
-import codingblackfemales.orderbook.BidBookSide;
 import codingblackfemales.orderbook.OrderBookLevel;
 import codingblackfemales.orderbook.OrderBookSide;
+import codingblackfemales.orderbook.PublishedLevels;
 import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
 import messages.marketdata.*;
 import org.agrona.MutableDirectBuffer;
-import org.agrona.concurrent.UnsafeBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
-
+/**
+ * Publishes the whole book, a snapshot. Visiting a side makes its levels the side's PublishedLevels, which encode then
+ * writes out, so a delta published after it is relative to the snapshot. Levels with no quantity left aren't published.
+ *
+ * The buffer is the caller's, sized from encodedLength, so a deep book doesn't run off the end of it.
+ */
 public class ReadOnlyMarketDataChannelPublishVisitor implements OrderBookVisitor {
 
     private static final Logger logger = LoggerFactory.getLogger(ReadOnlyMarketDataChannelPublishVisitor.class);
@@ -20,59 +22,70 @@ public class ReadOnlyMarketDataChannelPublishVisitor implements OrderBookVisitor
     private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
     private final BookUpdateEncoder encoder = new BookUpdateEncoder();
 
-    private ByteBuffer byteBuffer; //= ByteBuffer.allocateDirect(1024);
-    private UnsafeBuffer directBuffer; //= new UnsafeBuffer(byteBuffer);
+    //the levels of the sides visited since start, null for a side which wasn't
+    private PublishedLevels bids;
+    private PublishedLevels asks;
 
     public void start(){
-        byteBuffer = ByteBuffer.allocateDirect(1024);
-        directBuffer = new UnsafeBuffer(byteBuffer);
+        bids = null;
+        asks = null;
+    }
 
-        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+    /**
+     * @return the number of bytes encode will write for the sides visited
+     */
+    public int encodedLength(){
+        return MessageHeaderEncoder.ENCODED_LENGTH + BookUpdateEncoder.BLOCK_LENGTH
+                + BookUpdateEncoder.BidBookEncoder.sbeHeaderSize() + length(bids) * BookUpdateEncoder.BidBookEncoder.sbeBlockLength()
+                + BookUpdateEncoder.AskBookEncoder.sbeHeaderSize() + length(asks) * BookUpdateEncoder.AskBookEncoder.sbeBlockLength();
+    }
+
+    /**
+     * @param instrumentId the instrument the book is for, from the market data it was last given
+     */
+    public MutableDirectBuffer encode(final MutableDirectBuffer buffer, final long instrumentId){
+        encoder.wrapAndApplyHeader(buffer, 0, headerEncoder);
         //set the fields to desired valus
         encoder.venue(Venue.XLON);
-        encoder.instrumentId(123L);
+        encoder.instrumentId(instrumentId);
         encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
         encoder.source(Source.ORDERBOOK);
-    }
 
-    public MutableDirectBuffer end(){
-        return directBuffer;
+        //both groups are always written, even empty, so the message can be read to the end
+        final var bidBookEncoder = encoder.bidBookCount(length(bids));
+        for(int i = 0; i < length(bids); i++){
+            if(logger.isDebugEnabled()){
+                logger.debug("Adding Mkt Data Msg BID: Price=" + bids.getPrice(i) + " Qty=" + bids.getQuantity(i));
+            }
+            bidBookEncoder.next().size(bids.getQuantity(i)).price(bids.getPrice(i));
+        }
+
+        final var askBookEncoder = encoder.askBookCount(length(asks));
+        for(int i = 0; i < length(asks); i++){
+            if(logger.isDebugEnabled()){
+                logger.debug("Adding Mkt Data Msg ASK: Price=" + asks.getPrice(i) + " Qty=" + asks.getQuantity(i));
+            }
+            askBookEncoder.next().size(asks.getQuantity(i)).price(asks.getPrice(i));
+        }
+
+        return buffer;
     }
 
+    private static int length(final PublishedLevels levels){
+        return levels == null ? 0 : levels.length();
+    }
 
     @Override
     public void visitLevel(OrderBookSide side, OrderBookLevel level) {}
 
     @Override
     public void visitSide(OrderBookSide side) {
-        if(side instanceof BidBookSide){
-            if(side.getFirstLevel() == null){
-                return;
-            }
-
-            final var size = side.getFirstLevel().size();
-            logger.debug("Bid Side Size: " + size);
-            var bidBookEncoder = encoder.bidBookCount(size);
-            OrderBookLevel level = side.getFirstLevel();
-            for(int i=0; i< size; i++){
-                logger.debug("Adding Mkt Data Msg BID: Price=" + level.getPrice() + " Qty=" + level.getQuantity());
-                bidBookEncoder.next().size(level.getQuantity()).price(level.getPrice()) ;
-                level = level.next();
-            }
-        }else if(side instanceof AskBookSide){
-            if(side.getFirstLevel() == null){
-                return;
-            }
-            final var size = side.getFirstLevel().size();
-            logger.debug("Ask Side Size: " + size);
-            var askBookEncoder = encoder.askBookCount(size);
-            OrderBookLevel level = side.getFirstLevel();
-
-            for(int i=0; i< size; i++){
-                logger.debug("Adding Mkt Data Msg ASK: Price=" + level.getPrice() + " Qty=" + level.getQuantity());
-                askBookEncoder.next().size(level.getQuantity()).price(level.getPrice()) ;
-                level = level.next();
-            }
+        final PublishedLevels levels = side.getPublishedLevels();
+        levels.copyOf(side);
+        if(side.isHighestFirst()){
+            bids = levels;
+        }else{
+            asks = levels;
         }
     }
 
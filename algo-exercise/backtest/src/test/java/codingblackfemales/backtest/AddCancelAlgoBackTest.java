@@ -11,6 +11,8 @@ import codingblackfemales.orderbook.consumer.OrderBookInboundOrderConsumer;
 import codingblackfemales.sequencer.DefaultSequencer;
 import codingblackfemales.sequencer.Sequencer;
 import codingblackfemales.sequencer.consumer.LoggingConsumer;
+import codingblackfemales.sequencer.latency.LatencyStage;
+import codingblackfemales.sequencer.latency.LatencyTracker;
 import codingblackfemales.sequencer.marketdata.SequencerTestCase;
 import codingblackfemales.sequencer.net.TestNetwork;
 import codingblackfemales.service.MarketDataService;
@@ -18,26 +20,36 @@ import codingblackfemales.service.OrderService;
 import codingblackfemales.sotw.ChildOrder;
 import messages.marketdata.*;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class AddCancelAlgoBackTest extends SequencerTestCase {
 
+    private static final Logger logger = LoggerFactory.getLogger(AddCancelAlgoBackTest.class);
+
     private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
     private final BookUpdateEncoder encoder = new BookUpdateEncoder();
 
     private AlgoContainer container;
 
+    private LatencyTracker latencyTracker;
+
     @Override
     public Sequencer getSequencer() {
+        latencyTracker = new LatencyTracker();
+
         final TestNetwork network = new TestNetwork();
-        final Sequencer sequencer = new DefaultSequencer(network);
+        final Sequencer sequencer = new DefaultSequencer(network, latencyTracker);
 
         final RunTrigger runTrigger = new RunTrigger();
-        final Actioner actioner = new Actioner(sequencer);
+        final Actioner actioner = new Actioner(sequencer, latencyTracker);
 
         final MarketDataChannel marketDataChannel = new MarketDataChannel(sequencer);
         final OrderChannel orderChannel = new OrderChannel(sequencer);
@@ -45,7 +57,7 @@ public class AddCancelAlgoBackTest extends SequencerTestCase {
 
         final OrderBookInboundOrderConsumer orderConsumer = new OrderBookInboundOrderConsumer(book);
 
-        container = new AlgoContainer(new MarketDataService(runTrigger), new OrderService(runTrigger), runTrigger, actioner);
+        container = new AlgoContainer(new MarketDataService(runTrigger, latencyTracker), new OrderService(runTrigger), runTrigger, actioner, latencyTracker);
         //set my algo logic
         container.setLogic(new AddCancelAlgoLogic());
 
@@ -131,5 +143,13 @@ public class AddCancelAlgoBackTest extends SequencerTestCase {
 
         //and: check that our algo state was updated to reflect our fills when the market data
         assertEquals(100, filledQuantity);
+
+        //and: the first tick led to an order, so tick to trade was measured
+        assertTrue(latencyTracker.snapshot().getCount(LatencyStage.TICK_TO_TRADE) >= 1);
+    }
+
+    @After
+    public void dumpLatencies() {
+        logger.info("[BACKTEST] Latency by stage:\n" + latencyTracker.snapshot());
     }
 }
@@ -0,0 +1,148 @@
+package codingblackfemales.backtest;
+
+import codingblackfemales.action.Action;
+import codingblackfemales.action.MutableChildOrderAction;
+import codingblackfemales.algo.AlgoLogic;
+import codingblackfemales.container.Actioner;
+import codingblackfemales.container.AlgoContainer;
+import codingblackfemales.container.RunTrigger;
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.service.MarketDataService;
+import codingblackfemales.service.OrderService;
+import codingblackfemales.sotw.SimpleAlgoState;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import messages.order.CancelOrderEncoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.FillOrderEncoder;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static codingblackfemales.action.NoAction.NoAction;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BacktestRunnerTest {
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder encoder = new BookUpdateEncoder();
+
+    @Test
+    public void testParallelSweepMatchesSerialRuns() {
+
+        final BacktestMarketData marketData = BacktestMarketData.fromFrames(List.of(
+                createTick(98, 100), createTick(95, 98), createTick(97, 99), createTick(99, 101)));
+
+        final List<Long> quantities = new ArrayList<>();
+        for (long quantity = 10; quantity <= 200; quantity += 10) {
+            quantities.add(quantity);
+        }
+
+        try (BacktestRunner runner = new BacktestRunner(marketData, 4)) {
+            final List<BacktestResult<Long>> results = runner.run(quantities, FarTouchBuyer::new);
+
+            assertEquals(quantities.size(), results.size());
+            for (int i = 0; i < quantities.size(); i++) {
+                final BacktestResult<Long> result = results.get(i);
+                final BacktestResult<Long> serial = runner.runOne(quantities.get(i), new FarTouchBuyer(quantities.get(i)));
+
+                //results come back in parameter order, and runs sharing the market data don't disturb each other
+                assertEquals(quantities.get(i), result.getParameters());
+                assertEquals(serial.getChildOrders(), result.getChildOrders());
+                assertEquals(serial.getFills(), result.getFills());
+                assertEquals(serial.getBoughtQuantity(), result.getBoughtQuantity());
+                assertEquals(serial.getBoughtNotional(), result.getBoughtNotional());
+                assertEquals(serial.getPnl(), result.getPnl(), 0.0);
+
+                assertEquals(3, result.getChildOrders());
+                assertTrue(result.getFills() > 0);
+                assertEquals(result.getBoughtQuantity(), result.getPosition());
+            }
+        }
+    }
+
+    @Test
+    public void testArchivedOrdersStayInTheResult() {
+
+        final RunTrigger runTrigger = new RunTrigger();
+        final OrderService orderService = new OrderService(runTrigger);
+        final AlgoContainer container = new AlgoContainer(new MarketDataService(runTrigger), orderService, runTrigger,
+                new Actioner(new DefaultSequencer(new TestNetwork())));
+        container.getMarketDataService().onMessage(createTick(98, 100));
+
+        final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        final messages.order.MessageHeaderEncoder orderHeader = new messages.order.MessageHeaderEncoder();
+        for (long orderId = 1; orderId <= 3; orderId++) {
+            new CreateOrderEncoder().wrapAndApplyHeader(buffer, 0, orderHeader).orderId(orderId).side(Side.BUY).quantity(100).price(99);
+            orderService.onMessage(buffer);
+        }
+        new FillOrderEncoder().wrapAndApplyHeader(buffer, 0, orderHeader).orderId(1).quantity(100).price(99);
+        orderService.onMessage(buffer);
+        new FillOrderEncoder().wrapAndApplyHeader(buffer, 0, orderHeader).orderId(2).quantity(40).price(98);
+        orderService.onMessage(buffer);
+        new CancelOrderEncoder().wrapAndApplyHeader(buffer, 0, orderHeader).orderId(3);
+        orderService.onMessage(buffer);
+
+        final BacktestResult<Long> before = new BacktestResult<>(0L, container, 0);
+        assertEquals(2, orderService.archiveCompletedOrders());
+        final BacktestResult<Long> after = new BacktestResult<>(0L, container, 0);
+
+        assertEquals(3, after.getChildOrders());
+        assertEquals(1, after.getCancelledOrders());
+        assertEquals(2, after.getFills());
+        assertEquals(140, after.getBoughtQuantity());
+        assertEquals(before.getBoughtNotional(), after.getBoughtNotional());
+        assertEquals(before.getPnl(), after.getPnl(), 0.0);
+    }
+
+    /**
+     * Buys a fixed quantity at the far touch on each of the first three ticks.
+     */
+    private static final class FarTouchBuyer implements AlgoLogic {
+
+        private final MutableChildOrderAction action = new MutableChildOrderAction();
+        private final long quantity;
+
+        private FarTouchBuyer(final long quantity) {
+            this.quantity = quantity;
+        }
+
+        @Override
+        public Action evaluate(final SimpleAlgoState state) {
+            if (state.getChildOrders().size() >= 3 || state.getAskLevels() == 0) {
+                return NoAction;
+            }
+            return action.create(Side.BUY, quantity, state.getAskAt(0).getPrice());
+        }
+    }
+
+    private UnsafeBuffer createTick(final long bestBid, final long bestAsk) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(Source.STREAM);
+
+        encoder.bidBookCount(2)
+                .next().price(bestBid).size(100L)
+                .next().price(bestBid - 5).size(200L);
+
+        encoder.askBookCount(2)
+                .next().price(bestAsk).size(100L)
+                .next().price(bestAsk + 10).size(200L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+}
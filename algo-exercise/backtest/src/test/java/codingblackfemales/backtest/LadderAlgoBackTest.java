@@ -0,0 +1,222 @@
+package codingblackfemales.backtest;
+
+import codingblackfemales.algo.LadderAlgoLogic;
+import codingblackfemales.container.Actioner;
+import codingblackfemales.container.AlgoContainer;
+import codingblackfemales.container.RunTrigger;
+import codingblackfemales.orderbook.OrderBook;
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.consumer.OrderBookInboundOrderConsumer;
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.consumer.LoggingConsumer;
+import codingblackfemales.sequencer.marketdata.SequencerTestCase;
+import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.service.MarketDataService;
+import codingblackfemales.service.OrderService;
+import codingblackfemales.sotw.ChildOrder;
+import messages.marketdata.*;
+import messages.order.OrderBatchAction;
+import messages.order.OrderBatchDecoder;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LadderAlgoBackTest extends SequencerTestCase {
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder encoder = new BookUpdateEncoder();
+
+    private AlgoContainer container;
+    private OrderBook book;
+
+    private int orderBatches = 0;
+    private final List<Long> cancelled = new ArrayList<>();
+    private int bookPublishes = 0;
+
+    @Override
+    public Sequencer getSequencer() {
+        final TestNetwork network = new TestNetwork();
+        final Sequencer sequencer = new DefaultSequencer(network);
+
+        final RunTrigger runTrigger = new RunTrigger();
+        final Actioner actioner = new Actioner(sequencer);
+
+        final MarketDataChannel marketDataChannel = new MarketDataChannel(sequencer);
+        final OrderChannel orderChannel = new OrderChannel(sequencer);
+        book = new OrderBook(marketDataChannel, orderChannel);
+
+        final OrderBookInboundOrderConsumer orderConsumer = new OrderBookInboundOrderConsumer(book);
+
+        container = new AlgoContainer(new MarketDataService(runTrigger), new OrderService(runTrigger), runTrigger, actioner);
+        //set my algo logic
+        container.setLogic(new LadderAlgoLogic());
+
+        final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        final BookUpdateDecoder bookUpdate = new BookUpdateDecoder();
+        final messages.order.MessageHeaderDecoder orderHeader = new messages.order.MessageHeaderDecoder();
+        final OrderBatchDecoder orderBatch = new OrderBatchDecoder();
+
+        network.addConsumer(new LoggingConsumer());
+        network.addConsumer(buffer -> {
+            header.wrap(buffer, 0);
+            if (header.schemaId() == OrderBatchDecoder.SCHEMA_ID && header.templateId() == OrderBatchDecoder.TEMPLATE_ID) {
+                orderBatches++;
+                for (OrderBatchDecoder.OrdersDecoder order : orderBatch.wrapAndApplyHeader(buffer, 0, orderHeader).orders()) {
+                    if (order.action() == OrderBatchAction.CANCEL) {
+                        cancelled.add(order.orderId());
+                    }
+                }
+            } else if (header.schemaId() == BookUpdateDecoder.SCHEMA_ID && header.templateId() == BookUpdateDecoder.TEMPLATE_ID
+                    && bookUpdate.wrapAndApplyHeader(buffer, 0, header).source() == Source.ORDERBOOK) {
+                bookPublishes++;
+            } else if (header.schemaId() == BookLevelUpdateDecoder.SCHEMA_ID && header.templateId() == BookLevelUpdateDecoder.TEMPLATE_ID) {
+                //between snapshots the book publishes only the levels which changed
+                bookPublishes++;
+            }
+        });
+        network.addConsumer(book);
+        network.addConsumer(container.getMarketDataService());
+        network.addConsumer(container.getOrderService());
+        network.addConsumer(orderConsumer);
+        network.addConsumer(container);
+
+        return sequencer;
+    }
+
+    private UnsafeBuffer createSampleMarketDataTick(){
+        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(byteBuffer);
+
+        //write the encoded output to the direct buffer
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+
+        //set the fields to desired values
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(Source.STREAM);
+
+        encoder.bidBookCount(3)
+                .next().price(98L).size(100L)
+                .next().price(95L).size(200L)
+                .next().price(91L).size(300L);
+
+        encoder.askBookCount(4)
+                .next().price(100L).size(101L)
+                .next().price(110L).size(200L)
+                .next().price(115L).size(5000L)
+                .next().price(119L).size(5600L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    private UnsafeBuffer createSampleMarketDataTick2(){
+        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(byteBuffer);
+
+        //write the encoded output to the direct buffer
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+
+        //set the fields to desired values
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(Source.STREAM);
+
+        encoder.bidBookCount(3)
+                .next().price(100L).size(100L)
+                .next().price(97L).size(200L)
+                .next().price(95L).size(300L);
+
+        encoder.askBookCount(4)
+                .next().price(102L).size(501L)
+                .next().price(110L).size(200L)
+                .next().price(115L).size(5000L)
+                .next().price(119L).size(5600L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    private UnsafeBuffer createTickThroughTopOfLadder(){
+        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(byteBuffer);
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(Source.STREAM);
+
+        encoder.bidBookCount(1)
+                .next().price(95L).size(100L);
+
+        //enough at the top of the ladder to fill the order there, and no more
+        encoder.askBookCount(2)
+                .next().price(98L).size(50L)
+                .next().price(110L).size(200L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    @Test
+    public void testFilledOrdersAreNotCancelled() throws Exception {
+        send(createSampleMarketDataTick());
+        assertTrue(cancelled.isEmpty());
+
+        //the ask trades through the top of the ladder at 98, filling it, and the ladder is re-quoted
+        send(createTickThroughTopOfLadder());
+
+        final var state = container.getState();
+        final ChildOrder top = state.getChildOrders().get(0);
+        assertEquals(98L, top.getPrice());
+        assertEquals(0L, top.getLeavesQuantity());
+
+        //the rest of the first ladder was cancelled, the order which filled wasn't
+        for (int i = 1; i < 5; i++) {
+            assertTrue(cancelled.contains(state.getChildOrders().get(i).getOrderId()));
+        }
+        assertFalse(cancelled.contains(top.getOrderId()));
+        assertEquals(cancelled.size(), cancelled.stream().distinct().count());
+    }
+
+    @Test
+    public void testLadderIsLaidAndRequotedInOneBatchPerTick() throws Exception {
+        //when: the first tick arrives
+        send(createSampleMarketDataTick());
+
+        //then: the whole ladder went out as one batch, with one book update for it
+        var state = container.getState();
+        assertEquals(5, state.getChildOrders().size());
+        assertEquals(1, orderBatches);
+        assertEquals(1, bookPublishes);
+
+        //and: every order has its own id from the sequencer
+        assertEquals(5, state.getChildOrders().stream().mapToLong(ChildOrder::getOrderId).distinct().count());
+        assertTrue(state.getChildOrders().stream().allMatch(order -> order.getSide() == Side.BUY));
+
+        //when: the far touch moves up
+        send(createSampleMarketDataTick2());
+
+        //then: the old ladder was cancelled and the new one laid in a single batch
+        state = container.getState();
+        final List<ChildOrder> active = state.getActiveChildOrders();
+        assertEquals(10, state.getChildOrders().size());
+        assertEquals(5, active.size());
+        assertEquals(2, orderBatches);
+        assertEquals(2, bookPublishes);
+    }
+}
@@ -98,4 +98,67 @@ public class CancelOrderBookVisitorTest {
 
 
 
+    @Test
+    public void testCancelAfterPartialFill(){
+
+        final OrderBook book = new OrderBook(Mockito.mock(MarketDataChannel.class), Mockito.mock(OrderChannel.class));
+
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 96L, 500L, 1));
+        book.onLimitOrder(new LimitOrderFlyweight(Side.SELL, 96L, 300L, 2));
+
+        Assert.assertEquals( 200L, book.getBidBookSide().getFirstLevel().getQuantity());
+        Assert.assertEquals( 200L, book.getRestingOrder(1).getQuantity());
+
+        book.onCancelOrder(1);
+
+        //nothing is left at 96, so the level is gone too
+        Assert.assertNull(book.getBidBookSide().getFirstLevel());
+        Assert.assertNull(book.getRestingOrder(1));
+    }
+
+    @Test
+    public void testCancelOfLastOrderAtALevelRemovesTheLevel(){
+
+        final OrderBook book = new OrderBook(Mockito.mock(MarketDataChannel.class), Mockito.mock(OrderChannel.class));
+
+        book.onLimitOrder(new LimitOrderFlyweight(Side.SELL, 101L, 100L, 1));
+        book.onLimitOrder(new LimitOrderFlyweight(Side.SELL, 101L, 100L, 2));
+        book.onLimitOrder(new LimitOrderFlyweight(Side.SELL, 102L, 100L, 3));
+
+        book.onCancelOrder(1);
+        Assert.assertEquals( 101L, book.getAskBookSide().getFirstLevel().getPrice());
+
+        final long levelsBefore = book.getPool().created();
+        book.onCancelOrder(2);
+
+        Assert.assertEquals( 102L, book.getAskBookSide().getFirstLevel().getPrice());
+        Assert.assertNull(book.getAskBookSide().getFirstLevel().next());
+
+        //a buy at the old best ask doesn't cross an empty level, it rests, on the level the cancel gave back
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 101L, 50L, 4));
+
+        Assert.assertEquals( 101L, book.getBidBookSide().getFirstLevel().getPrice());
+        Assert.assertEquals( 50L, book.getRestingOrder(4).getQuantity());
+        Assert.assertEquals( levelsBefore, book.getPool().created());
+    }
+
+    @Test
+    public void testCancelOfFilledOrderIsIgnored(){
+
+        final OrderBook book = new OrderBook(Mockito.mock(MarketDataChannel.class), Mockito.mock(OrderChannel.class));
+
+        book.onLimitOrder(new LimitOrderFlyweight(Side.SELL, 120L, 1_000L, 1));
+        book.onLimitOrder(new LimitOrderFlyweight(Side.SELL, 121L, 1_000L, 2));
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 120L, 1_000L, 3));
+
+        //the fill took order 1 and its level out of the book
+        Assert.assertNull(book.getRestingOrder(1));
+        Assert.assertEquals( 121L, book.getAskBookSide().getFirstLevel().getPrice());
+
+        book.onCancelOrder(1);
+
+        Assert.assertEquals( 1_000L, book.getAskBookSide().getFirstLevel().getQuantity());
+        Assert.assertNotNull(book.getRestingOrder(2));
+    }
+
 }
@@ -0,0 +1,226 @@
+package codingblackfemales.orderbook;
+
+import codingblackfemales.container.RunTrigger;
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.service.MarketDataService;
+import messages.marketdata.BookLevelUpdateDecoder;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.LevelUpdateAction;
+import messages.marketdata.MessageHeaderDecoder;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static codingblackfemales.orderbook.MatchingOrderBookVisitorTest.wrapBufferInDecoder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DeltaPublishOrderBookTest {
+
+    private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
+    private final BookLevelUpdateDecoder levelUpdateDecoder = new BookLevelUpdateDecoder();
+
+    //template id of each message the book published, with what the delta ones carried
+    private final List<Integer> templates = new ArrayList<>();
+    private final List<String> levels = new ArrayList<>();
+    private final List<Long> instrumentIds = new ArrayList<>();
+    private final BookUpdateDecoder snapshotDecoder = new BookUpdateDecoder();
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder bookUpdateEncoder = new BookUpdateEncoder();
+
+    private MarketDataChannel recordingChannel(final MarketDataService service){
+        return new MarketDataChannel(buffer -> {
+            headerDecoder.wrap(buffer, 0);
+            templates.add(headerDecoder.templateId());
+            if(headerDecoder.templateId() == BookUpdateDecoder.TEMPLATE_ID){
+                instrumentIds.add(snapshotDecoder.wrap(buffer, headerDecoder.encodedLength(), headerDecoder.blockLength(), headerDecoder.version()).instrumentId());
+            }
+            if(headerDecoder.templateId() == BookLevelUpdateDecoder.TEMPLATE_ID){
+                levelUpdateDecoder.wrap(buffer, headerDecoder.encodedLength(), headerDecoder.blockLength(), headerDecoder.version());
+                instrumentIds.add(levelUpdateDecoder.instrumentId());
+                levels.clear();
+                for(BookLevelUpdateDecoder.BidLevelsDecoder level : levelUpdateDecoder.bidLevels()){
+                    levels.add("BID " + level.action() + " " + level.size() + "@" + level.price());
+                }
+                for(BookLevelUpdateDecoder.AskLevelsDecoder level : levelUpdateDecoder.askLevels()){
+                    levels.add("ASK " + level.action() + " " + level.size() + "@" + level.price());
+                }
+            }
+            service.onMessage(buffer);
+        });
+    }
+
+    private UnsafeBuffer bookUpdate(final long bestBid, final long bestAsk){
+        return bookUpdate(123L, bestBid, bestAsk);
+    }
+
+    private UnsafeBuffer bookUpdate(final long instrumentId, final long bestBid, final long bestAsk){
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        bookUpdateEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        bookUpdateEncoder.venue(Venue.XLON);
+        bookUpdateEncoder.instrumentId(instrumentId);
+        bookUpdateEncoder.source(Source.STREAM);
+
+        bookUpdateEncoder.bidBookCount(2)
+                .next().price(bestBid).size(100L)
+                .next().price(bestBid - 2).size(200L);
+
+        bookUpdateEncoder.askBookCount(2)
+                .next().price(bestAsk).size(100L)
+                .next().price(bestAsk + 2).size(200L);
+
+        bookUpdateEncoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    @Test
+    public void testOnlyChangedLevelsArePublished(){
+        final MarketDataService service = new MarketDataService(new RunTrigger());
+        final OrderBook book = new OrderBook(recordingChannel(service), new OrderChannel(buffer -> {}), false, 3);
+
+        //the first publish is a snapshot
+        book.onLimitOrder(book.getPool().acquireLimitOrder(Side.BUY, 98L, 100L, 1));
+        book.onLimitOrder(book.getPool().acquireLimitOrder(Side.SELL, 101L, 50L, 2));
+        assertEquals(List.of(BookUpdateDecoder.TEMPLATE_ID, BookLevelUpdateDecoder.TEMPLATE_ID), templates);
+        assertEquals(List.of("ASK " + LevelUpdateAction.NEW + " 50@101"), levels);
+
+        book.onLimitOrder(book.getPool().acquireLimitOrder(Side.BUY, 98L, 20L, 3));
+        assertEquals(List.of("BID " + LevelUpdateAction.CHANGE + " 120@98"), levels);
+
+        //every third publish is a snapshot again
+        book.onCancelOrder(2);
+        assertEquals(BookUpdateDecoder.TEMPLATE_ID, (int) templates.get(3));
+
+        book.onLimitOrder(book.getPool().acquireLimitOrder(Side.BUY, 99L, 10L, 4));
+        book.onCancelOrder(4);
+        assertEquals(List.of("BID " + LevelUpdateAction.DELETE + " 0@99"), levels);
+
+        assertEquals(1, service.getBidLength());
+        assertEquals(98L, service.getBidLevel(0).price);
+        assertEquals(120L, service.getBidLevel(0).quantity);
+        assertEquals(0, service.getAskLength());
+    }
+
+    @Test
+    public void testDeltasFollowMarketDataFromTheStream(){
+        final MarketDataService service = new MarketDataService(new RunTrigger());
+        final OrderBook book = new OrderBook(recordingChannel(service), new OrderChannel(buffer -> {}), false, 1_000);
+
+        book.onLimitOrder(book.getPool().acquireLimitOrder(Side.BUY, 90L, 10L, 1));
+
+        //the service gets the stream's book too, the next delta has to be relative to it rather than the last publish
+        final UnsafeBuffer update = bookUpdate(100L, 101L);
+        book.onBookUpdate(wrapBufferInDecoder(update));
+        service.onMessage(update);
+
+        book.onLimitOrder(book.getPool().acquireLimitOrder(Side.SELL, 105L, 10L, 2));
+        assertEquals(List.of("BID " + LevelUpdateAction.NEW + " 10@90", "ASK " + LevelUpdateAction.NEW + " 10@105"), levels);
+        assertServiceHasBook(service, book);
+    }
+
+    @Test
+    public void testBookPublishesAsTheStreamsInstrument(){
+        final MarketDataService service = new MarketDataService(new RunTrigger());
+        final OrderBook book = new OrderBook(recordingChannel(service), new OrderChannel(buffer -> {}), false, 3);
+
+        final UnsafeBuffer update = bookUpdate(7L, 100L, 101L);
+        book.onBookUpdate(wrapBufferInDecoder(update));
+        service.onMessage(update);
+        assertEquals(7L, book.getInstrumentId());
+
+        //a snapshot then deltas, all relative to the stream's book for instrument 7
+        book.onLimitOrder(book.getPool().acquireLimitOrder(Side.BUY, 99L, 10L, 1));
+        book.onLimitOrder(book.getPool().acquireLimitOrder(Side.SELL, 103L, 10L, 2));
+        book.onCancelOrder(1);
+        assertEquals(List.of(7L, 7L, 7L), instrumentIds);
+
+        assertEquals(1, service.getInstrumentCount());
+        assertServiceHasBook(service, book);
+    }
+
+    @Test
+    public void testServiceFollowsTheBookThroughDeltas(){
+        final MarketDataService service = new MarketDataService(new RunTrigger(), 1_000);
+        final OrderBook book = new OrderBook(recordingChannel(service), new OrderChannel(buffer -> {}), false, 50);
+
+        final Random random = new Random(5);
+        final List<Long> resting = new ArrayList<>();
+        long orderId = 0;
+        for (int i = 0; i < 2_000; i++) {
+            if(i % 200 == 0){
+                final UnsafeBuffer update = bookUpdate(1_000 - random.nextInt(5), 1_001 + random.nextInt(5));
+                book.onBookUpdate(wrapBufferInDecoder(update));
+                service.onMessage(update);
+            }
+            if(!resting.isEmpty() && random.nextInt(3) == 0){
+                book.onCancelOrder(resting.remove(random.nextInt(resting.size())));
+            }else{
+                final Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+                final long price = side == Side.BUY ? 1_000 - random.nextInt(40) : 1_001 + random.nextInt(40);
+                book.onLimitOrder(book.getPool().acquireLimitOrder(side, price + (random.nextInt(10) == 0 ? (side == Side.BUY ? 3 : -3) : 0), 1 + random.nextInt(100), ++orderId));
+                if(book.getRestingOrder(orderId) != null){
+                    resting.add(orderId);
+                }
+            }
+            assertServiceHasBook(service, book);
+        }
+    }
+
+    @Test
+    public void testDeepBookIsPublishedWhole(){
+        final MarketDataService service = new MarketDataService(new RunTrigger(), 1_000);
+        final OrderBook book = new OrderBook(recordingChannel(service), new OrderChannel(buffer -> {}), false, 2);
+
+        //more levels than fit in the 1024 bytes the book used to publish into
+        for (int i = 0; i < 200; i++) {
+            book.matchOrAddLimitOrder(book.getPool().acquireLimitOrder(Side.BUY, 1_000 - i, 10L, i));
+            book.matchOrAddLimitOrder(book.getPool().acquireLimitOrder(Side.SELL, 1_001 + i, 10L, 1_000 + i));
+        }
+        book.publishBook();
+        assertEquals(200, service.getBidLength());
+        assertEquals(200, service.getAskLength());
+
+        //and as a delta
+        for (int i = 200; i < 400; i++) {
+            book.matchOrAddLimitOrder(book.getPool().acquireLimitOrder(Side.BUY, 1_000 - i, 10L, i));
+        }
+        book.publishBook();
+        assertEquals(BookLevelUpdateDecoder.TEMPLATE_ID, (int) templates.get(1));
+        assertEquals(200, levels.size());
+        assertServiceHasBook(service, book);
+    }
+
+    private static void assertServiceHasBook(final MarketDataService service, final OrderBook book){
+        int i = 0;
+        for (OrderBookLevel level = book.getBidBookSide().getFirstLevel(); level != null; level = level.next()) {
+            if(level.getQuantity() > 0){
+                assertEquals(level.getPrice(), service.getBidLevel(i).price);
+                assertEquals(level.getQuantity(), service.getBidLevel(i++).quantity);
+            }
+        }
+        assertNull(service.getBidLevel(i));
+
+        i = 0;
+        for (OrderBookLevel level = book.getAskBookSide().getFirstLevel(); level != null; level = level.next()) {
+            if(level.getQuantity() > 0){
+                assertEquals(level.getPrice(), service.getAskLevel(i).price);
+                assertEquals(level.getQuantity(), service.getAskLevel(i++).quantity);
+            }
+        }
+        assertNull(service.getAskLevel(i));
+    }
+}
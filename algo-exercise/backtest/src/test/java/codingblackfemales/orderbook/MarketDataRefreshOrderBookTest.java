@@ -0,0 +1,133 @@
+package codingblackfemales.orderbook;
+
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.order.LimitOrderFlyweight;
+import codingblackfemales.orderbook.order.MarketDataOrderFlyweight;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static codingblackfemales.orderbook.MatchingOrderBookVisitorTest.wrapBufferInDecoder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MarketDataRefreshOrderBookTest {
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder bookUpdateEncoder = new BookUpdateEncoder();
+
+    //price, size pairs best first
+    private UnsafeBuffer bookUpdate(final long[] bids, final long[] asks){
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        bookUpdateEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        bookUpdateEncoder.venue(Venue.XLON);
+        bookUpdateEncoder.instrumentId(123L);
+        bookUpdateEncoder.source(Source.STREAM);
+
+        final BookUpdateEncoder.BidBookEncoder bidBook = bookUpdateEncoder.bidBookCount(bids.length / 2);
+        for (int i = 0; i < bids.length; i += 2) {
+            bidBook.next().price(bids[i]).size(bids[i + 1]);
+        }
+        final BookUpdateEncoder.AskBookEncoder askBook = bookUpdateEncoder.askBookCount(asks.length / 2);
+        for (int i = 0; i < asks.length; i += 2) {
+            askBook.next().price(asks[i]).size(asks[i + 1]);
+        }
+
+        bookUpdateEncoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    @Test
+    public void testOnlyWhatMovedChanges(){
+        final OrderBook book = new OrderBook(Mockito.mock(MarketDataChannel.class), Mockito.mock(OrderChannel.class));
+
+        book.onBookUpdate(wrapBufferInDecoder(bookUpdate(new long[]{100, 100, 96, 200, 93, 300}, new long[]{101, 100, 115, 200})));
+        assertEquals(5, book.getLastMarketDataChanges());
+
+        final OrderBookLevel bestBid = book.getBidBookSide().getFirstLevel();
+        final MarketDataOrderFlyweight bestBidOrder = (MarketDataOrderFlyweight) bestBid.getFirstOrder();
+
+        book.onBookUpdate(wrapBufferInDecoder(bookUpdate(new long[]{100, 100, 96, 200, 93, 300}, new long[]{101, 100, 115, 200})));
+        assertEquals(0, book.getLastMarketDataChanges());
+        assertSame(bestBid, book.getBidBookSide().getFirstLevel());
+        assertSame(bestBidOrder, bestBid.getFirstOrder());
+
+        //96 resized, 93 gone, 90 new, asks as they were
+        book.onBookUpdate(wrapBufferInDecoder(bookUpdate(new long[]{100, 100, 96, 250, 90, 50}, new long[]{101, 100, 115, 200})));
+        assertEquals(3, book.getLastMarketDataChanges());
+        assertSame(bestBid, book.getBidBookSide().getFirstLevel());
+        assertLevels(book.getBidBookSide(), 100, 100, 96, 250, 90, 50);
+        assertLevels(book.getAskBookSide(), 101, 100, 115, 200);
+    }
+
+    @Test
+    public void testLimitOrdersStayWhenTheirMarketDataGoes(){
+        final OrderBook book = new OrderBook(Mockito.mock(MarketDataChannel.class), Mockito.mock(OrderChannel.class));
+
+        book.onBookUpdate(wrapBufferInDecoder(bookUpdate(new long[]{100, 100, 96, 200}, new long[]{101, 100})));
+        book.matchOrAddLimitOrder(new LimitOrderFlyweight(Side.BUY, 96L, 50L, 1));
+
+        //market data at 96 resized, the limit order stays behind it in the queue
+        book.onBookUpdate(wrapBufferInDecoder(bookUpdate(new long[]{100, 100, 96, 300}, new long[]{101, 100})));
+        final OrderBookLevel level96 = book.getBidBookSide().getFirstLevel().next();
+        assertEquals(350L, level96.getQuantity());
+        assertTrue(level96.getFirstOrder() instanceof MarketDataOrderFlyweight);
+        assertSame(book.getRestingOrder(1), level96.getFirstOrder().next());
+
+        //market data at 96 gone, the level stays for the limit order
+        book.onBookUpdate(wrapBufferInDecoder(bookUpdate(new long[]{100, 100}, new long[]{101, 100})));
+        assertLevels(book.getBidBookSide(), 100, 100, 96, 50);
+        assertSame(book.getRestingOrder(1), level96.getFirstOrder());
+        assertNull(level96.getFirstOrder().next());
+    }
+
+    @Test
+    public void testRefreshedBookMatchesEachUpdate(){
+        final OrderBook book = new OrderBook(Mockito.mock(MarketDataChannel.class), Mockito.mock(OrderChannel.class));
+
+        final Random random = new Random(11);
+        for (int i = 0; i < 1_000; i++) {
+            final long[] bids = randomLevels(random, 1_000, -1);
+            final long[] asks = randomLevels(random, 1_001, 1);
+            book.onBookUpdate(wrapBufferInDecoder(bookUpdate(bids, asks)));
+
+            assertLevels(book.getBidBookSide(), bids);
+            assertLevels(book.getAskBookSide(), asks);
+        }
+    }
+
+    private static long[] randomLevels(final Random random, final long touch, final int direction){
+        final long[] levels = new long[2 * random.nextInt(8)];
+        long price = touch + direction * random.nextInt(3);
+        for (int i = 0; i < levels.length; i += 2) {
+            levels[i] = price;
+            levels[i + 1] = 1 + random.nextInt(3) * 100;
+            price += direction * (1 + random.nextInt(3));
+        }
+        return levels;
+    }
+
+    private static void assertLevels(final OrderBookSide side, final long... pricesAndQuantities){
+        OrderBookLevel level = side.getFirstLevel();
+        for (int i = 0; i < pricesAndQuantities.length; i += 2) {
+            assertEquals(pricesAndQuantities[i], level.getPrice());
+            assertEquals(pricesAndQuantities[i + 1], level.getQuantity());
+            level = level.next();
+        }
+        assertNull(level);
+    }
+}
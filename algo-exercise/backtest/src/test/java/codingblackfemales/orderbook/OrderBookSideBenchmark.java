@@ -0,0 +1,122 @@
+package codingblackfemales.orderbook;
+
+import ch.qos.logback.classic.Logger;
+import codingblackfemales.orderbook.order.LimitOrderFlyweight;
+import codingblackfemales.orderbook.order.MarketDataOrderFlyweight;
+import codingblackfemales.orderbook.pool.OrderBookPool;
+import messages.order.Side;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding an order to a side of the book, walking the level list against going through the price index. The side
+ * holds a level every spacing ticks for depth levels, 2 for a dense book and 1000 for a sparse one whose gaps the
+ * index has to look across. addOrder joins a random level, addOrderAtNewLevel opens a level in a random gap and
+ * addOrderAtNewTouch opens a new best level, each then taken out again so the book stays the same.
+ *
+ * Not run as part of the build, run main() from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBookSideBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int depth;
+
+    @Param({"2", "1000"})
+    int spacing;
+
+    @Param({"false", "true"})
+    boolean priceIndexed;
+
+    private final OrderBookPool pool = new OrderBookPool();
+    private AskBookSide side;
+
+    private LimitOrderFlyweight[] orders;
+    private LimitOrderFlyweight[] newLevelOrders;
+    private LimitOrderFlyweight touchOrder;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        //the add visitor logs every order, keep the appender out of the measurement
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.OFF);
+
+        side = new AskBookSide(priceIndexed, pool);
+        for (int i = 0; i < depth; i++) {
+            side.addMarketDataOrder(new MarketDataOrderFlyweight(Side.SELL, 1_000 + (long) spacing * i, 100));
+        }
+
+        final Random random = new Random(42);
+        orders = new LimitOrderFlyweight[4096];
+        newLevelOrders = new LimitOrderFlyweight[4096];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = new LimitOrderFlyweight(Side.SELL, 1_000 + (long) spacing * random.nextInt(depth), 100, i);
+            newLevelOrders[i] = new LimitOrderFlyweight(Side.SELL, 1_000 + spacing / 2 + (long) spacing * random.nextInt(depth), 100, i);
+        }
+        touchOrder = new LimitOrderFlyweight(Side.SELL, 999, 100, 0);
+    }
+
+    @Benchmark
+    public LimitOrderFlyweight addOrder() {
+        final LimitOrderFlyweight order = orders[next++ & (orders.length - 1)];
+        side.addLimitOrder(order);
+        //it went in behind the level's market data order, so the level keeps its first order
+        order.remove();
+        return order;
+    }
+
+    @Benchmark
+    public LimitOrderFlyweight addOrderAtNewLevel() {
+        final LimitOrderFlyweight order = newLevelOrders[next++ & (newLevelOrders.length - 1)];
+        //as the pool does when it hands out an order
+        order.resetLinks();
+        side.addLimitOrder(order);
+        removeLevel(order.getLevel());
+        return order;
+    }
+
+    @Benchmark
+    public LimitOrderFlyweight addOrderAtNewTouch() {
+        touchOrder.resetLinks();
+        side.addLimitOrder(touchOrder);
+        removeLevel(touchOrder.getLevel());
+        return touchOrder;
+    }
+
+    private void removeLevel(final OrderBookLevel level) {
+        final OrderBookLevel first = level.remove();
+        if (level == side.getFirstLevel()) {
+            side.setFirstLevel(first);
+        }
+        pool.releaseLevel(level);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderBookSideBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
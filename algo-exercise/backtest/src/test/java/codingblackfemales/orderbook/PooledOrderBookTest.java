@@ -0,0 +1,108 @@
+package codingblackfemales.orderbook;
+
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import messages.order.FillOrderDecoder;
+import messages.order.MessageHeaderDecoder;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static codingblackfemales.orderbook.MatchingOrderBookVisitorTest.wrapBufferInDecoder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PooledOrderBookTest {
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder bookUpdateEncoder = new BookUpdateEncoder();
+
+    private UnsafeBuffer bookUpdate(final long bestBid, final long bestAsk){
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        bookUpdateEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        bookUpdateEncoder.venue(Venue.XLON);
+        bookUpdateEncoder.instrumentId(123L);
+        bookUpdateEncoder.source(Source.STREAM);
+
+        bookUpdateEncoder.bidBookCount(3)
+                .next().price(bestBid).size(100L)
+                .next().price(bestBid - 1).size(200L)
+                .next().price(bestBid - 3).size(300L);
+
+        bookUpdateEncoder.askBookCount(3)
+                .next().price(bestAsk).size(100L)
+                .next().price(bestAsk + 2).size(200L)
+                .next().price(bestAsk + 5).size(300L);
+
+        bookUpdateEncoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    @Test
+    public void testSteadyStateReusesLevelsAndOrders(){
+        final OrderBook book = new OrderBook(Mockito.mock(MarketDataChannel.class), new OrderChannel(buffer -> {}));
+
+        final UnsafeBuffer update1 = bookUpdate(100L, 101L);
+        final UnsafeBuffer update2 = bookUpdate(98L, 103L);
+
+        long orderId = 0;
+        long createdAfterWarmUp = 0;
+        for (int cycle = 0; cycle < 200; cycle++) {
+            if(cycle == 20){
+                createdAfterWarmUp = book.getPool().created();
+            }
+            book.onBookUpdate(wrapBufferInDecoder(update1));
+            final long passiveId = ++orderId;
+            book.matchOrAddLimitOrder(book.getPool().acquireLimitOrder(Side.BUY, 95L, 50L, passiveId));
+            book.matchOrAddLimitOrder(book.getPool().acquireLimitOrder(Side.SELL, 110L, 70L, ++orderId));
+            //takes every ask up to and including the sell above, so nothing is left behind from one cycle to the next
+            book.matchOrAddLimitOrder(book.getPool().acquireLimitOrder(Side.BUY, 110L, 1_000L, ++orderId));
+            book.onBookUpdate(wrapBufferInDecoder(update2));
+            book.cancelOrder(passiveId);
+            assertNull(book.getRestingOrder(passiveId));
+        }
+
+        assertEquals(createdAfterWarmUp, book.getPool().created());
+    }
+
+    @Test
+    public void testFillCanSendTheBookAnOrder(){
+        final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
+        final FillOrderDecoder fillDecoder = new FillOrderDecoder();
+        final List<String> fills = new ArrayList<>();
+        final OrderBook[] book = new OrderBook[1];
+
+        //the first fill sends another buy into the book while the first is still matching
+        final OrderChannel orderChannel = new OrderChannel(buffer -> {
+            headerDecoder.wrap(buffer, 0);
+            fillDecoder.wrap(buffer, headerDecoder.encodedLength(), headerDecoder.blockLength(), headerDecoder.version());
+            fills.add(fillDecoder.orderId() + ":" + fillDecoder.quantity() + "@" + fillDecoder.price());
+            if(fills.size() == 1){
+                book[0].matchOrAddLimitOrder(book[0].getPool().acquireLimitOrder(Side.BUY, 102L, 30L, 4));
+            }
+        });
+        book[0] = new OrderBook(Mockito.mock(MarketDataChannel.class), orderChannel);
+
+        book[0].matchOrAddLimitOrder(book[0].getPool().acquireLimitOrder(Side.SELL, 101L, 100L, 1));
+        book[0].matchOrAddLimitOrder(book[0].getPool().acquireLimitOrder(Side.SELL, 102L, 100L, 2));
+        book[0].matchOrAddLimitOrder(book[0].getPool().acquireLimitOrder(Side.BUY, 102L, 150L, 3));
+
+        assertEquals(List.of("3:100@101", "4:30@102", "3:50@102"), fills);
+        assertEquals(102L, book[0].getAskBookSide().getFirstLevel().getPrice());
+        assertEquals(20L, book[0].getAskBookSide().getFirstLevel().getQuantity());
+        assertEquals(20L, book[0].getRestingOrder(2).getQuantity());
+        assertNull(book[0].getRestingOrder(1));
+    }
+}
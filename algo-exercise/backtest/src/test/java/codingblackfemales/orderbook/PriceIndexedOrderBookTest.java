@@ -0,0 +1,187 @@
+package codingblackfemales.orderbook;
+
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
+import codingblackfemales.orderbook.order.LimitOrderFlyweight;
+import codingblackfemales.orderbook.order.MarketDataOrderFlyweight;
+import codingblackfemales.orderbook.pool.OrderBookPool;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Random;
+
+import static codingblackfemales.orderbook.MatchingOrderBookVisitorTest.wrapBufferInDecoder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PriceIndexedOrderBookTest {
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder bookUpdateEncoder = new BookUpdateEncoder();
+
+    @Test
+    public void testIndexedBookMatchesLinkedBook() {
+        final OrderBook linked = new OrderBook(Mockito.mock(MarketDataChannel.class), Mockito.mock(OrderChannel.class));
+        final OrderBook indexed = new OrderBook(Mockito.mock(MarketDataChannel.class), Mockito.mock(OrderChannel.class), true);
+
+        //orders go in without publishing the book, which needs the level count the matching visitor can upset
+        final Random random = new Random(7);
+        long orderId = 0;
+        for (int i = 0; i < 2_000; i++) {
+            switch (random.nextInt(3)) {
+                case 0: {
+                    final UnsafeBuffer update = randomBookUpdate(random);
+                    linked.onBookUpdate(wrapBufferInDecoder(update));
+                    indexed.onBookUpdate(wrapBufferInDecoder(update));
+                    break;
+                }
+                case 1: {
+                    final Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+                    final long price = 950 + random.nextInt(100);
+                    final long quantity = 1 + random.nextInt(500);
+                    orderId++;
+                    linked.matchOrAddLimitOrder(new LimitOrderFlyweight(side, price, quantity, orderId));
+                    indexed.matchOrAddLimitOrder(new LimitOrderFlyweight(side, price, quantity, orderId));
+                    break;
+                }
+                default: {
+                    final long toCancel = orderId == 0 ? 0 : 1 + random.nextInt((int) orderId);
+                    linked.cancelOrder(toCancel);
+                    indexed.cancelOrder(toCancel);
+                    break;
+                }
+            }
+            assertSameLevels(linked.getBidBookSide(), indexed.getBidBookSide());
+            assertSameLevels(linked.getAskBookSide(), indexed.getAskBookSide());
+        }
+    }
+
+    @Test
+    public void testIndexFollowsPricesOutsideItsWindow() {
+        final AskBookSide linked = new AskBookSide();
+        final AskBookSide indexed = new AskBookSide(true);
+
+        //far enough apart that the window can't span them, so it moves and has to fall back to the list
+        final long[] prices = {1_000, 1_010, 500_000, 1_005, 2_000_000, 999, 500_001, 1_000, 3_000_000, 2_000_000};
+        for (long price : prices) {
+            linked.addMarketDataOrder(new MarketDataOrderFlyweight(Side.SELL, price, 10));
+            indexed.addMarketDataOrder(new MarketDataOrderFlyweight(Side.SELL, price, 10));
+            assertSameLevels(linked, indexed);
+        }
+
+        linked.removeMarketDataOrders();
+        indexed.removeMarketDataOrders();
+        assertSameLevels(linked, indexed);
+
+        //levels removed behind the index's back are not found again
+        linked.addMarketDataOrder(new MarketDataOrderFlyweight(Side.SELL, 1_005, 10));
+        indexed.addMarketDataOrder(new MarketDataOrderFlyweight(Side.SELL, 1_005, 10));
+        assertSameLevels(linked, indexed);
+        assertEquals(1_005L, indexed.getFirstLevel().next().getPrice());
+    }
+
+    @Test
+    public void testSparseSideMatchesLinkedSide() {
+        final BidBookSide linked = new BidBookSide();
+        final BidBookSide indexed = new BidBookSide(true);
+
+        //levels hundreds to thousands of ticks apart, some further than the index scans before walking the list, over
+        //more ticks than the window holds
+        final Random random = new Random(11);
+        for (int i = 0; i < 2_000; i++) {
+            if (random.nextInt(50) == 0) {
+                linked.removeMarketDataOrders();
+                indexed.removeMarketDataOrders();
+            } else {
+                final long price = 1_000_000 + 100L * random.nextInt(2_000);
+                linked.addMarketDataOrder(new MarketDataOrderFlyweight(Side.BUY, price, 10));
+                indexed.addMarketDataOrder(new MarketDataOrderFlyweight(Side.BUY, price, 10));
+            }
+            assertSameLevels(linked, indexed);
+        }
+    }
+
+    @Test
+    public void testLevelReusedByTheOtherSideIsNotInThisSide() {
+        final OrderBookPool pool = new OrderBookPool();
+        final BidBookSide bids = new BidBookSide(true, pool);
+        final AskBookSide asks = new AskBookSide(true, pool);
+
+        bids.addMarketDataOrder(new MarketDataOrderFlyweight(Side.BUY, 102, 10));
+        bids.addMarketDataOrder(new MarketDataOrderFlyweight(Side.BUY, 100, 10));
+        asks.addMarketDataOrder(new MarketDataOrderFlyweight(Side.SELL, 99, 10));
+        asks.addMarketDataOrder(new MarketDataOrderFlyweight(Side.SELL, 101, 10));
+
+        //taken out of the bids as a visitor would, without telling the index, then reused by the asks at the same price
+        final OrderBookLevel level = bids.getFirstLevel().next();
+        bids.setFirstLevel(level.remove());
+        pool.releaseLevel(level);
+        asks.addMarketDataOrder(new MarketDataOrderFlyweight(Side.SELL, 100, 10));
+        assertSame(level, asks.getFirstLevel().next());
+
+        bids.addMarketDataOrder(new MarketDataOrderFlyweight(Side.BUY, 100, 20));
+
+        assertEquals(100L, bids.getFirstLevel().next().getPrice());
+        assertEquals(20L, bids.getFirstLevel().next().getQuantity());
+        assertEquals(10L, level.getQuantity());
+    }
+
+    private UnsafeBuffer randomBookUpdate(final Random random) {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[1024]);
+        bookUpdateEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder);
+        bookUpdateEncoder.venue(Venue.XLON);
+        bookUpdateEncoder.instrumentId(123L);
+
+        final int bids = random.nextInt(6);
+        final BookUpdateEncoder.BidBookEncoder bidBook = bookUpdateEncoder.bidBookCount(bids);
+        long price = 1_000 - random.nextInt(5);
+        for (int i = 0; i < bids; i++) {
+            bidBook.next().price(price).size(1 + random.nextInt(500));
+            price -= 1 + random.nextInt(5);
+        }
+
+        final int asks = random.nextInt(6);
+        final BookUpdateEncoder.AskBookEncoder askBook = bookUpdateEncoder.askBookCount(asks);
+        price = 1_001 + random.nextInt(5);
+        for (int i = 0; i < asks; i++) {
+            askBook.next().price(price).size(1 + random.nextInt(500));
+            price += 1 + random.nextInt(5);
+        }
+
+        bookUpdateEncoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        bookUpdateEncoder.source(Source.STREAM);
+        return buffer;
+    }
+
+    private static void assertSameLevels(final OrderBookSide expected, final OrderBookSide actual) {
+        OrderBookLevel expectedLevel = expected.getFirstLevel();
+        OrderBookLevel actualLevel = actual.getFirstLevel();
+        while (expectedLevel != null) {
+            assertEquals(expectedLevel.getPrice(), actualLevel.getPrice());
+            assertEquals(expectedLevel.getQuantity(), actualLevel.getQuantity());
+
+            DefaultOrderFlyweight expectedOrder = expectedLevel.getFirstOrder();
+            DefaultOrderFlyweight actualOrder = actualLevel.getFirstOrder();
+            while (expectedOrder != null) {
+                assertEquals(expectedOrder.getClass(), actualOrder.getClass());
+                assertEquals(expectedOrder.getQuantity(), actualOrder.getQuantity());
+                expectedOrder = expectedOrder.next();
+                actualOrder = actualOrder.next();
+            }
+            assertNull(actualOrder);
+
+            expectedLevel = expectedLevel.next();
+            actualLevel = actualLevel.next();
+        }
+        assertNull(actualLevel);
+    }
+}
@@ -0,0 +1,5 @@
+package codingblackfemales.collection.extrusive;
+
+public interface LongObjConsumer<TYPEOF> {
+    public void accept(long l, TYPEOF obj);
+}
@@ -0,0 +1,201 @@
+package codingblackfemales.collection.extrusive;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from primitive long keys to objects, using linear probing.
+ *
+ * Keys are never boxed, and get, put and remove don't allocate once the map has grown to its working size. The tables
+ * double when the map is half full, so give the expected number of entries up front to keep resizing off the hot path.
+ * Remove shifts the rest of the probe sequence back instead of leaving tombstones, so lookups stay short however many
+ * entries have come and gone.
+ *
+ * A null value marks an empty slot, so null values can't be stored. Not thread-safe.
+ *
+ * @param <TYPEOF>
+ */
+public class LongToObjHashMap<TYPEOF> implements LongToObjMap<TYPEOF> {
+
+    private static final int DEFAULT_EXPECTED_SIZE = 64;
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int resizeThreshold;
+    private int size = 0;
+
+    public LongToObjHashMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    public LongToObjHashMap(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    @Override
+    public TYPEOF get(final long l) {
+        return getOrDefault(l, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TYPEOF getOrDefault(final long l, final TYPEOF obj) {
+        int index = hash(l, mask);
+        Object value;
+        while ((value = values[index]) != null) {
+            if (keys[index] == l) {
+                return (TYPEOF) value;
+            }
+            index = (index + 1) & mask;
+        }
+        return obj;
+    }
+
+    @Override
+    public void put(final long l, final TYPEOF obj) {
+        if (obj == null) {
+            throw new IllegalArgumentException("LongToObjHashMap can't hold null values, key: " + l);
+        }
+
+        int index = hash(l, mask);
+        while (values[index] != null) {
+            if (keys[index] == l) {
+                values[index] = obj;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = l;
+        values[index] = obj;
+
+        if (++size > resizeThreshold) {
+            rehash(values.length << 1);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TYPEOF remove(final long l) {
+        int index = hash(l, mask);
+        Object value;
+        while ((value = values[index]) != null) {
+            if (keys[index] == l) {
+                values[index] = null;
+                size--;
+                closeGap(index);
+                return (TYPEOF) value;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(final long l) {
+        return get(l) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(final LongObjConsumer<TYPEOF> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                consumer.accept(keys[i], (TYPEOF) value);
+            }
+        }
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Moves back any entries after the removed one which would no longer be found past the empty slot.
+     */
+    private void closeGap(final int removedIndex) {
+        int gap = removedIndex;
+        int index = (removedIndex + 1) & mask;
+        while (values[index] != null) {
+            final int ideal = hash(keys[index], mask);
+            //the entry can fill the gap if its ideal slot is at or before the gap in probe order
+            if (((index - ideal) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                values[index] = null;
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void rehash(final int newCapacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            final Object value = oldValues[i];
+            if (value != null) {
+                int index = hash(oldKeys[i], mask);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = value;
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity >> 1;
+    }
+
+    private static int capacityFor(final int expectedSize) {
+        final long wanted = Math.max(MIN_CAPACITY, (long) expectedSize * 2);
+        if (wanted > (1 << 30)) {
+            throw new IllegalArgumentException("expectedSize is too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    private static int hash(final long key, final int mask) {
+        //order ids are sequential, spread them so neighbouring keys don't share a probe run
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+}
@@ -3,5 +3,12 @@ package codingblackfemales.collection.extrusive;
 public class Map {
     public void intToObjMap(){}
     public void boolToObjMap(){}
-    public void longToObjMap(){}
+
+    public static <TYPEOF> LongToObjMap<TYPEOF> longToObjMap(){
+        return new LongToObjHashMap<>();
+    }
+
+    public static <TYPEOF> LongToObjMap<TYPEOF> longToObjMap(final int expectedSize){
+        return new LongToObjHashMap<>(expectedSize);
+    }
 }
@@ -4,8 +4,11 @@ package codingblackfemales.collection.intrusive;
  * A basic implementation of an Intrusive Linked List. Some features of this:
  *
  * 1) The remove call always returns the new first node
- * 2)
+ * 2) The first node, last node and size live in a ListHead shared by every node in the list, so a new first or last
+ *    node is one write to the head rather than one per node, and any node can find them.
  *
+ * Every node brings a ListHead of its own and a list uses the one belonging to one of its nodes. When that node leaves
+ * the list it swaps heads with the new first node, so nothing is allocated after a node is created.
  *
  * @param <TYPEOF>
  */
@@ -13,69 +16,36 @@ public abstract class IntrusiveLinkedListNode<TYPEOF extends IntrusiveLinkedList
 
     protected TYPEOF next = null;
     protected TYPEOF previous = null;
-    protected TYPEOF first = null;
-    protected TYPEOF last = null;
 
-    protected int size = 0;
+    //the head of the list this node is in
+    ListHead<TYPEOF> list;
+    //the head this node brought, either the one its list uses or a spare
+    ListHead<TYPEOF> ownHead = new ListHead<>();
 
     protected IntrusiveLinkedListNode() {
-        this.first = (TYPEOF) this;
-        this.last = (TYPEOF) this;
-        this.previous = null;
-        this.next = null;
-        this.size = 1;
+        resetLinks();
     }
 
     public IntrusiveLinkedListNode<TYPEOF> add(final TYPEOF item) {
-        addToTail(item);
-        setPrevious(item, this.last);
-        setLast(item);
-        item.first = this.first;
-        setSize(this.size() + 1);
+        final ListHead<TYPEOF> head = this.list;
+        final TYPEOF last = head.last;
+        last.next = item;
+        item.previous = last;
+        item.next = null;
+        item.list = head;
+        head.last = item;
+        head.size++;
         return first();
     }
 
-    private void setPrevious(final TYPEOF item, final TYPEOF previous){
-        item.previous = previous;
-    }
-
-    private void addToTail(final TYPEOF item){
-        this.last.next = item;
-    }
-
-    private void setLast(final TYPEOF item){
-        this.first.last = item;
-    }
-
-    private void setSize(final int size){
-        this.first.size = size;
-    }
-
-    private void setSize(final TYPEOF newFirst, final int size){
-        newFirst.size = size;
-    }
-
-    private void linkPreviousAndNext(){
-        TYPEOF previous = this.previous;
-        TYPEOF next = this.next;
-
-        if (previous != null) {
-            previous.next = next;
-        }
-
-        if(next != null) {
-            next.previous = previous;
-        }
-    }
-
-
     public void insertFirst(TYPEOF self, TYPEOF level) {
+        final ListHead<TYPEOF> head = self.list;
+        level.previous = null;
         level.next = self;
-        this.previous = level;
-
-        setFirst(level);
-        level.last = this.last;
-        setSize(size()+1);
+        self.previous = level;
+        level.list = head;
+        head.first = level;
+        head.size++;
     }
 
     public void insertAfter(TYPEOF self, TYPEOF current, TYPEOF next) {
@@ -83,74 +53,54 @@ public abstract class IntrusiveLinkedListNode<TYPEOF extends IntrusiveLinkedList
         current.previous = self;
         current.next = next;
         next.previous = current;
-        setSize(size()+1);
-    }
-
-    private void setFirst(TYPEOF first) {
-        this.first.first = first;
-//        IntrusiveLinkedListNode<TYPEOF> thePrevious = first;
-//        while (thePrevious != null) {
-//            thePrevious.first = first;
-//            thePrevious = thePrevious.next;
-//        }
-    }
-
-    private void resetFirst(TYPEOF first) {
-        //this.first.first = first;
-        IntrusiveLinkedListNode<TYPEOF> thePrevious = first;
-        while (thePrevious != null) {
-            thePrevious.first = first;
-            thePrevious = thePrevious.next;
-        }
+        current.list = self.list;
+        self.list.size++;
     }
 
-//    private void setSize(TYPEOF last) {
-//        if (last == null) {
-//            return;
-//        }
-//
-//        IntrusiveLinkedListNode<TYPEOF> thePrevious = last.previous;
-//        while (thePrevious != null) {
-//            thePrevious.size = this.size;
-//            thePrevious = thePrevious.previous;
-//        }
-//    }
-
     public TYPEOF remove() {
+        final ListHead<TYPEOF> head = this.list;
 
-        TYPEOF previousLast = this.last();
-
-        final int newSize = this.size() - 1;
-
-        if(previousLast.equals(this)){
-            setLast(this.previous);
+        if (previous != null) {
+            previous.next = next;
+        } else {
+            head.first = next;
         }
 
-        linkPreviousAndNext();
+        if (next != null) {
+            next.previous = previous;
+        } else {
+            head.last = previous;
+        }
 
-        TYPEOF newFirst = null;
+        head.size--;
 
-        if (this.first.equals(this)) {
-            newFirst = next;
-            resetFirst(newFirst);
-        }else{
-            newFirst = this.first();
+        final TYPEOF newFirst = head.first;
+        if (head == ownHead && newFirst != null) {
+            //the list keeps the head it has, this node takes the new first node's spare in its place
+            ownHead = newFirst.ownHead;
+            newFirst.ownHead = head;
         }
+        return newFirst;
+    }
 
-        if(newFirst != null){
-            setSize(newFirst, newSize);
-            return newFirst;
-        }else{
-            return null;
-        }
+    /**
+     * Puts a node that has been removed back to a list of its own, so it can be reused.
+     */
+    public void resetLinks() {
+        this.previous = null;
+        this.next = null;
+        this.list = ownHead;
+        this.list.first = (TYPEOF) this;
+        this.list.last = (TYPEOF) this;
+        this.list.size = 1;
     }
 
     public TYPEOF first() {
-        return this.first.first;
+        return list.first;
     }
 
     public TYPEOF last() {
-        return this.first.last;
+        return list.last;
     }
 
     public TYPEOF next() {
@@ -166,6 +116,12 @@ public abstract class IntrusiveLinkedListNode<TYPEOF extends IntrusiveLinkedList
     }
 
     public int size() {
-        return this.first.size;
+        return list.size;
+    }
+
+    private static final class ListHead<TYPEOF> {
+        private TYPEOF first;
+        private TYPEOF last;
+        private int size;
     }
 }
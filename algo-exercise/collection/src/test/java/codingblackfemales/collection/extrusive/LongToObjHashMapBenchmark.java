@@ -0,0 +1,97 @@
+package codingblackfemales.collection.extrusive;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LongToObjHashMap against HashMap<Long, ?> for the order id lookups OrderService does: find a live order, and the
+ * add/remove churn of orders coming and going. Run with -prof gc to see the boxing HashMap does per operation.
+ *
+ * Not run as part of the build, run main() from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LongToObjHashMapBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    int size;
+
+    private final Object value = new Object();
+
+    private LongToObjHashMap<Object> longToObjMap;
+    private HashMap<Long, Object> hashMap;
+
+    private long[] lookups;
+    private int next = 0;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        longToObjMap = new LongToObjHashMap<>(size);
+        hashMap = new HashMap<>(size * 2);
+
+        //order ids are handed out sequentially by the sequencer
+        for (long id = 0; id < size; id++) {
+            longToObjMap.put(id, value);
+            hashMap.put(id, value);
+        }
+        nextId = size;
+
+        lookups = new long[4096];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = (i * 7919L) % size;
+        }
+    }
+
+    @Benchmark
+    public Object getLongToObjMap() {
+        return longToObjMap.get(lookups[next++ & (lookups.length - 1)]);
+    }
+
+    @Benchmark
+    public Object getHashMap() {
+        return hashMap.get(lookups[next++ & (lookups.length - 1)]);
+    }
+
+    @Benchmark
+    public Object churnLongToObjMap() {
+        //add the newest order and retire the oldest, keeping the map at size
+        final long id = nextId++;
+        longToObjMap.put(id, value);
+        return longToObjMap.remove(id - size);
+    }
+
+    @Benchmark
+    public Object churnHashMap() {
+        final long id = nextId++;
+        hashMap.put(id, value);
+        return hashMap.remove(id - size);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LongToObjHashMapBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,93 @@
+package codingblackfemales.collection.extrusive;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongToObjHashMapTest {
+
+    @Test
+    public void testSimpleOps(){
+
+        final LongToObjMap<String> map = Map.longToObjMap();
+
+        map.put(1L, "one");
+        map.put(2L, "two");
+        map.put(-3L, "minus three");
+
+        assertEquals(3, map.size());
+        assertEquals("one", map.get(1L));
+        assertEquals("minus three", map.get(-3L));
+        assertNull(map.get(4L));
+        assertEquals("none", map.getOrDefault(4L, "none"));
+
+        map.put(2L, "TWO");
+        assertEquals(3, map.size());
+        assertEquals("TWO", map.get(2L));
+
+        assertEquals("one", map.remove(1L));
+        assertNull(map.remove(1L));
+        assertFalse(map.containsKey(1L));
+        assertTrue(map.containsKey(2L));
+        assertEquals(2, map.size());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(2L));
+    }
+
+    @Test
+    public void testGrowsPastExpectedSize(){
+
+        final LongToObjHashMap<Long> map = new LongToObjHashMap<>(4);
+
+        for (long i = 0; i < 10_000; i++) {
+            map.put(i, i * 10);
+        }
+
+        assertEquals(10_000, map.size());
+        for (long i = 0; i < 10_000; i++) {
+            assertEquals(Long.valueOf(i * 10), map.get(i));
+        }
+    }
+
+    @Test
+    public void testRemoveKeepsCollidingEntriesReachable(){
+
+        //a small key space so puts and removes keep hitting the same probe runs
+        final LongToObjHashMap<String> map = new LongToObjHashMap<>();
+        final Random random = new Random(42);
+        final HashMap<Long, String> expected = new HashMap<>();
+
+        for (int round = 0; round < 100_000; round++) {
+            final long key = random.nextInt(600);
+            if (random.nextBoolean()) {
+                map.put(key, "v" + round);
+                expected.put(key, "v" + round);
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+
+        final int[] seen = new int[1];
+        map.forEach((key, value) -> {
+            assertEquals(expected.get(key), value);
+            seen[0]++;
+        });
+        assertEquals(expected.size(), seen[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullValuesAreRejected(){
+        new LongToObjHashMap<String>().put(1L, null);
+    }
+}
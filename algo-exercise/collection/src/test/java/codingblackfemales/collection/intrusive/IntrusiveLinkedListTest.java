@@ -47,23 +47,23 @@ public class IntrusiveLinkedListTest {
         final ExampleNode node = new ExampleNode(0);
 
         assertEquals(1, node.size());
-        assertEquals(0, node.first.getI());
-        assertEquals(node, node.first);
-        assertEquals(node, node.last);
+        assertEquals(0, node.first().getI());
+        assertEquals(node, node.first());
+        assertEquals(node, node.last());
 
         IntStream.range(1, 5).forEach( i -> {
             node.add(new ExampleNode(i));
         });
 
-        assertEquals(4, node.last.getI());
-        assertEquals(0, node.first.getI());
+        assertEquals(4, node.last().getI());
+        assertEquals(0, node.first().getI());
         assertEquals(5, node.size());
 
         //when we remove a node we always return latest head.
-        ExampleNode latestHead = node.first.next.remove();
+        ExampleNode latestHead = node.first().next.remove();
 
-        assertEquals(0, latestHead.first.getI());
-        assertEquals(4, latestHead.last.getI());
+        assertEquals(0, latestHead.first().getI());
+        assertEquals(4, latestHead.last().getI());
         assertEquals(4, latestHead.size());
 
         assertEquals(2, latestHead.next.getI());
@@ -79,7 +79,7 @@ public class IntrusiveLinkedListTest {
             node.add(new ExampleNode(i));
         });
 
-        final ExampleNode newNodeMinus1Last = node.first.last.remove();
+        final ExampleNode newNodeMinus1Last = node.first().last().remove();
         final ExampleNode expectedLast1 = node.next.next.next;
 
         assertEquals(3, expectedLast1.getI());
@@ -87,7 +87,7 @@ public class IntrusiveLinkedListTest {
 
         assertAllLastEquals(newNodeMinus1Last, expectedLast1, 3);
 
-        final ExampleNode newFirst2 = node.first.last.remove();
+        final ExampleNode newFirst2 = node.first().last().remove();
         final ExampleNode newLast2 = newFirst2.next.next;
 
         assertEquals(3, newFirst2.size());
@@ -95,7 +95,7 @@ public class IntrusiveLinkedListTest {
 
         assertAllLastEquals(newFirst2, newLast2, 2);
 
-        final ExampleNode newFirst3 = node.first.last.remove();
+        final ExampleNode newFirst3 = node.first().last().remove();
         final ExampleNode newLast3 = newFirst3.next;
 
         assertEquals(2, newFirst3.size());
@@ -103,7 +103,7 @@ public class IntrusiveLinkedListTest {
 
         assertAllLastEquals(newFirst3, newLast3, 1);
 
-        final ExampleNode newFirst4 = node.first.last.remove();
+        final ExampleNode newFirst4 = node.first().last().remove();
         final ExampleNode newLast4 = newFirst4;
 
         assertEquals(1, newFirst4.size());
@@ -122,23 +122,94 @@ public class IntrusiveLinkedListTest {
             node.add(new ExampleNode(i));
         });
 
-        final ExampleNode node1First = node.first.remove();
-        assertEquals(1, node1First.first.getI());
+        final ExampleNode node1First = node.first().remove();
+        assertEquals(1, node1First.first().getI());
         assertEquals(4, node1First.size());
 
-        final ExampleNode node2First = node1First.first.remove();
-        assertEquals(2, node2First.first.getI());
+        final ExampleNode node2First = node1First.first().remove();
+        assertEquals(2, node2First.first().getI());
         assertEquals(3, node2First.size());
 
-        final ExampleNode node3First = node2First.first.remove();
-        assertEquals(3, node3First.first.getI());
+        final ExampleNode node3First = node2First.first().remove();
+        assertEquals(3, node3First.first().getI());
         assertEquals(2, node3First.size());
 
-        final ExampleNode node4First = node3First.first.remove();
-        assertEquals(4, node4First.first.getI());
+        final ExampleNode node4First = node3First.first().remove();
+        assertEquals(4, node4First.first().getI());
         assertEquals(1, node4First.size());
     }
 
+    @Test
+    public void testInsertFirstAndBetween(){
+        final ExampleNode node = new ExampleNode(2);
+        node.add(new ExampleNode(4));
+
+        final ExampleNode one = new ExampleNode(1);
+        node.insertFirst(node, one);
+        final ExampleNode zero = new ExampleNode(0);
+        one.insertFirst(one, zero);
+        final ExampleNode three = new ExampleNode(3);
+        node.insertAfter(node, three, node.next);
+
+        assertEquals(5, zero.size());
+        ExampleNode next = zero;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, next.getI());
+            assertEquals(zero, next.first());
+            assertEquals(5, next.size());
+            next = next.next();
+        }
+        assertAllLastEquals(zero, node.last(), 4);
+
+        //removing the head keeps the tail
+        final ExampleNode newFirst = zero.remove();
+        assertEquals(one, newFirst);
+        assertEquals(4, newFirst.size());
+        assertAllLastEquals(newFirst, three.next(), 4);
+    }
+
+    @Test
+    public void testAddToFormerHeadAfterTailRemoved(){
+        final ExampleNode one = new ExampleNode(1);
+        final ExampleNode two = new ExampleNode(2);
+        one.add(two);
+        final ExampleNode zero = new ExampleNode(0);
+        one.insertFirst(one, zero);
+
+        //one was the head when two was added, the tail it sees has to follow the removal
+        two.remove();
+        zero.last().add(new ExampleNode(3));
+
+        assertEquals(3, zero.size());
+        assertEquals(3, one.next().getI());
+        assertAllLastEquals(zero, one.next(), 3);
+    }
+
+    @Test
+    public void testRemovedHeadCanBeReusedWithoutDisturbingTheList(){
+        final ExampleNode zero = new ExampleNode(0);
+        zero.add(new ExampleNode(1)).add(new ExampleNode(2));
+
+        //zero's head is the one the list uses, it has to leave it behind
+        final ExampleNode newFirst = zero.remove();
+        zero.resetLinks();
+        zero.add(new ExampleNode(9));
+
+        assertEquals(2, zero.size());
+        assertEquals(9, zero.last().getI());
+
+        assertEquals(1, newFirst.getI());
+        assertEquals(2, newFirst.size());
+        assertEquals(newFirst, newFirst.next().first());
+        assertAllLastEquals(newFirst, newFirst.next(), 2);
+
+        //a new head goes in front without touching the others
+        final ExampleNode three = new ExampleNode(3);
+        newFirst.insertFirst(newFirst, three);
+        assertEquals(three, newFirst.next().first());
+        assertEquals(3, newFirst.next().size());
+    }
+
     private static void assertAllLastEquals(ExampleNode starting, ExampleNode expectedLast, int expectedLastId){
         ExampleNode next = starting;
 
@@ -1,42 +1,71 @@
 package codingblackfemales.sequencer;
 
+import codingblackfemales.sequencer.latency.LatencyTracker;
 import codingblackfemales.sequencer.net.Network;
+import codingblackfemales.sequencer.util.BufferStack;
+import codingblackfemales.sequencer.util.OrderBatchIdAssigner;
 import messages.marketdata.MessageHeaderDecoder;
 import messages.marketdata.MessageHeaderEncoder;
 import messages.order.CreateOrderDecoder;
 import messages.order.CreateOrderEncoder;
+import messages.order.OrderBatchEncoder;
 import org.agrona.DirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 
-import java.nio.ByteBuffer;
-
+/**
+ * Single threaded sequencer, stamps each command with the next sequence number and dispatches it to the network.
+ *
+ * The dispatch path does not allocate: the sequence number is stamped in place into the sender's buffer, and model
+ * commands (which the sequencer rewrites, e.g. to assign an order id) are encoded into preallocated slots, one per level
+ * of nested dispatch. Order batches get their order ids written in place.
+ */
 public class DefaultSequencer implements Sequencer {
 
+    private static final int BUSINESS_BUFFER_SIZE = 1024;
+    private static final int INITIAL_DISPATCH_DEPTH = 16;
+
     private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
     private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
 
-    private ByteBuffer byteBuffer;//= ByteBuffer.allocateDirect(1024);
-    private UnsafeBuffer mutableBuffer;// = new UnsafeBuffer(byteBuffer);
+    //flyweight over the message being sequenced, re-wrapped for every message rather than allocated
+    private final UnsafeBuffer mutableBuffer = new UnsafeBuffer();
 
     private final CreateOrderDecoder createOrderDecoder = new CreateOrderDecoder();
     private final CreateOrderEncoder createOrderEncoder = new CreateOrderEncoder();
 
     private final messages.order.MessageHeaderEncoder businessHeaderEncoder = new messages.order.MessageHeaderEncoder();
 
-    private final ByteBuffer businessByteBuffer = ByteBuffer.allocateDirect(1024);
-    private final UnsafeBuffer businessMutableBuffer = new UnsafeBuffer(businessByteBuffer);
+    private final BufferStack businessBuffers = new BufferStack(BUSINESS_BUFFER_SIZE, INITIAL_DISPATCH_DEPTH);
+
+    private final OrderBatchIdAssigner orderBatchIdAssigner = new OrderBatchIdAssigner();
 
     long sequencerNumber = 0L;
 
     private final Network network;
+    private final LatencyTracker latencyTracker;
 
     public DefaultSequencer(Network network) {
+        this(network, LatencyTracker.NOOP);
+    }
+
+    public DefaultSequencer(Network network, LatencyTracker latencyTracker) {
         this.network = network;
+        this.latencyTracker = latencyTracker;
     }
 
     @Override
     public void onCommand(DirectBuffer bb) {
 
+        latencyTracker.onIngress();
+        try {
+            sequenceAndDispatch(bb);
+        } finally {
+            latencyTracker.onEgress();
+        }
+    }
+
+    private void sequenceAndDispatch(DirectBuffer bb) {
+
         headerDecoder.wrap(bb, 0);
 
         int schemaId = headerDecoder.schemaId();
@@ -44,7 +73,17 @@ public class DefaultSequencer implements Sequencer {
 
         if(isModelMessage(schemaId, templateId)){
             DirectBuffer mutatedBuffer = processModelCommand(bb, schemaId, headerDecoder);
-            sequenceAndDispatchMessage(mutatedBuffer);
+            try {
+                sequenceAndDispatchMessage(mutatedBuffer);
+            } finally {
+                //the slot taken by processModelCommand is free once every consumer has seen the message
+                businessBuffers.pop();
+            }
+        }
+        else if(isOrderBatch(schemaId, templateId)){
+            mutableBuffer.wrap(bb);
+            orderId += orderBatchIdAssigner.assignOrderIds(mutableBuffer, 0, orderId + 1);
+            sequenceAndDispatchMessage(bb);
         }
         else{
             sequenceAndDispatchMessage(bb);
@@ -52,6 +91,10 @@ public class DefaultSequencer implements Sequencer {
 
     }
 
+    /**
+     * Re-encodes a model command into the business buffer for the current dispatch depth. The caller must pop the
+     * slot once the returned buffer has been dispatched.
+     */
     public DirectBuffer processModelCommand(final DirectBuffer byteBuffer, final int schemaId, final MessageHeaderDecoder header){
 
         final int actingBlockLength = header.blockLength();
@@ -60,8 +103,10 @@ public class DefaultSequencer implements Sequencer {
 
         createOrderDecoder.wrap(byteBuffer, bufferOffset, actingBlockLength, actingVersion);
 
+        final UnsafeBuffer businessMutableBuffer = businessBuffers.push();
 
         createOrderEncoder.wrapAndApplyHeader(businessMutableBuffer, 0, businessHeaderEncoder);
+        createOrderEncoder.instrumentId(createOrderDecoder.instrumentId());
         createOrderEncoder.price(createOrderDecoder.price());
         createOrderEncoder.quantity(createOrderDecoder.quantity());
         createOrderEncoder.side(createOrderDecoder.side());
@@ -77,9 +122,7 @@ public class DefaultSequencer implements Sequencer {
 
     public void sequenceAndDispatchMessage(final DirectBuffer bb){
 
-        byteBuffer = ByteBuffer.allocateDirect(1024);
-        mutableBuffer = new UnsafeBuffer(byteBuffer);
-
+        //stamp the sequence number in place, the flyweight is only used for the write so nested dispatches can re-wrap it
         mutableBuffer.wrap(bb);
 
         headerEncoder.wrap(mutableBuffer, 0);
@@ -88,7 +131,7 @@ public class DefaultSequencer implements Sequencer {
 
         headerEncoder.sequencerNumber(sequencerNumber);
 
-        dispatchToNetwork(mutableBuffer);
+        dispatchToNetwork(bb);
     }
 
     public void dispatchToNetwork(DirectBuffer sequencedBuffer){
@@ -99,4 +142,8 @@ public class DefaultSequencer implements Sequencer {
         return schemaId == CreateOrderEncoder.SCHEMA_ID && templateId == CreateOrderEncoder.TEMPLATE_ID;
     }
 
+    public boolean isOrderBatch(final int schemaId, final int templateId) {
+        return schemaId == OrderBatchEncoder.SCHEMA_ID && templateId == OrderBatchEncoder.TEMPLATE_ID;
+    }
+
 }
@@ -1,35 +1,184 @@
 package codingblackfemales.sequencer;
 
-import codingblackfemales.sequencer.util.ByteBufferUtil;
+import codingblackfemales.sequencer.net.Network;
+import codingblackfemales.sequencer.util.FrameLength;
+import codingblackfemales.sequencer.util.OrderBatchIdAssigner;
+import messages.marketdata.MessageHeaderDecoder;
 import messages.marketdata.MessageHeaderEncoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.OrderBatchEncoder;
+import org.agrona.BitUtil;
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.Agent;
 import org.agrona.concurrent.UnsafeBuffer;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
-public class RealSequencer {
+/**
+ * Multi producer sequencer, onCommand can be called from any number of threads at once.
+ *
+ * Producers claim a free slot in a ring with a compare and set on an atomic counter, copy their frame into it and publish the slot with an
+ * ordered store. The claim order is the total order: a single dispatcher (this agent's doWork, run on an AgentRunner
+ * or called directly) drains the slots in claim order, stamps a gap free sequence number, assigns order ids to new
+ * orders (single creates and the creates in an order batch) and dispatches to the network.
+ *
+ * Commands sent from the dispatcher thread (e.g. an algo reacting to market data) are queued behind the message being
+ * dispatched rather than dispatched re-entrantly. If the ring is full such a send fails with an IllegalStateException,
+ * as waiting for the dispatcher on its own thread would never return. Other producers spin until a slot is free.
+ *
+ * A producer which claims a slot and never publishes it stalls the dispatcher, so onCommand must not be interrupted
+ * part way through.
+ */
+public class RealSequencer implements Sequencer, Agent {
 
-    final ByteBuffer sequenced = ByteBuffer.allocateDirect(1024);
-    final UnsafeBuffer directBuffer = new UnsafeBuffer();
-    final MessageHeaderEncoder encoder = new MessageHeaderEncoder();
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int DEFAULT_SLOT_LENGTH = 1024;
 
-    final long sequenceNumber = 0L;
+    private static final int LENGTH_FIELD_LENGTH = 4;
+    private static final int MAX_SPINS = 100;
 
-    public void processMessage(DirectBuffer buffer){
+    private final Network network;
+    private final int capacity;
+    private final int mask;
+    private final int slotLength;
 
-        ByteBufferUtil.cloneInto(buffer.byteBuffer(), sequenced);
+    private final UnsafeBuffer slots;
+    //published.get(slot) == claimed sequence + 1 once the producer has finished copying into the slot
+    private final AtomicLongArray published;
+    private final AtomicLong claimSequence = new AtomicLong();
+    private final AtomicLong dispatchedSequence = new AtomicLong();
 
-        directBuffer.wrap(sequenced);
+    private final ThreadLocal<FrameLength> frameLength = ThreadLocal.withInitial(FrameLength::new);
 
-        encoder.wrap(directBuffer, 0);
+    //only touched by the dispatcher
+    private final UnsafeBuffer frame = new UnsafeBuffer();
+    private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final CreateOrderEncoder createOrderEncoder = new CreateOrderEncoder();
+    private final OrderBatchIdAssigner orderBatchIdAssigner = new OrderBatchIdAssigner();
+    private Thread dispatcherThread;
+    private long orderId = 1;
 
-        encoder.sequencerNumber(sequenceNumber);
+    public RealSequencer(final Network network) {
+        this(network, DEFAULT_CAPACITY, DEFAULT_SLOT_LENGTH);
+    }
+
+    /**
+     * @param capacity number of slots, must be a power of two
+     * @param slotLength largest frame the sequencer accepts, plus 4 bytes for its length
+     */
+    public RealSequencer(final Network network, final int capacity, final int slotLength) {
+        if (!BitUtil.isPowerOfTwo(capacity)) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.network = network;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slotLength = slotLength;
+        this.slots = new UnsafeBuffer(ByteBuffer.allocateDirect(capacity * slotLength));
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    @Override
+    public void onCommand(final DirectBuffer buffer) {
+
+        final int length = frameLength.get().frameLength(buffer, 0);
+        if (length + LENGTH_FIELD_LENGTH > slotLength) {
+            throw new IllegalArgumentException("Frame of " + length + " bytes is larger than the slot length " + slotLength);
+        }
+
+        //only claim a slot which is free, a claimed slot has to be published or the dispatcher stops at it for good
+        long claimed;
+        int spins = 0;
+        while (true) {
+            claimed = claimSequence.get();
+            if (claimed - dispatchedSequence.get() < capacity) {
+                if (claimSequence.compareAndSet(claimed, claimed + 1)) {
+                    break;
+                }
+                continue;
+            }
+            if (Thread.currentThread() == dispatcherThread) {
+                throw new IllegalStateException("Sequencer ring is full, cannot queue a command from the dispatcher thread");
+            }
+            //yield once spinning hasn't helped, producers may share a core with the dispatcher
+            if (++spins < MAX_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+
+        final int slot = (int) (claimed & mask);
+        final int offset = slot * slotLength;
+        slots.putInt(offset, length);
+        slots.putBytes(offset + LENGTH_FIELD_LENGTH, buffer, 0, length);
+        published.lazySet(slot, claimed + 1);
+    }
+
+    /**
+     * Dispatches every published command, in claim order, until it reaches one which hasn't been published yet.
+     *
+     * @return the number of commands dispatched
+     */
+    @Override
+    public int doWork() {
+        dispatcherThread = Thread.currentThread();
+
+        int dispatched = 0;
+        long next = dispatchedSequence.get();
+
+        while (published.get((int) (next & mask)) == next + 1) {
+            final int offset = (int) (next & mask) * slotLength;
+            frame.wrap(slots, offset + LENGTH_FIELD_LENGTH, slots.getInt(offset));
+
+            headerEncoder.wrap(frame, 0);
+            headerEncoder.sequencerNumber(next + 1);
 
-        dispatch(directBuffer);
+            if (isModelMessage(frame)) {
+                createOrderEncoder.wrap(frame, headerEncoder.encodedLength());
+                createOrderEncoder.orderId(newOrderId());
+            } else if (isOrderBatch(frame)) {
+                orderId += orderBatchIdAssigner.assignOrderIds(frame, 0, orderId + 1);
+            }
+
+            network.dispatch(frame);
+
+            next += 1;
+            //the slot can be reused once every consumer has seen it
+            dispatchedSequence.lazySet(next);
+            dispatched++;
+        }
+
+        return dispatched;
+    }
+
+    @Override
+    public String roleName() {
+        return "real-sequencer";
+    }
+
+    public long dispatchedSequence() {
+        return dispatchedSequence.get();
+    }
+
+    public int capacity() {
+        return capacity;
     }
 
-    public void dispatch(UnsafeBuffer buffer){
-        //TODO: Implement
+    private boolean isModelMessage(final DirectBuffer buffer) {
+        headerDecoder.wrap(buffer, 0);
+        return headerDecoder.schemaId() == CreateOrderEncoder.SCHEMA_ID && headerDecoder.templateId() == CreateOrderEncoder.TEMPLATE_ID;
     }
 
+    private boolean isOrderBatch(final DirectBuffer buffer) {
+        headerDecoder.wrap(buffer, 0);
+        return headerDecoder.schemaId() == OrderBatchEncoder.SCHEMA_ID && headerDecoder.templateId() == OrderBatchEncoder.TEMPLATE_ID;
+    }
+
+    private long newOrderId() {
+        return orderId += 1;
+    }
 }
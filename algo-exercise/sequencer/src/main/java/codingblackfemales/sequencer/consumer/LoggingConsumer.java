@@ -1,12 +1,14 @@
 package codingblackfemales.sequencer.consumer;
 
 import codingblackfemales.sequencer.net.Consumer;
+import messages.marketdata.BookLevelUpdateDecoder;
 import messages.marketdata.BookUpdateDecoder;
 import messages.marketdata.MessageHeaderDecoder;
 import messages.order.CancelOrderDecoder;
 import messages.order.CreateOrderDecoder;
 import messages.order.CreateOrderEncoder;
 import messages.order.FillOrderDecoder;
+import messages.order.OrderBatchDecoder;
 import org.agrona.DirectBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,11 +21,14 @@ public class LoggingConsumer implements Consumer {
 
     private final MessageHeaderDecoder decoder = new MessageHeaderDecoder();
     private final BookUpdateDecoder bookUpdateDecoder = new BookUpdateDecoder();
+    private final BookLevelUpdateDecoder bookLevelUpdateDecoder = new BookLevelUpdateDecoder();
     private final CreateOrderDecoder createOrderDecoder = new CreateOrderDecoder();
     private final FillOrderDecoder fillDecoder = new FillOrderDecoder();
 
     private final CancelOrderDecoder cancelDecoder = new CancelOrderDecoder();
 
+    private final OrderBatchDecoder orderBatchDecoder = new OrderBatchDecoder();
+
     @Override
     public void onMessage(final DirectBuffer buffer) {
 
@@ -35,6 +40,12 @@ public class LoggingConsumer implements Consumer {
             int bufferOffset = decoder.encodedLength();
             bookUpdateDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
             logger.info("[" + decoder.sequencerNumber() + "] \n" + bookUpdateToString(bookUpdateDecoder));
+        } else if (decoder.schemaId() == BookLevelUpdateDecoder.SCHEMA_ID && decoder.templateId() == BookLevelUpdateDecoder.TEMPLATE_ID) {
+            final int actingBlockLength = decoder.blockLength();
+            final int actingVersion = decoder.version();
+            int bufferOffset = decoder.encodedLength();
+            bookLevelUpdateDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            logger.info("[" + decoder.sequencerNumber() + "] " + bookLevelUpdateDecoder);
         } else if (decoder.schemaId() == CreateOrderEncoder.SCHEMA_ID && decoder.templateId() == CreateOrderDecoder.TEMPLATE_ID) {
             final int actingBlockLength = decoder.blockLength();
             final int actingVersion = decoder.version();
@@ -54,6 +65,12 @@ public class LoggingConsumer implements Consumer {
             int bufferOffset = decoder.encodedLength();
             cancelDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
             logger.info("[" + decoder.sequencerNumber() + "] " + cancelDecoder);
+        } else if (decoder.schemaId() == OrderBatchDecoder.SCHEMA_ID && decoder.templateId() == OrderBatchDecoder.TEMPLATE_ID) {
+            final int actingBlockLength = decoder.blockLength();
+            final int actingVersion = decoder.version();
+            int bufferOffset = decoder.encodedLength();
+            orderBatchDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            logger.info("[" + decoder.sequencerNumber() + "] " + orderBatchDecoder);
         }
     }
 }
@@ -3,6 +3,7 @@ package codingblackfemales.sequencer.event;
 import codingblackfemales.sequencer.net.Consumer;
 import messages.marketdata.AskBookUpdateDecoder;
 import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookLevelUpdateDecoder;
 import messages.marketdata.BookUpdateDecoder;
 import messages.marketdata.MessageHeaderDecoder;
 import org.agrona.DirectBuffer;
@@ -13,6 +14,7 @@ public abstract class MarketDataEventListener implements Consumer {
     private final BookUpdateDecoder book = new BookUpdateDecoder();
     private final AskBookUpdateDecoder ask = new AskBookUpdateDecoder();
     private final BidBookUpdateDecoder bid = new BidBookUpdateDecoder();
+    private final BookLevelUpdateDecoder levels = new BookLevelUpdateDecoder();
 
     @Override
     public void onMessage(final DirectBuffer buffer) {
@@ -22,6 +24,11 @@ public abstract class MarketDataEventListener implements Consumer {
         final int actingVersion = header.version();
         final int bufferOffset = header.encodedLength();
 
+        //order messages reuse the same template ids, a partial fill is a 9 like BidBookUpdate
+        if(header.schemaId() != BookUpdateDecoder.SCHEMA_ID){
+            return;
+        }
+
         if(header.templateId() == BookUpdateDecoder.TEMPLATE_ID){
             book.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
             onBookUpdate(book);
@@ -31,11 +38,15 @@ public abstract class MarketDataEventListener implements Consumer {
         }else if(header.templateId() == BidBookUpdateDecoder.TEMPLATE_ID){
             bid.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
             onBidBook(bid);
+        }else if(header.templateId() == BookLevelUpdateDecoder.TEMPLATE_ID){
+            levels.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            onLevelUpdate(levels);
         }
     }
 
     public abstract void onBookUpdate(BookUpdateDecoder bookUpdate);
     public abstract void onAskBook(AskBookUpdateDecoder askBook);
     public abstract void onBidBook(BidBookUpdateDecoder bidBook);
+    public abstract void onLevelUpdate(BookLevelUpdateDecoder levelUpdate);
 
 }
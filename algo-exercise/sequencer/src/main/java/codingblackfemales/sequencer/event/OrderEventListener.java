@@ -16,6 +16,7 @@ public abstract class OrderEventListener implements Consumer {
     private final PendingOrderDecoder pendingOrderDecoder = new PendingOrderDecoder();
     private final PartialFillOrderDecoder partialFillOrderDecoder = new PartialFillOrderDecoder();
     private final FillOrderDecoder fillOrderDecoder = new FillOrderDecoder();
+    private final OrderBatchDecoder orderBatchDecoder = new OrderBatchDecoder();
 
     @Override
     public void onMessage(DirectBuffer buffer){
@@ -49,6 +50,9 @@ public abstract class OrderEventListener implements Consumer {
             } else if (header.templateId() == FillOrderDecoder.TEMPLATE_ID) {
                 fillOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
                 onFill(fillOrderDecoder);
+            } else if (header.templateId() == OrderBatchDecoder.TEMPLATE_ID) {
+                orderBatchDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                onOrderBatch(orderBatchDecoder);
             }
         }
     }
@@ -66,4 +70,6 @@ public abstract class OrderEventListener implements Consumer {
     public abstract void onPartialFill(final PartialFillOrderDecoder partialFill);
 
     public abstract void onFill(final FillOrderDecoder fill);
+
+    public abstract void onOrderBatch(final OrderBatchDecoder batch);
 }
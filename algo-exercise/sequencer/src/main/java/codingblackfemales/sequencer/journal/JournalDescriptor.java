@@ -0,0 +1,47 @@
+package codingblackfemales.sequencer.journal;
+
+import org.agrona.BitUtil;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Layout of the sequenced journal.
+ *
+ * A journal is a directory of fixed size segment files, named by segment index. Each record in a segment is an int
+ * length followed by the SBE frame (header included), padded to FRAME_ALIGNMENT. The length is written last with an
+ * ordered store, so a length of 0 means "nothing written here yet", and a writer rolls to the next segment when the
+ * next record does not fit, leaving the tail of the segment zeroed. A segment is created and sized under a temporary
+ * name and renamed into place, so once its file exists it is full size.
+ */
+public final class JournalDescriptor {
+
+    public static final int LENGTH_FIELD_LENGTH = 4;
+    public static final int FRAME_ALIGNMENT = 8;
+
+    public static final int DEFAULT_SEGMENT_LENGTH = 64 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private JournalDescriptor() {
+    }
+
+    public static int recordLength(final int frameLength) {
+        return BitUtil.align(LENGTH_FIELD_LENGTH + frameLength, FRAME_ALIGNMENT);
+    }
+
+    public static File segmentFile(final File directory, final int segmentIndex) {
+        return new File(directory, String.format("%s%010d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX));
+    }
+
+    public static File[] segmentFiles(final File directory) {
+        final File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        //zero padded index, so name order is segment order
+        Arrays.sort(files);
+        return files;
+    }
+}
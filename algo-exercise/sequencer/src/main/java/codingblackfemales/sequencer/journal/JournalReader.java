@@ -0,0 +1,126 @@
+package codingblackfemales.sequencer.journal;
+
+import codingblackfemales.sequencer.net.Consumer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static codingblackfemales.sequencer.journal.JournalDescriptor.LENGTH_FIELD_LENGTH;
+import static codingblackfemales.sequencer.journal.JournalDescriptor.recordLength;
+import static codingblackfemales.sequencer.journal.JournalDescriptor.segmentFile;
+
+/**
+ * Reads a journal written by JournalingNetwork back through a Consumer.
+ *
+ * Frames are not copied, the consumer is handed a flyweight over the mapped segment which is only valid for the
+ * duration of the onMessage call. The reader keeps its position, so poll can be called repeatedly to tail a journal
+ * which is still being written.
+ *
+ * Segments are mapped read only by default. Map them PRIVATE to hand frames to something which writes into them, e.g.
+ * DefaultSequencer stamping its sequence number in place: the writes go to copy-on-write pages, never to the file.
+ * That isn't free, the first write to each page faults and copies it, and the copy is anonymous memory the OS can't
+ * drop and read back from the file, so stamping every frame of a replay ends up holding a private copy of the whole
+ * journal. To stamp every frame, copy it into a buffer of your own instead, as BinaryFileMarketDataProvider does.
+ */
+public class JournalReader implements AutoCloseable {
+
+    private final File directory;
+    private final FileChannel.MapMode mapMode;
+    private final UnsafeBuffer segment = new UnsafeBuffer();
+    private final UnsafeBuffer frame = new UnsafeBuffer();
+
+    private MappedByteBuffer mappedSegment;
+    private int segmentIndex = -1;
+    private int position = 0;
+
+    public JournalReader(final File directory) {
+        this(directory, FileChannel.MapMode.READ_ONLY);
+    }
+
+    /**
+     * @param mapMode READ_ONLY or PRIVATE, the reader never writes to the journal
+     */
+    public JournalReader(final File directory, final FileChannel.MapMode mapMode) {
+        if (mapMode == FileChannel.MapMode.READ_WRITE) {
+            throw new IllegalArgumentException("JournalReader must not map the journal READ_WRITE");
+        }
+        this.directory = directory;
+        this.mapMode = mapMode;
+    }
+
+    /**
+     * Replays everything currently in the journal.
+     *
+     * @return the number of frames replayed
+     */
+    public long replay(final Consumer consumer) {
+        long replayed = 0;
+        int read;
+        while ((read = poll(consumer, Integer.MAX_VALUE)) > 0) {
+            replayed += read;
+        }
+        return replayed;
+    }
+
+    /**
+     * Reads up to limit frames from the current position.
+     *
+     * @return the number of frames read, 0 if there is nothing new in the journal
+     */
+    public int poll(final Consumer consumer, final int limit) {
+        int read = 0;
+        while (read < limit) {
+            if (mappedSegment == null && !nextSegment()) {
+                break;
+            }
+
+            if (position + LENGTH_FIELD_LENGTH <= segment.capacity()) {
+                final int length = segment.getIntVolatile(position);
+                if (length > 0) {
+                    frame.wrap(segment, position + LENGTH_FIELD_LENGTH, length);
+                    position += recordLength(length);
+                    consumer.onMessage(frame);
+                    read++;
+                    continue;
+                }
+            }
+
+            //the writer only starts a new segment once it has finished with this one
+            if (!segmentFile(directory, segmentIndex + 1).exists()) {
+                break;
+            }
+            //but it may have appended its last frame here since the length above was read, so look again before leaving
+            if (position + LENGTH_FIELD_LENGTH <= segment.capacity() && segment.getIntVolatile(position) > 0) {
+                continue;
+            }
+            if (!nextSegment()) {
+                break;
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public void close() {
+        if (mappedSegment != null) {
+            IoUtil.unmap(mappedSegment);
+            mappedSegment = null;
+        }
+    }
+
+    private boolean nextSegment() {
+        final File file = segmentFile(directory, segmentIndex + 1);
+        if (!file.exists()) {
+            return false;
+        }
+        close();
+        segmentIndex += 1;
+        mappedSegment = IoUtil.mapExistingFile(file, mapMode, "journal segment");
+        segment.wrap(mappedSegment);
+        position = 0;
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+package codingblackfemales.sequencer.journal;
+
+import codingblackfemales.sequencer.net.Network;
+import codingblackfemales.sequencer.util.FrameLength;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+
+import static codingblackfemales.sequencer.journal.JournalDescriptor.LENGTH_FIELD_LENGTH;
+import static codingblackfemales.sequencer.journal.JournalDescriptor.recordLength;
+import static codingblackfemales.sequencer.journal.JournalDescriptor.segmentFile;
+
+/**
+ * Network decorator which appends every sequenced frame to a memory mapped journal before passing it on, so a session
+ * can be replayed with a JournalReader after a crash.
+ *
+ * Appending is a copy into the mapped segment, nothing is allocated except when rolling to a new segment. Data is in
+ * the page cache as soon as dispatch returns, so it survives the process dying; it is not forced to disk.
+ *
+ * Like DefaultSequencer this is single threaded, dispatch must only be called from one thread.
+ */
+public class JournalingNetwork implements Network, AutoCloseable {
+
+    private final Network delegate;
+    private final File directory;
+    private final int segmentLength;
+
+    private final FrameLength frameLength = new FrameLength();
+    private final UnsafeBuffer segment = new UnsafeBuffer();
+
+    private MappedByteBuffer mappedSegment;
+    private int segmentIndex = -1;
+    private int position = 0;
+
+    public JournalingNetwork(final Network delegate, final File directory) {
+        this(delegate, directory, JournalDescriptor.DEFAULT_SEGMENT_LENGTH);
+    }
+
+    public JournalingNetwork(final Network delegate, final File directory, final int segmentLength) {
+        this.delegate = delegate;
+        this.directory = directory;
+        this.segmentLength = segmentLength;
+
+        IoUtil.ensureDirectoryExists(directory, "journal");
+
+        //carry on from the last segment of an existing journal rather than overwriting it
+        final File[] existing = JournalDescriptor.segmentFiles(directory);
+        segmentIndex = existing.length - 1;
+        rollSegment();
+    }
+
+    @Override
+    public void dispatch(final DirectBuffer buffer) {
+        append(buffer, 0, frameLength.frameLength(buffer, 0));
+        delegate.dispatch(buffer);
+    }
+
+    public void append(final DirectBuffer buffer, final int offset, final int length) {
+        final int recordLength = recordLength(length);
+        if (recordLength > segmentLength) {
+            throw new IllegalArgumentException("Frame of " + length + " bytes does not fit in a journal segment of " + segmentLength + " bytes");
+        }
+        if (position + recordLength > segmentLength) {
+            rollSegment();
+        }
+
+        segment.putBytes(position + LENGTH_FIELD_LENGTH, buffer, offset, length);
+        //length last, so a reader tailing the journal never sees a partially written frame
+        segment.putIntOrdered(position, length);
+        position += recordLength;
+    }
+
+    public int segmentIndex() {
+        return segmentIndex;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    @Override
+    public void close() {
+        if (mappedSegment != null) {
+            IoUtil.unmap(mappedSegment);
+            mappedSegment = null;
+        }
+    }
+
+    private void rollSegment() {
+        close();
+        segmentIndex += 1;
+        //sized under another name, so a reader which sees the segment never maps it part way through being created
+        final File file = segmentFile(directory, segmentIndex);
+        final File creating = new File(directory, file.getName() + ".tmp");
+        mappedSegment = IoUtil.mapNewFile(creating, segmentLength);
+        if (!creating.renameTo(file)) {
+            IoUtil.unmap(mappedSegment);
+            mappedSegment = null;
+            throw new IllegalStateException("Could not create journal segment " + file);
+        }
+        segment.wrap(mappedSegment);
+        position = 0;
+    }
+}
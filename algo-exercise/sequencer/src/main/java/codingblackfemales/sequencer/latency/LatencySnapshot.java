@@ -0,0 +1,53 @@
+package codingblackfemales.sequencer.latency;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Point in time copy of a LatencyTracker's histograms, values are in nanoseconds.
+ */
+public class LatencySnapshot {
+
+    private final Map<LatencyStage, Histogram> histograms;
+
+    LatencySnapshot(final EnumMap<LatencyStage, Histogram> histograms) {
+        this.histograms = histograms;
+    }
+
+    public Histogram getHistogram(final LatencyStage stage) {
+        return histograms.get(stage);
+    }
+
+    public long getCount(final LatencyStage stage) {
+        return histograms.get(stage).getTotalCount();
+    }
+
+    public long getValueAtPercentile(final LatencyStage stage, final double percentile) {
+        return histograms.get(stage).getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-42s %10s %10s %10s %10s %10s %10s %10s%n", "stage (us)", "count", "min", "p50", "p90", "p99", "p99.9", "max"));
+        for (LatencyStage stage : LatencyStage.values()) {
+            final Histogram histogram = histograms.get(stage);
+            builder.append(String.format("%-42s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    stage.getDescription(),
+                    histogram.getTotalCount(),
+                    micros(histogram.getTotalCount() == 0 ? 0 : histogram.getMinValue()),
+                    micros(histogram.getValueAtPercentile(50)),
+                    micros(histogram.getValueAtPercentile(90)),
+                    micros(histogram.getValueAtPercentile(99)),
+                    micros(histogram.getValueAtPercentile(99.9)),
+                    micros(histogram.getMaxValue())));
+        }
+        return builder.toString();
+    }
+
+    private static double micros(final long nanos) {
+        return nanos / 1_000.0;
+    }
+}
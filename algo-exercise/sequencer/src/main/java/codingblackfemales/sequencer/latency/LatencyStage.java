@@ -0,0 +1,23 @@
+package codingblackfemales.sequencer.latency;
+
+/**
+ * Stages of the path from a market data tick arriving at the sequencer to the algo's resulting action being sent.
+ */
+public enum LatencyStage {
+
+    INGRESS_TO_MARKET_DATA("sequencer ingress -> MarketDataService"),
+    MARKET_DATA_TO_EVALUATE("MarketDataService -> AlgoLogic.evaluate"),
+    EVALUATE("AlgoLogic.evaluate"),
+    EVALUATE_TO_ACTION("AlgoLogic.evaluate -> Actioner"),
+    TICK_TO_TRADE("sequencer ingress -> Actioner");
+
+    private final String description;
+
+    LatencyStage(final String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,177 @@
+package codingblackfemales.sequencer.latency;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+import org.agrona.concurrent.NanoClock;
+import org.agrona.concurrent.SystemNanoClock;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+
+/**
+ * Records nanosecond timestamps along the tick to trade path into one histogram per LatencyStage.
+ *
+ * The sequencer, MarketDataService, AlgoContainer and Actioner each mark their point on the path, and the tracker
+ * records the time between consecutive marks. Marks are plain fields, so they assume a tick is handled on one thread,
+ * as it is with DefaultSequencer dispatching synchronously. snapshot() can be called from any thread.
+ *
+ * Commands the algo sends while a tick is being dispatched come back through the sequencer before the tick's dispatch
+ * has finished, so ingress marks are kept per dispatch depth: onIngress() and onEgress() bracket each dispatch, and a
+ * book update is measured from the ingress of the command that is delivering it.
+ *
+ * Use NOOP where latency isn't being measured, it does nothing and reads no clock.
+ */
+public class LatencyTracker {
+
+    public static final LatencyTracker NOOP = new NoOpLatencyTracker();
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final long NOT_SET = Long.MIN_VALUE;
+    private static final int INITIAL_DISPATCH_DEPTH = 16;
+
+    private final NanoClock clock;
+    private final EnumMap<LatencyStage, SingleWriterRecorder> recorders = new EnumMap<>(LatencyStage.class);
+    private final EnumMap<LatencyStage, Histogram> totals = new EnumMap<>(LatencyStage.class);
+    private final EnumMap<LatencyStage, Histogram> intervals = new EnumMap<>(LatencyStage.class);
+
+    //array indexed by stage ordinal, so recording doesn't go through the EnumMap
+    private final SingleWriterRecorder[] recorderByStage;
+
+    //ingress mark of each dispatch in progress, innermost last
+    private long[] ingressTimes = new long[INITIAL_DISPATCH_DEPTH];
+    private int dispatchDepth = 0;
+
+    private long tickIngressTime = NOT_SET;
+    private long marketDataTime = NOT_SET;
+    private long evaluateStartTime = NOT_SET;
+    private long evaluateEndTime = NOT_SET;
+
+    public LatencyTracker() {
+        this(SystemNanoClock.INSTANCE);
+    }
+
+    public LatencyTracker(final NanoClock clock) {
+        this.clock = clock;
+        final LatencyStage[] stages = LatencyStage.values();
+        this.recorderByStage = new SingleWriterRecorder[stages.length];
+        for (LatencyStage stage : stages) {
+            final SingleWriterRecorder recorder = new SingleWriterRecorder(SIGNIFICANT_DIGITS);
+            recorders.put(stage, recorder);
+            recorderByStage[stage.ordinal()] = recorder;
+            totals.put(stage, new Histogram(SIGNIFICANT_DIGITS));
+        }
+    }
+
+    /**
+     * A command has arrived at the sequencer, it is dispatched until the matching onEgress().
+     */
+    public void onIngress() {
+        if (dispatchDepth == ingressTimes.length) {
+            ingressTimes = Arrays.copyOf(ingressTimes, dispatchDepth * 2);
+        }
+        ingressTimes[dispatchDepth++] = clock.nanoTime();
+    }
+
+    /**
+     * The command from the last onIngress() has been dispatched to every consumer.
+     */
+    public void onEgress() {
+        if (dispatchDepth > 0) {
+            dispatchDepth--;
+        }
+    }
+
+    /**
+     * The MarketDataService has applied a book update, the ingress before it is the start of the tick.
+     */
+    public void onMarketData() {
+        final long now = clock.nanoTime();
+        if (dispatchDepth > 0) {
+            final long ingressTime = ingressTimes[dispatchDepth - 1];
+            record(LatencyStage.INGRESS_TO_MARKET_DATA, now - ingressTime);
+            tickIngressTime = ingressTime;
+        }
+        marketDataTime = now;
+    }
+
+    public void onEvaluateStart() {
+        final long now = clock.nanoTime();
+        //only the first evaluation after a tick is market data driven
+        if (marketDataTime != NOT_SET) {
+            record(LatencyStage.MARKET_DATA_TO_EVALUATE, now - marketDataTime);
+            marketDataTime = NOT_SET;
+        }
+        evaluateStartTime = now;
+    }
+
+    public void onEvaluateEnd() {
+        final long now = clock.nanoTime();
+        if (evaluateStartTime != NOT_SET) {
+            record(LatencyStage.EVALUATE, now - evaluateStartTime);
+            evaluateStartTime = NOT_SET;
+        }
+        evaluateEndTime = now;
+    }
+
+    /**
+     * The Actioner is sending an action, the first one after a tick completes its tick to trade.
+     */
+    public void onAction() {
+        final long now = clock.nanoTime();
+        if (evaluateEndTime != NOT_SET) {
+            record(LatencyStage.EVALUATE_TO_ACTION, now - evaluateEndTime);
+            evaluateEndTime = NOT_SET;
+        }
+        if (tickIngressTime != NOT_SET) {
+            record(LatencyStage.TICK_TO_TRADE, now - tickIngressTime);
+            tickIngressTime = NOT_SET;
+        }
+    }
+
+    public synchronized LatencySnapshot snapshot() {
+        final EnumMap<LatencyStage, Histogram> copies = new EnumMap<>(LatencyStage.class);
+        for (LatencyStage stage : LatencyStage.values()) {
+            final Histogram interval = recorders.get(stage).getIntervalHistogram(intervals.get(stage));
+            intervals.put(stage, interval);
+            final Histogram total = totals.get(stage);
+            total.add(interval);
+            copies.put(stage, total.copy());
+        }
+        return new LatencySnapshot(copies);
+    }
+
+    private void record(final LatencyStage stage, final long nanos) {
+        recorderByStage[stage.ordinal()].recordValue(Math.max(0, nanos));
+    }
+
+    private static final class NoOpLatencyTracker extends LatencyTracker {
+
+        private NoOpLatencyTracker() {
+            super(() -> 0L);
+        }
+
+        @Override
+        public void onIngress() {
+        }
+
+        @Override
+        public void onEgress() {
+        }
+
+        @Override
+        public void onMarketData() {
+        }
+
+        @Override
+        public void onEvaluateStart() {
+        }
+
+        @Override
+        public void onEvaluateEnd() {
+        }
+
+        @Override
+        public void onAction() {
+        }
+    }
+}
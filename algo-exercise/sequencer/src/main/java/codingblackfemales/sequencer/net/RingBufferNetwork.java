@@ -0,0 +1,150 @@
+package codingblackfemales.sequencer.net;
+
+import codingblackfemales.sequencer.util.FrameLength;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Network which copies each sequenced frame into one ring buffer per consumer group, each group being drained on its
+ * own agent thread. Consumers in a group see every message, in sequence order, on the same thread, so consumers that
+ * read each other's state (e.g. MarketDataService, OrderService and the AlgoContainer) belong in one group, while the
+ * OrderBook can run in a group of its own on another core.
+ *
+ * By default dispatch must only be called from one thread (the single threaded DefaultSequencer), and the rings are
+ * OneToOneRingBuffers. If consumers send commands back through a sequencer which is safe to call from several threads,
+ * construct the network with concurrentPublishers set, which switches to ManyToOneRingBuffers.
+ *
+ * If a ring is full dispatch spins until the group has caught up, so a slow consumer back pressures the sequencer.
+ */
+public class RingBufferNetwork implements Network, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RingBufferNetwork.class);
+
+    public static final int DEFAULT_RING_CAPACITY = 1024 * 1024;
+
+    private static final int MSG_TYPE_ID = 1;
+
+    private final int ringCapacity;
+    private final boolean concurrentPublishers;
+    private final Supplier<IdleStrategy> idleStrategySupplier;
+    private final ThreadLocal<FrameLength> frameLength = ThreadLocal.withInitial(FrameLength::new);
+
+    private final List<ConsumerGroupAgent> agents = new ArrayList<>();
+    private final List<AgentRunner> runners = new ArrayList<>();
+
+    public RingBufferNetwork() {
+        this(DEFAULT_RING_CAPACITY, BackoffIdleStrategy::new, false);
+    }
+
+    public RingBufferNetwork(final int ringCapacity, final Supplier<IdleStrategy> idleStrategySupplier) {
+        this(ringCapacity, idleStrategySupplier, false);
+    }
+
+    /**
+     * @param ringCapacity capacity of each consumer group's ring, must be a power of two
+     * @param idleStrategySupplier creates the idle strategy each consumer agent uses when its ring is empty
+     * @param concurrentPublishers true if dispatch can be called from more than one thread
+     */
+    public RingBufferNetwork(final int ringCapacity, final Supplier<IdleStrategy> idleStrategySupplier, final boolean concurrentPublishers) {
+        this.ringCapacity = ringCapacity;
+        this.idleStrategySupplier = idleStrategySupplier;
+        this.concurrentPublishers = concurrentPublishers;
+    }
+
+    public void addConsumer(final Consumer consumer) {
+        addConsumerGroup(consumer);
+    }
+
+    /**
+     * Adds consumers which are drained together, in the order given, on a single agent thread.
+     */
+    public void addConsumerGroup(final Consumer... consumers) {
+        if (!runners.isEmpty()) {
+            throw new IllegalStateException("Consumers must be added before the network is started");
+        }
+        final UnsafeBuffer ringBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(ringCapacity + RingBufferDescriptor.TRAILER_LENGTH));
+        final RingBuffer ring = concurrentPublishers ? new ManyToOneRingBuffer(ringBuffer) : new OneToOneRingBuffer(ringBuffer);
+        agents.add(new ConsumerGroupAgent("ring-network-group-" + agents.size(), ring, consumers));
+    }
+
+    public void start() {
+        for (int i = 0; i < agents.size(); i++) {
+            final AgentRunner runner = new AgentRunner(idleStrategySupplier.get(), this::onError, null, agents.get(i));
+            runners.add(runner);
+            AgentRunner.startOnThread(runner);
+        }
+    }
+
+    @Override
+    public void dispatch(final DirectBuffer buffer) {
+        final int length = frameLength.get().frameLength(buffer, 0);
+        for (int i = 0; i < agents.size(); i++) {
+            final RingBuffer ring = agents.get(i).ring;
+            while (!ring.write(MSG_TYPE_ID, buffer, 0, length)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < runners.size(); i++) {
+            runners.get(i).close();
+        }
+        runners.clear();
+    }
+
+    private void onError(final Throwable throwable) {
+        logger.error("[RINGNETWORK] Consumer agent failed", throwable);
+    }
+
+    private static final class ConsumerGroupAgent implements Agent, MessageHandler {
+
+        private final String roleName;
+        private final RingBuffer ring;
+        private final Consumer[] consumers;
+        private final UnsafeBuffer frame = new UnsafeBuffer();
+
+        private ConsumerGroupAgent(final String roleName, final RingBuffer ring, final Consumer[] consumers) {
+            this.roleName = roleName;
+            this.ring = ring;
+            this.consumers = consumers.clone();
+        }
+
+        @Override
+        public int doWork() {
+            return ring.read(this);
+        }
+
+        @Override
+        public void onMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length) {
+            //consumers decode from offset 0, so hand them a view over just this frame
+            frame.wrap(buffer, index, length);
+            for (int i = 0; i < consumers.length; i++) {
+                consumers[i].onMessage(frame);
+            }
+        }
+
+        @Override
+        public String roleName() {
+            return roleName;
+        }
+    }
+}
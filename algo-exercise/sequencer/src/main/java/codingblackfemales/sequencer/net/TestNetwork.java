@@ -2,17 +2,18 @@ package codingblackfemales.sequencer.net;
 
 import org.agrona.DirectBuffer;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class TestNetwork implements Network{
 
-    private final List<Consumer> consumers = new LinkedList<>();
+    private final List<Consumer> consumers = new ArrayList<>();
 
     @Override
     public void dispatch(DirectBuffer buffer){
-        for (Consumer consumer: consumers) {
-            consumer.onMessage(buffer);
+        //indexed loop, so dispatching doesn't create an iterator per message
+        for (int i = 0; i < consumers.size(); i++) {
+            consumers.get(i).onMessage(buffer);
         }
     }
 
@@ -0,0 +1,80 @@
+package codingblackfemales.sequencer.util;
+
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A stack of preallocated direct buffers, one per level of dispatch nesting.
+ *
+ * Dispatch through the sequencer is re-entrant: a consumer can send a new command while the message it is handling
+ * is still being dispatched to the consumers after it. A single shared scratch buffer would be overwritten by the
+ * nested message, so each level of nesting pushes its own buffer and pops it when its dispatch returns.
+ *
+ * Buffers are only allocated the first time a given depth (or, through push(capacity), size) is reached, so steady
+ * state push/pop is allocation free.
+ */
+public class BufferStack {
+
+    private final int bufferSize;
+
+    private UnsafeBuffer[] buffers;
+    private int depth = 0;
+
+    public BufferStack(final int bufferSize, final int initialDepth) {
+        this.bufferSize = bufferSize;
+        this.buffers = new UnsafeBuffer[Math.max(1, initialDepth)];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = newBuffer();
+        }
+    }
+
+    public UnsafeBuffer push() {
+        if (depth == buffers.length) {
+            grow();
+        }
+        return buffers[depth++];
+    }
+
+    /**
+     * As push, replacing the buffer at this depth with a larger one first if it is smaller than capacity, for messages
+     * whose size depends on what they carry (e.g. a book update).
+     */
+    public UnsafeBuffer push(final int capacity) {
+        final UnsafeBuffer buffer = push();
+        if (buffer.capacity() >= capacity) {
+            return buffer;
+        }
+        final UnsafeBuffer grown = new UnsafeBuffer(ByteBuffer.allocateDirect(Math.max(capacity, 2 * buffer.capacity())));
+        buffers[depth - 1] = grown;
+        return grown;
+    }
+
+    public void pop() {
+        if (depth == 0) {
+            throw new IllegalStateException("pop() called on an empty BufferStack");
+        }
+        depth--;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    private void grow() {
+        final UnsafeBuffer[] grown = new UnsafeBuffer[buffers.length * 2];
+        System.arraycopy(buffers, 0, grown, 0, buffers.length);
+        for (int i = buffers.length; i < grown.length; i++) {
+            grown[i] = newBuffer();
+        }
+        buffers = grown;
+    }
+
+    private UnsafeBuffer newBuffer() {
+        return new UnsafeBuffer(ByteBuffer.allocateDirect(bufferSize));
+    }
+}
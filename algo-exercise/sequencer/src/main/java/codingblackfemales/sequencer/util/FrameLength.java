@@ -0,0 +1,58 @@
+package codingblackfemales.sequencer.util;
+
+import messages.marketdata.AskBookUpdateDecoder;
+import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookLevelUpdateDecoder;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.MessageHeaderDecoder;
+import messages.order.OrderBatchDecoder;
+import org.agrona.DirectBuffer;
+
+/**
+ * Works out how many bytes an encoded SBE message occupies, header included, so it can be copied without copying
+ * the whole of the buffer it was encoded into.
+ *
+ * Messages with repeating groups are walked with their decoder, everything else is a fixed block after the header.
+ * Reuses its decoders, so an instance must not be shared between threads.
+ */
+public class FrameLength {
+
+    private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
+    private final BookUpdateDecoder bookUpdateDecoder = new BookUpdateDecoder();
+    private final BidBookUpdateDecoder bidBookUpdateDecoder = new BidBookUpdateDecoder();
+    private final AskBookUpdateDecoder askBookUpdateDecoder = new AskBookUpdateDecoder();
+    private final BookLevelUpdateDecoder bookLevelUpdateDecoder = new BookLevelUpdateDecoder();
+    private final OrderBatchDecoder orderBatchDecoder = new OrderBatchDecoder();
+
+    public int frameLength(final DirectBuffer buffer, final int offset) {
+
+        headerDecoder.wrap(buffer, offset);
+
+        final int schemaId = headerDecoder.schemaId();
+        final int templateId = headerDecoder.templateId();
+        final int blockLength = headerDecoder.blockLength();
+        final int version = headerDecoder.version();
+        final int bodyOffset = offset + headerDecoder.encodedLength();
+
+        if (schemaId == BookUpdateDecoder.SCHEMA_ID) {
+            switch (templateId) {
+                case BookUpdateDecoder.TEMPLATE_ID:
+                    return headerDecoder.encodedLength() + bookUpdateDecoder.wrap(buffer, bodyOffset, blockLength, version).sbeDecodedLength();
+                case BidBookUpdateDecoder.TEMPLATE_ID:
+                    return headerDecoder.encodedLength() + bidBookUpdateDecoder.wrap(buffer, bodyOffset, blockLength, version).sbeDecodedLength();
+                case AskBookUpdateDecoder.TEMPLATE_ID:
+                    return headerDecoder.encodedLength() + askBookUpdateDecoder.wrap(buffer, bodyOffset, blockLength, version).sbeDecodedLength();
+                case BookLevelUpdateDecoder.TEMPLATE_ID:
+                    return headerDecoder.encodedLength() + bookLevelUpdateDecoder.wrap(buffer, bodyOffset, blockLength, version).sbeDecodedLength();
+                default:
+                    break;
+            }
+        }
+
+        if (schemaId == OrderBatchDecoder.SCHEMA_ID && templateId == OrderBatchDecoder.TEMPLATE_ID) {
+            return headerDecoder.encodedLength() + orderBatchDecoder.wrap(buffer, bodyOffset, blockLength, version).sbeDecodedLength();
+        }
+
+        return headerDecoder.encodedLength() + blockLength;
+    }
+}
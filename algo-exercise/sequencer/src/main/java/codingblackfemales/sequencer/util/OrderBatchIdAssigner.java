@@ -0,0 +1,38 @@
+package codingblackfemales.sequencer.util;
+
+import messages.order.MessageHeaderDecoder;
+import messages.order.OrderBatchAction;
+import messages.order.OrderBatchDecoder;
+import org.agrona.MutableDirectBuffer;
+
+/**
+ * Writes order ids into the creates of an encoded OrderBatch in place, cancels keep the id of the order they cancel.
+ *
+ * Reuses its decoders, so an instance must not be shared between threads.
+ */
+public class OrderBatchIdAssigner {
+
+    private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
+    private final OrderBatchDecoder batchDecoder = new OrderBatchDecoder();
+
+    /**
+     * Gives the creates consecutive ids starting at firstOrderId.
+     *
+     * @return the number of ids used
+     */
+    public int assignOrderIds(final MutableDirectBuffer buffer, final int offset, final long firstOrderId) {
+
+        batchDecoder.wrapAndApplyHeader(buffer, offset, headerDecoder);
+
+        int assigned = 0;
+        for (OrderBatchDecoder.OrdersDecoder order : batchDecoder.orders()) {
+            if (order.action() == OrderBatchAction.CREATE) {
+                //next() has moved the limit past this entry
+                final int entryOffset = batchDecoder.limit() - order.actingBlockLength();
+                buffer.putLong(entryOffset + OrderBatchDecoder.OrdersDecoder.orderIdEncodingOffset(), firstOrderId + assigned, OrderBatchDecoder.BYTE_ORDER);
+                assigned++;
+            }
+        }
+        return assigned;
+    }
+}
@@ -0,0 +1,150 @@
+package codingblackfemales.sequencer;
+
+import codingblackfemales.sequencer.net.Consumer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderDecoder;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Venue;
+import messages.order.CreateOrderDecoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.Side;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultSequencerTest {
+
+    private static final int WARMUP_MESSAGES = 100_000;
+    private static final int MEASURED_MESSAGES = 100_000;
+
+    private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
+
+    @Test
+    public void testSteadyStateDispatchDoesNotAllocate() {
+
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        final TestNetwork network = new TestNetwork();
+        final DefaultSequencer sequencer = new DefaultSequencer(network);
+        final SequenceCheckingConsumer consumer = new SequenceCheckingConsumer();
+        network.addConsumer(consumer);
+
+        final UnsafeBuffer marketData = encodeBookUpdate();
+        final UnsafeBuffer createOrder = encodeCreateOrder(Side.BUY, 100, 98);
+
+        for (int i = 0; i < WARMUP_MESSAGES; i++) {
+            sequencer.onCommand(marketData);
+            sequencer.onCommand(createOrder);
+        }
+
+        final long before = threadMXBean.getCurrentThreadAllocatedBytes();
+
+        for (int i = 0; i < MEASURED_MESSAGES; i++) {
+            sequencer.onCommand(marketData);
+            sequencer.onCommand(createOrder);
+        }
+
+        final long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        //a single allocation per message would be at least 16 bytes * 2 * MEASURED_MESSAGES, leave a little slack for the MXBean itself
+        assertTrue("allocated " + allocated + " bytes dispatching " + (2 * MEASURED_MESSAGES) + " messages", allocated < 1024);
+        assertTrue(consumer.inOrder);
+        assertEquals(2L * (WARMUP_MESSAGES + MEASURED_MESSAGES), consumer.lastSequence);
+    }
+
+    @Test
+    public void testNestedDispatchDoesNotOverwriteOuterMessage() {
+
+        final TestNetwork network = new TestNetwork();
+        final DefaultSequencer sequencer = new DefaultSequencer(network);
+
+        final UnsafeBuffer nestedOrder = encodeCreateOrder(Side.SELL, 50, 101);
+        final CreateOrderDecoder decoder = new CreateOrderDecoder();
+        final long[] seenPrices = new long[4];
+        final int[] seen = {0};
+
+        //first consumer sends a new order while the original is still being dispatched
+        network.addConsumer(buffer -> {
+            if (isCreateOrder(buffer) && price(decoder, buffer) == 98) {
+                sequencer.onCommand(nestedOrder);
+            }
+        });
+
+        //second consumer must still see the outer order after the nested dispatch has returned
+        network.addConsumer(buffer -> {
+            if (isCreateOrder(buffer)) {
+                seenPrices[seen[0]++] = price(decoder, buffer);
+            }
+        });
+
+        sequencer.onCommand(encodeCreateOrder(Side.BUY, 100, 98));
+
+        assertEquals(2, seen[0]);
+        assertEquals(101, seenPrices[0]);
+        assertEquals(98, seenPrices[1]);
+    }
+
+    private boolean isCreateOrder(final DirectBuffer buffer) {
+        headerDecoder.wrap(buffer, 0);
+        return headerDecoder.schemaId() == CreateOrderEncoder.SCHEMA_ID && headerDecoder.templateId() == CreateOrderEncoder.TEMPLATE_ID;
+    }
+
+    private long price(final CreateOrderDecoder decoder, final DirectBuffer buffer) {
+        headerDecoder.wrap(buffer, 0);
+        decoder.wrap(buffer, headerDecoder.encodedLength(), headerDecoder.blockLength(), headerDecoder.version());
+        return decoder.price();
+    }
+
+    private static UnsafeBuffer encodeBookUpdate() {
+        final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(buffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.bidBookCount(2)
+                .next().price(98L).size(100L)
+                .next().price(97L).size(200L);
+        encoder.askBookCount(2)
+                .next().price(100L).size(101L)
+                .next().price(101L).size(200L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return buffer;
+    }
+
+    private static UnsafeBuffer encodeCreateOrder(final Side side, final long quantity, final long price) {
+        final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        final CreateOrderEncoder encoder = new CreateOrderEncoder();
+        encoder.wrapAndApplyHeader(buffer, 0, new messages.order.MessageHeaderEncoder());
+        encoder.side(side);
+        encoder.quantity(quantity);
+        encoder.price(price);
+        return buffer;
+    }
+
+    private static final class SequenceCheckingConsumer implements Consumer {
+
+        private final MessageHeaderDecoder decoder = new MessageHeaderDecoder();
+        private long lastSequence = 0;
+        private boolean inOrder = true;
+
+        @Override
+        public void onMessage(final DirectBuffer buffer) {
+            decoder.wrap(buffer, 0);
+            final long sequence = decoder.sequencerNumber();
+            //no asserts here, assertEquals(long, long) boxes and would show up as allocation
+            if (sequence != lastSequence + 1) {
+                inOrder = false;
+            }
+            lastSequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package codingblackfemales.sequencer;
+
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Venue;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of RealSequencer with 1 to 8 producer threads, dispatching to a network with no consumers.
+ *
+ * Not run as part of the build, run main() from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RealSequencerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SequencerState {
+
+        RealSequencer sequencer;
+        AgentRunner runner;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            sequencer = new RealSequencer(buffer -> { }, 64 * 1024, RealSequencer.DEFAULT_SLOT_LENGTH);
+            runner = new AgentRunner(new BusySpinIdleStrategy(), Throwable::printStackTrace, null, sequencer);
+            AgentRunner.startOnThread(runner);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            runner.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ProducerState {
+
+        final UnsafeBuffer bookUpdate = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final BookUpdateEncoder encoder = new BookUpdateEncoder();
+            encoder.wrapAndApplyHeader(bookUpdate, 0, new MessageHeaderEncoder());
+            encoder.venue(Venue.XLON);
+            encoder.instrumentId(123L);
+            encoder.bidBookCount(2)
+                    .next().price(98L).size(100L)
+                    .next().price(97L).size(200L);
+            encoder.askBookCount(2)
+                    .next().price(100L).size(101L)
+                    .next().price(101L).size(200L);
+            encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void producers1(final SequencerState sequencer, final ProducerState producer) {
+        sequencer.sequencer.onCommand(producer.bookUpdate);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void producers2(final SequencerState sequencer, final ProducerState producer) {
+        sequencer.sequencer.onCommand(producer.bookUpdate);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void producers4(final SequencerState sequencer, final ProducerState producer) {
+        sequencer.sequencer.onCommand(producer.bookUpdate);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void producers8(final SequencerState sequencer, final ProducerState producer) {
+        sequencer.sequencer.onCommand(producer.bookUpdate);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RealSequencerBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,185 @@
+package codingblackfemales.sequencer;
+
+import codingblackfemales.sequencer.net.Consumer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderDecoder;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Venue;
+import messages.order.CreateOrderDecoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.Side;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.YieldingIdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RealSequencerTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int MESSAGES_PER_PRODUCER = 10_000;
+
+    @Test
+    public void testConcurrentProducersAreSequencedInTotalOrderWithoutGaps() throws Exception {
+
+        final TestNetwork network = new TestNetwork();
+        final OrderCheckingConsumer consumer = new OrderCheckingConsumer();
+        network.addConsumer(consumer);
+
+        //small ring so producers regularly wait on the dispatcher
+        final RealSequencer sequencer = new RealSequencer(network, 256, 128);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> producers = new ArrayList<>();
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            final Thread thread = new Thread(() -> {
+                final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(128));
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                    encodeBookUpdate(buffer, producer, i);
+                    sequencer.onCommand(buffer);
+                }
+            });
+            thread.start();
+            producers.add(thread);
+        }
+
+        try (AgentRunner runner = new AgentRunner(new YieldingIdleStrategy(), Throwable::printStackTrace, null, sequencer)) {
+            AgentRunner.startOnThread(runner);
+            start.countDown();
+            for (Thread producer : producers) {
+                producer.join(TimeUnit.SECONDS.toMillis(30));
+            }
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (consumer.count < PRODUCERS * MESSAGES_PER_PRODUCER && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+
+        assertEquals(PRODUCERS * MESSAGES_PER_PRODUCER, consumer.count);
+        assertTrue("sequence numbers must be gap free and per producer order kept", consumer.inOrder);
+        assertEquals(PRODUCERS * MESSAGES_PER_PRODUCER, sequencer.dispatchedSequence());
+    }
+
+    @Test
+    public void testCommandSentWhileDispatchingIsQueuedBehindCurrentMessage() {
+
+        final TestNetwork network = new TestNetwork();
+        final RealSequencer sequencer = new RealSequencer(network, 8, 128);
+
+        final UnsafeBuffer order = new UnsafeBuffer(ByteBuffer.allocateDirect(128));
+        final CreateOrderEncoder encoder = new CreateOrderEncoder();
+        encoder.wrapAndApplyHeader(order, 0, new messages.order.MessageHeaderEncoder());
+        encoder.side(Side.BUY).quantity(100).price(98).instrumentId(7);
+
+        final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        final CreateOrderDecoder decoder = new CreateOrderDecoder();
+        final List<String> seen = new ArrayList<>();
+
+        network.addConsumer(buffer -> {
+            header.wrap(buffer, 0);
+            if (header.templateId() == BookUpdateDecoder.TEMPLATE_ID && header.schemaId() == BookUpdateDecoder.SCHEMA_ID) {
+                seen.add("md:" + header.sequencerNumber());
+                sequencer.onCommand(order);
+                seen.add("md-done");
+            } else {
+                decoder.wrapAndApplyHeader(buffer, 0, new messages.order.MessageHeaderDecoder());
+                seen.add("order:" + header.sequencerNumber() + ":" + decoder.orderId() + ":" + decoder.instrumentId());
+            }
+        });
+
+        final UnsafeBuffer bookUpdate = new UnsafeBuffer(ByteBuffer.allocateDirect(128));
+        encodeBookUpdate(bookUpdate, 0, 0);
+        sequencer.onCommand(bookUpdate);
+
+        assertEquals(2, sequencer.doWork());
+        assertEquals(List.of("md:1", "md-done", "order:2:2:7"), seen);
+    }
+
+    @Test
+    public void testFullRingFromDispatcherThreadFails() {
+
+        final TestNetwork network = new TestNetwork();
+        final RealSequencer sequencer = new RealSequencer(network, 2, 128);
+        final UnsafeBuffer bookUpdate = new UnsafeBuffer(ByteBuffer.allocateDirect(128));
+        encodeBookUpdate(bookUpdate, 0, 0);
+
+        final boolean[] sendTwo = {true};
+        network.addConsumer(buffer -> {
+            if (sendTwo[0]) {
+                sendTwo[0] = false;
+                sequencer.onCommand(bookUpdate);
+                sequencer.onCommand(bookUpdate);
+            }
+        });
+
+        sequencer.onCommand(bookUpdate);
+        try {
+            sequencer.doWork();
+            fail("expected the second send to find the ring full");
+        } catch (IllegalStateException expected) {
+        }
+
+        //the failed send didn't take a slot, so the ring still drains and later commands get through
+        assertEquals(2, sequencer.doWork());
+        sequencer.onCommand(bookUpdate);
+        assertEquals(1, sequencer.doWork());
+        assertEquals(3, sequencer.dispatchedSequence());
+    }
+
+    private static void encodeBookUpdate(final UnsafeBuffer buffer, final int producer, final int i) {
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(buffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        //producer in the instrument id, message number in the bid price so per producer order can be checked
+        encoder.instrumentId(producer);
+        encoder.bidBookCount(1).next().price(i).size(100L);
+        encoder.askBookCount(0);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+    }
+
+    private static final class OrderCheckingConsumer implements Consumer {
+
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final BookUpdateDecoder decoder = new BookUpdateDecoder();
+        private final long[] lastPerProducer = new long[PRODUCERS];
+
+        private volatile int count = 0;
+        private boolean inOrder = true;
+
+        private OrderCheckingConsumer() {
+            Arrays.fill(lastPerProducer, -1);
+        }
+
+        @Override
+        public void onMessage(final DirectBuffer buffer) {
+            decoder.wrapAndApplyHeader(buffer, 0, header);
+            final int producer = (int) decoder.instrumentId();
+            final long i = decoder.bidBook().next().price();
+            if (header.sequencerNumber() != count + 1 || i != lastPerProducer[producer] + 1) {
+                inOrder = false;
+            }
+            lastPerProducer[producer] = i;
+            count = count + 1;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package codingblackfemales.sequencer.journal;
+
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.net.Consumer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderDecoder;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Venue;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JournalingNetworkTest {
+
+    private static final int MESSAGES = 1_000;
+    private static final int SEGMENT_LENGTH = 16 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testJournalReplaysEverySequencedFrameAcrossSegments() throws Exception {
+
+        final File directory = folder.newFolder("journal");
+        final TestNetwork network = new TestNetwork();
+        final SequenceCheckingConsumer live = new SequenceCheckingConsumer();
+        network.addConsumer(live);
+
+        try (JournalingNetwork journal = new JournalingNetwork(network, directory, SEGMENT_LENGTH)) {
+            final DefaultSequencer sequencer = new DefaultSequencer(journal);
+            final UnsafeBuffer bookUpdate = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+            for (int i = 0; i < MESSAGES; i++) {
+                encodeBookUpdate(bookUpdate, i);
+                sequencer.onCommand(bookUpdate);
+            }
+            assertTrue("journal should have rolled", journal.segmentIndex() > 0);
+        }
+
+        assertEquals(MESSAGES, live.count);
+
+        final SequenceCheckingConsumer replayed = new SequenceCheckingConsumer();
+        try (JournalReader reader = new JournalReader(directory)) {
+            assertEquals(MESSAGES, reader.replay(replayed));
+            assertEquals(0, reader.poll(replayed, 10));
+        }
+
+        assertEquals(MESSAGES, replayed.count);
+        assertTrue(replayed.inOrder);
+    }
+
+    @Test
+    public void testReaderTailsJournalWhileItIsWritten() throws Exception {
+
+        final File directory = folder.newFolder("tail");
+        final SequenceCheckingConsumer replayed = new SequenceCheckingConsumer();
+
+        try (JournalingNetwork journal = new JournalingNetwork(new TestNetwork(), directory, SEGMENT_LENGTH);
+             JournalReader reader = new JournalReader(directory)) {
+
+            final DefaultSequencer sequencer = new DefaultSequencer(journal);
+            final UnsafeBuffer bookUpdate = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+            for (int i = 0; i < MESSAGES; i++) {
+                encodeBookUpdate(bookUpdate, i);
+                sequencer.onCommand(bookUpdate);
+                assertEquals(1, reader.poll(replayed, 10));
+            }
+        }
+
+        assertEquals(MESSAGES, replayed.count);
+        assertTrue(replayed.inOrder);
+    }
+
+    @Test
+    public void testReaderTailsJournalWrittenFromAnotherThread() throws Exception {
+
+        final File directory = folder.newFolder("concurrent");
+        final SequenceCheckingConsumer replayed = new SequenceCheckingConsumer();
+        final int messages = MESSAGES * 20;
+
+        try (JournalingNetwork journal = new JournalingNetwork(new TestNetwork(), directory, SEGMENT_LENGTH);
+             JournalReader reader = new JournalReader(directory)) {
+
+            //frames are appended while the reader is deciding whether to roll, none can be skipped
+            final Thread writer = new Thread(() -> {
+                final DefaultSequencer sequencer = new DefaultSequencer(journal);
+                final UnsafeBuffer bookUpdate = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+                for (int i = 0; i < messages; i++) {
+                    encodeBookUpdate(bookUpdate, i);
+                    sequencer.onCommand(bookUpdate);
+                }
+            });
+            writer.start();
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (replayed.count < messages && System.nanoTime() < deadline) {
+                reader.poll(replayed, 10);
+            }
+            writer.join();
+            assertTrue("journal should have rolled", journal.segmentIndex() > 0);
+        }
+
+        assertEquals(messages, replayed.count);
+        assertTrue(replayed.inOrder);
+    }
+
+    private static void encodeBookUpdate(final UnsafeBuffer buffer, final int i) {
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(buffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(i);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        encoder.askBookCount(1).next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+    }
+
+    private static final class SequenceCheckingConsumer implements Consumer {
+
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final BookUpdateDecoder decoder = new BookUpdateDecoder();
+
+        private int count = 0;
+        private boolean inOrder = true;
+
+        @Override
+        public void onMessage(final DirectBuffer buffer) {
+            decoder.wrapAndApplyHeader(buffer, 0, header);
+            if (header.sequencerNumber() != count + 1 || decoder.instrumentId() != count) {
+                inOrder = false;
+            }
+            count++;
+        }
+    }
+}
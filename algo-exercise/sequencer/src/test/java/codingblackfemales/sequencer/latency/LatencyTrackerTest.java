@@ -0,0 +1,110 @@
+package codingblackfemales.sequencer.latency;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyTrackerTest {
+
+    private long now = 0;
+
+    @Test
+    public void testStagesAreMeasuredBetweenMarks() {
+
+        final LatencyTracker tracker = new LatencyTracker(() -> now);
+
+        at(1_000, tracker::onIngress);
+        at(1_500, tracker::onMarketData);
+        at(1_700, tracker::onEvaluateStart);
+        at(2_700, tracker::onEvaluateEnd);
+        at(3_000, tracker::onAction);
+
+        final LatencySnapshot snapshot = tracker.snapshot();
+
+        assertEquals(500, snapshot.getValueAtPercentile(LatencyStage.INGRESS_TO_MARKET_DATA, 50));
+        assertEquals(200, snapshot.getValueAtPercentile(LatencyStage.MARKET_DATA_TO_EVALUATE, 50));
+        assertEquals(1_000, snapshot.getValueAtPercentile(LatencyStage.EVALUATE, 50));
+        assertEquals(300, snapshot.getValueAtPercentile(LatencyStage.EVALUATE_TO_ACTION, 50));
+        assertEquals(2_000, snapshot.getValueAtPercentile(LatencyStage.TICK_TO_TRADE, 50));
+    }
+
+    @Test
+    public void testOnlyFirstActionAfterATickIsTickToTrade() {
+
+        final LatencyTracker tracker = new LatencyTracker(() -> now);
+
+        at(1_000, tracker::onIngress);
+        at(1_100, tracker::onMarketData);
+        at(1_200, tracker::onEvaluateStart);
+        at(1_300, tracker::onEvaluateEnd);
+        at(1_400, tracker::onAction);
+
+        //the order the algo just sent comes back through the sequencer and the algo acts again
+        at(1_500, tracker::onIngress);
+        at(1_600, tracker::onEvaluateStart);
+        at(1_700, tracker::onEvaluateEnd);
+        at(1_800, tracker::onAction);
+
+        final LatencySnapshot snapshot = tracker.snapshot();
+
+        assertEquals(1, snapshot.getCount(LatencyStage.TICK_TO_TRADE));
+        assertEquals(1, snapshot.getCount(LatencyStage.MARKET_DATA_TO_EVALUATE));
+        assertEquals(2, snapshot.getCount(LatencyStage.EVALUATE));
+        assertEquals(2, snapshot.getCount(LatencyStage.EVALUATE_TO_ACTION));
+    }
+
+    @Test
+    public void testNestedCommandsDoNotMoveTheTicksIngress() {
+
+        final LatencyTracker tracker = new LatencyTracker(() -> now);
+
+        at(1_000, tracker::onIngress);
+
+        //a consumer ahead of the MarketDataService sends a command while the tick is still being dispatched
+        at(1_200, tracker::onIngress);
+        at(1_300, tracker::onEgress);
+
+        at(1_500, tracker::onMarketData);
+        at(1_600, tracker::onEvaluateStart);
+        at(1_700, tracker::onEvaluateEnd);
+
+        //the algo's own order is sequenced inside the tick, it is the tick's action
+        at(1_800, tracker::onIngress);
+        at(1_800, tracker::onAction);
+        at(1_900, tracker::onEgress);
+        at(2_000, tracker::onEgress);
+
+        final LatencySnapshot snapshot = tracker.snapshot();
+
+        assertEquals(500, snapshot.getValueAtPercentile(LatencyStage.INGRESS_TO_MARKET_DATA, 50));
+        assertEquals(800, snapshot.getValueAtPercentile(LatencyStage.TICK_TO_TRADE, 50));
+    }
+
+    @Test
+    public void testSnapshotsAccumulate() {
+
+        final LatencyTracker tracker = new LatencyTracker(() -> now);
+
+        at(0, tracker::onEvaluateStart);
+        at(10, tracker::onEvaluateEnd);
+        assertEquals(1, tracker.snapshot().getCount(LatencyStage.EVALUATE));
+
+        at(20, tracker::onEvaluateStart);
+        at(30, tracker::onEvaluateEnd);
+        assertEquals(2, tracker.snapshot().getCount(LatencyStage.EVALUATE));
+    }
+
+    @Test
+    public void testNoOpRecordsNothing() {
+        LatencyTracker.NOOP.onIngress();
+        LatencyTracker.NOOP.onMarketData();
+        LatencyTracker.NOOP.onAction();
+        LatencyTracker.NOOP.onEgress();
+        assertEquals(0, LatencyTracker.NOOP.snapshot().getCount(LatencyStage.TICK_TO_TRADE));
+    }
+
+    private void at(final long time, final Runnable mark) {
+        now = time;
+        mark.run();
+    }
+}
@@ -0,0 +1,118 @@
+package codingblackfemales.sequencer.net;
+
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.util.FrameLength;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderDecoder;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Venue;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferNetworkTest {
+
+    private static final int MESSAGES = 50_000;
+
+    @Test
+    public void testEachConsumerSeesEveryMessageInSequenceOrder() throws Exception {
+
+        final OrderCheckingConsumer orderBook = new OrderCheckingConsumer();
+        final OrderCheckingConsumer marketDataService = new OrderCheckingConsumer();
+        final OrderCheckingConsumer algoContainer = new OrderCheckingConsumer();
+
+        try (RingBufferNetwork network = new RingBufferNetwork(64 * 1024, BusySpinIdleStrategy::new)) {
+            network.addConsumer(orderBook);
+            network.addConsumerGroup(marketDataService, algoContainer);
+            network.start();
+
+            final DefaultSequencer sequencer = new DefaultSequencer(network);
+            final UnsafeBuffer bookUpdate = encodeBookUpdate();
+
+            for (int i = 0; i < MESSAGES; i++) {
+                sequencer.onCommand(bookUpdate);
+            }
+
+            awaitMessages(orderBook);
+            awaitMessages(marketDataService);
+            awaitMessages(algoContainer);
+        }
+
+        assertTrue(orderBook.inOrder);
+        assertTrue(marketDataService.inOrder);
+        assertTrue(algoContainer.inOrder);
+
+        assertEquals(MESSAGES, orderBook.lastSequence);
+        assertEquals(MESSAGES, algoContainer.lastSequence);
+
+        //consumers in a group are drained on the same agent thread
+        assertSame(marketDataService.thread, algoContainer.thread);
+        assertTrue(orderBook.thread != marketDataService.thread);
+    }
+
+    @Test
+    public void testFrameLengthCoversGroups() {
+        final UnsafeBuffer bookUpdate = encodeBookUpdate();
+        final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        final BookUpdateDecoder decoder = new BookUpdateDecoder();
+        decoder.wrapAndApplyHeader(bookUpdate, 0, header);
+
+        assertEquals(header.encodedLength() + decoder.sbeDecodedLength(), new FrameLength().frameLength(bookUpdate, 0));
+    }
+
+    private static void awaitMessages(final OrderCheckingConsumer consumer) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (consumer.count < MESSAGES && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(MESSAGES, consumer.count);
+    }
+
+    private static UnsafeBuffer encodeBookUpdate() {
+        final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(buffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.bidBookCount(2)
+                .next().price(98L).size(100L)
+                .next().price(97L).size(200L);
+        encoder.askBookCount(1)
+                .next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return buffer;
+    }
+
+    private static final class OrderCheckingConsumer implements Consumer {
+
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final BookUpdateDecoder decoder = new BookUpdateDecoder();
+
+        private volatile int count = 0;
+        private volatile long lastSequence = 0;
+        private volatile boolean inOrder = true;
+        private volatile Thread thread;
+
+        @Override
+        public void onMessage(final DirectBuffer buffer) {
+            thread = Thread.currentThread();
+            decoder.wrapAndApplyHeader(buffer, 0, header);
+            final long sequence = header.sequencerNumber();
+            if (sequence != lastSequence + 1 || decoder.instrumentId() != 123L || decoder.bidBook().count() != 2) {
+                inOrder = false;
+            }
+            lastSequence = sequence;
+            count = count + 1;
+        }
+    }
+}